@@ -0,0 +1,29 @@
+import ch.trick17.gui.Color;
+import ch.trick17.gui.Gui;
+
+public class Transformations {
+
+    public static void main(String[] args) {
+        Gui gui = Gui.create("Transformations", 500, 300);
+        gui.open();
+
+        double rotationAngle = Math.PI / 4;
+
+        while (gui.isOpen()) {
+            rotationAngle += 0.05;
+
+            // the rotation only applies until popTransform(), so there is
+            // no need to undo it manually (compare with CustomCommand)
+            gui.pushTransform();
+            gui.rotate(rotationAngle, 150, 150);
+            gui.setColor(new Color(100, 100, 255));
+            gui.fillRect(100, 100, 100, 100);
+            gui.popTransform();
+
+            gui.setColor(new Color(255, 100, 100));
+            gui.fillRect(300, 100, 100, 100);
+
+            gui.refreshAndClear(20);
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package ch.trick17.gui;
+
+import ch.trick17.gui.component.Drawable;
+
+/**
+ * The paint settings, transformations, and drawing operations of a
+ * {@link Gui}. Besides GUIs, objects that only record drawing operations,
+ * like the command buffers of the Java2D-based implementations, implement
+ * this interface as well, so code that only draws can be used with both.
+ * <p>
+ * All methods of this interface use the same coordinate system as the GUI
+ * they draw on, with the origin in the upper-left corner, the x-axis
+ * extending to the right, and the y-axis extending to the bottom.
+ */
+public interface Canvas {
+
+    /*
+     * Paint settings
+     */
+
+    /**
+     * Sets the color for the subsequent drawing operations. The three
+     * parameters represent the red, green, and blue channel and are expected to
+     * be in the 0&ndash;255 range. Values outside this range will be clamped.
+     * The default color is black (0, 0, 0). For colors with transparency, use
+     * {@link #setColor(Color)}.
+     */
+    default void setColor(int red, int green, int blue) {
+        setColor(new Color(red, green, blue));
+    }
+
+    /**
+     * Sets the color for the subsequent drawing operations, using a
+     * {@link Color} object. The default color is black (0, 0, 0).
+     */
+    void setColor(Color color);
+
+    /**
+     * Returns the current drawing color.
+     */
+    Color getColor();
+
+    /**
+     * Sets the stroke width for subsequent <code>draw...()</code> operations,
+     * in pixels. The default stroke width is 1 pixel.
+     */
+    void setStrokeWidth(double strokeWidth);
+
+    /**
+     * Returns the current stroke width (in pixels).
+     */
+    double getStrokeWidth();
+
+    /**
+     * If <code>roundStroke</code> is <code>true</code>, subsequent
+     * <code>draw...()</code> operations will use round stroke caps and joins
+     * (instead of flat caps and miter joins).
+     */
+    void setRoundStroke(boolean roundStroke);
+
+    /**
+     * Returns a boolean value indicating whether round stroke caps and joins
+     * are used to draw shapes (instead of flat caps and miter joins). The
+     * default is <code>false</code>.
+     */
+    boolean isRoundStroke();
+
+    /**
+     * Sets the font family to be used for subsequent
+     * {@link #drawString(String, double, double)} operations. This can be the
+     * family name of a physical font, like "Arial" or one of the following
+     * "logical" fonts, for which a suitable physical font is chosen
+     * automatically:
+     * <ul>
+     *     <li>"sansserif"</li>
+     *     <li>"serif"</li>
+     *     <li>"monospaced"</li>
+     * </ul>
+     * The physical fonts that are available are the ones that have previously
+     * been loaded with {@link Gui#loadFont(String)}, plus a number of
+     * platform-dependent system fonts. The font family name is
+     * case-insensitive. The default is "sansserif".
+     */
+    void setFontFamily(String fontFamily);
+
+    /**
+     * Returns the name of the current font family.
+     */
+    String getFontFamily();
+
+    /**
+     * Sets the font size for subsequent
+     * {@link #drawString(String, double, double)} operations, in points. The
+     * default font size is 11 points.
+     */
+    void setFontSize(int fontSize);
+
+    /**
+     * Returns the current font size, in points.
+     */
+    int getFontSize();
+
+    /**
+     * If <code>bold</code> is <code>true</code>, subsequent
+     * {@link #drawString(String, double, double)} operations will use a bold
+     * font. The default is <code>false</code>.
+     */
+    void setBold(boolean bold);
+
+    /**
+     * Returns a boolean value indicating whether a bold font is used to
+     * {@linkplain #drawString(String, double, double) draw strings}.
+     */
+    boolean isBold();
+
+    /**
+     * If <code>italic</code> is <code>true</code>, subsequent
+     * {@link #drawString(String, double, double)} operations will use an italic
+     * font. The default is <code>false</code>.
+     */
+    void setItalic(boolean italic);
+
+    /**
+     * Returns a boolean value indicating whether an italic font is used to
+     * {@linkplain #drawString(String, double, double) draw strings}.
+     */
+    boolean isItalic();
+
+    /**
+     * Measures the width that the given text would have if it was
+     * {@linkplain #drawString(String, double, double) drawn} with the current
+     * {@linkplain #getFontFamily() font family},
+     * {@linkplain #getFontSize() font size}, and style ({@link #isBold()},
+     * {@link #isItalic()}). If the text contains multiple lines, the width of
+     * the widest line is returned.
+     */
+    default double stringWidth(String string) {
+        return stringWidth(string, getFontFamily(), getFontSize(), isBold(), isItalic());
+    }
+
+    /**
+     * Measures the width that the given text would have if it was
+     * {@linkplain #drawString(String, double, double) drawn} with the given
+     * font family, font size, and style. If the text contains multiple lines,
+     * the width of the widest line is returned.
+     */
+    double stringWidth(String string, String fontFamily, int fontSize,
+                       boolean bold, boolean italic);
+
+    /**
+     * Sets the alignment for subsequent
+     * {@link #drawString(String, double, double)} operations. A negative value
+     * means left aligned, zero means centered, and a positive value means right
+     * aligned. The default alignment is left.
+     */
+    void setTextAlign(int textAlign);
+
+    /**
+     * Subsequent {@link #drawString(String, double, double)} operations will
+     * draw the text left aligned.
+     */
+    default void setTextAlignLeft() {
+        setTextAlign(-1);
+    }
+
+    /**
+     * Subsequent {@link #drawString(String, double, double)} operations will
+     * draw the text centered (on the x Axis).
+     */
+    default void setTextAlignCenter() {
+        setTextAlign(0);
+    }
+
+    /**
+     * Subsequent {@link #drawString(String, double, double)} operations will
+     * draw the text right aligned.
+     */
+    default void setTextAlignRight() {
+        setTextAlign(1);
+    }
+
+    /**
+     * Returns the current text alignment, as an int. Left aligned is
+     * represented as -1, centered as 0, and right aligned as +1.
+     */
+    int getTextAlign();
+
+    /**
+     * Sets the line spacing for subsequent
+     * {@link #drawString(String, double, double)} operations with multiple
+     * lines of text. The line spacing is specified as a multiplier of the font
+     * size; for example, 1.0 (the default value) means single spacing, 2.0
+     * means double spacing, etc.
+     */
+    void setLineSpacing(double lineSpacing);
+
+    /**
+     * Returns the current line spacing multiplier.
+     */
+    double getLineSpacing();
+
+    /**
+     * Sets the alpha value for subsequent drawing operations. The alpha value
+     * is a double in the 0&ndash;1 range, where 0 means fully transparent and 1
+     * means fully opaque. The default alpha value is 1.
+     */
+    void setAlpha(double alpha);
+
+    /**
+     * Returns the current alpha value.
+     */
+    double getAlpha();
+
+    /**
+     * If <code>nearestNeighborInterpolation</code> is <code>true</code>,
+     * subsequent image drawing operations will use nearest neighbor
+     * interpolation; otherwise, a smoother interpolation method will be used
+     * (the default).
+     */
+    void setNearestNeighborInterpolation(boolean nearestNeighborInterpolation);
+
+    /**
+     * Returns a boolean value indicating whether nearest neighbor interpolation
+     * is used for image drawing operations.
+     */
+    boolean isNearestNeighborInterpolation();
+
+    /**
+     * If <code>antialiasing</code> is <code>true</code>, subsequent drawing
+     * operations will smooth the edges of shapes (the default), unless the
+     * {@linkplain Gui#setRenderQuality(String) rendering quality} is set to
+     * <code>"speed"</code>; otherwise, the edges will be painted with hard
+     * pixel steps, which is faster and may be preferable for axis-aligned
+     * shapes like the pixels of a pixel-art image.
+     */
+    void setAntialiasing(boolean antialiasing);
+
+    /**
+     * Returns a boolean value indicating whether antialiasing is used for
+     * drawing operations.
+     */
+    boolean isAntialiasing();
+
+    /**
+     * Saves all current settings (color, font size, etc.) on a stack, from
+     * where they can be restored using {@link #popSettings()}. This is useful
+     * for code that changes the settings temporarily, for example, to draw a
+     * part of a larger scene:
+     * <pre>
+     * gui.pushSettings();
+     * gui.setColor(255, 0, 0);
+     * gui.setStrokeWidth(3);
+     * ...
+     * gui.popSettings(); // previous color and stroke width are restored
+     * </pre>
+     */
+    void pushSettings();
+
+    /**
+     * Restores the settings that were saved by the last call to
+     * {@link #pushSettings()} and removes them from the stack.
+     *
+     * @throws IllegalStateException if there are no saved settings.
+     */
+    void popSettings();
+
+    /**
+     * Resets all settings (color, font size, etc.) to their default values.
+     */
+    default void resetSettings() {
+        setColor(0, 0, 0);
+        setStrokeWidth(1);
+        setRoundStroke(false);
+        setFontSize(11);
+        setBold(false);
+        setTextAlignLeft();
+        setLineSpacing(1);
+        setAlpha(1);
+        setNearestNeighborInterpolation(false);
+        setAntialiasing(true);
+    }
+
+    /**
+     * Translates the coordinate system of subsequent drawing operations by
+     * (<code>dx</code>, <code>dy</code>). Like all transformations, this
+     * combines with the current transformation: for example, after
+     * <code>scale(2, 2)</code>, <code>translate(10, 0)</code> moves subsequent
+     * drawings by 20 pixels.
+     * <p>
+     * Transformations affect all drawing operations, including text and
+     * images, as well as {@link Gui#getImageShape(String, double, double)}
+     * and related methods. Stroke widths are transformed as well. Unlike the
+     * other settings, the transformation is not affected by
+     * {@link #resetSettings()} or {@link #pushSettings()}; use
+     * {@link #resetTransform()} and {@link #pushTransform()} instead.
+     * {@linkplain Drawable Drawable components} are drawn without any
+     * transformation, like their interactive areas.
+     */
+    void translate(double dx, double dy);
+
+    /**
+     * Rotates the coordinate system of subsequent drawing operations by the
+     * given <code>angle</code>, in radians, around the origin. Like for
+     * {@link #drawImage(String, double, double, double, double) images},
+     * positive angles rotate clockwise on the screen.
+     *
+     * @see #translate(double, double)
+     */
+    void rotate(double angle);
+
+    /**
+     * Rotates the coordinate system of subsequent drawing operations by the
+     * given <code>angle</code>, in radians, around the point
+     * (<code>x</code>, <code>y</code>).
+     *
+     * @see #translate(double, double)
+     */
+    default void rotate(double angle, double x, double y) {
+        translate(x, y);
+        rotate(angle);
+        translate(-x, -y);
+    }
+
+    /**
+     * Scales the coordinate system of subsequent drawing operations by the
+     * given factors, relative to the origin.
+     *
+     * @see #translate(double, double)
+     */
+    void scale(double sx, double sy);
+
+    default void scale(double s) {
+        scale(s, s);
+    }
+
+    /**
+     * Saves the current transformation on a stack, from where it can be
+     * restored using {@link #popTransform()}. This is useful for drawing a
+     * part of a scene in its own coordinate system:
+     * <pre>
+     * gui.pushTransform();
+     * gui.rotate(angle, centerX, centerY);
+     * ...
+     * gui.popTransform(); // previous transformation is restored
+     * </pre>
+     */
+    void pushTransform();
+
+    /**
+     * Restores the transformation that was saved by the last call to
+     * {@link #pushTransform()} and removes it from the stack.
+     *
+     * @throws IllegalStateException if there is no saved transformation.
+     */
+    void popTransform();
+
+    /**
+     * Resets the transformation, so subsequent drawing operations use the
+     * coordinates of the GUI again.
+     */
+    void resetTransform();
+
+    /**
+     * Draws the outline of a rectangle with the upper-left corner at
+     * (<code>x</code>, <code>y</code>) and the given <code>width</code> and
+     * <code>height</code>. The current {@linkplain #getColor() color},
+     * {@linkplain #getStrokeWidth() stroke width}, and
+     * {@linkplain #isRoundStroke()  stroke roundness} are used.
+     */
+    void drawRect(double x, double y, double width, double height);
+
+    /**
+     * Fills a rectangle that has the upper-left corner at (<code>x</code>,
+     * <code>y</code>) and the given <code>width</code> and <code>height</code>
+     * with the current {@linkplain #getColor() color}.
+     */
+    void fillRect(double x, double y, double width, double height);
+
+    /**
+     * Draws the outline of an oval with a rectangular bounding box that has the
+     * upper-left corner at (<code>x</code>, <code>y</code>) and the given
+     * <code>width</code> and <code>height</code>. The current
+     * {@linkplain #getColor() color} and
+     * {@linkplain #getStrokeWidth() stroke width} are used.
+     */
+    void drawOval(double x, double y, double width, double height);
+
+    /**
+     * Fills an oval with the current {@linkplain #getColor() color}. The oval
+     * has a rectangular bounding box with the upper-left corner at
+     * (<code>x</code>,
+     * <code>y</code>) and the given <code>width</code> and <code>height</code>
+     */
+    void fillOval(double x, double y, double width, double height);
+
+    /**
+     * Draws the outline of a circle with the center at (<code>x</code>,
+     * <code>y</code>) and the given <code>radius</code>. The current
+     * {@linkplain #getColor() color} and
+     * {@linkplain #getStrokeWidth() stroke width} are used.
+     */
+    default void drawCircle(double centerX, double centerY, double radius) {
+        drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
+    }
+
+    /**
+     * Fills a circle that has the center at (<code>x</code>, <code>y</code>)
+     * and the given <code>radius</code> with the current
+     * {@linkplain #getColor() color}.
+     */
+    default void fillCircle(double centerX, double centerY, double radius) {
+        fillOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
+    }
+
+    /**
+     * Draws a line from (<code>x1</code>, <code>y1</code>) to
+     * (<code>x2</code>,
+     * <code>y2</code>). The current {@linkplain #getColor() color},
+     * {@linkplain #getStrokeWidth() stroke width}, and
+     * {@linkplain #isRoundStroke()  stroke roundness} are used.
+     */
+    void drawLine(double x1, double y1, double x2, double y2);
+
+    /**
+     * Draws a path defined by the coordinates in the given array. The odd
+     * indices correspond to the x coordinates, the even indices to the y
+     * coordinates of the points that constitute the path. For example, if the
+     * array <code>{1.0, 2.0, 3.0, 4.0, 5.0, 6.0}</code> is given, the path goes
+     * from (1.0, 2.0) to (3.0, 4.0) to (5.0, 6.0).
+     * <p>
+     * The current {@linkplain #getColor() color},
+     * {@linkplain #getStrokeWidth() stroke width}, and
+     * {@linkplain #isRoundStroke()  stroke roundness} are used.
+     */
+    void drawPath(double[] coordinates);
+
+    /**
+     * Draws a polygon with a single "ring" defined by the coordinates in the
+     * given array. The odd indices correspond to the x coordinates, the even
+     * indices to the y coordinates of the corners of the polygon. For example,
+     * if the array <code>{1.0, 2.0, 3.0, 4.0, 5.0, 6.0}</code> is given, the
+     * polygon is a triangle with the corners at the points (1.0, 2.0), (3.0,
+     * 4.0), and (5.0, 6.0).
+     * <p>
+     * This method is similar to {@link #drawPath(double[]) drawPath}, but
+     * always draws a closed path.
+     * <p>
+     * The current {@linkplain #getColor() color},
+     * {@linkplain #getStrokeWidth() stroke width}, and
+     * {@linkplain #isRoundStroke()  stroke roundness} are used.
+     */
+    void drawPolygon(double[] coordinates);
+
+    /**
+     * Fills a polygon with a single "ring" defined by the coordinates in the
+     * given array, with the current {@linkplain #getColor() color}. The odd
+     * indices correspond to the x coordinates, the even indices to the y
+     * coordinates of the corners of the polygon. For example, if the array
+     * <code>{1.0, 2.0, 3.0, 4.0, 5.0, 6.0}</code> is given, the polygon is a
+     * triangle with the corners at the points (1.0, 2.0), (3.0, 4.0), and
+     * (5.0,
+     * 6.0).
+     */
+    void fillPolygon(double[] coordinates);
+
+    /**
+     * Draws a polygon with multiple "rings" defined by the coordinates in the
+     * given 2D array. Each row in the array corresponds to a ring; the odd
+     * indices in a row correspond to the x coordinates, the even indices to the
+     * y coordinates of the corners of the rings. For example, if the array
+     * <code>{{0.0, 0.0, 5.0, 0.0, 2.5, 5.0}, {1.0, 1.0, 4.0, 1.0, 2.5,
+     * 4.0}}</code> is given, the polygon has a triangular exterior ring and a
+     * smaller triangular hole.
+     * <p>
+     * The current {@linkplain #getColor() color},
+     * {@linkplain #getStrokeWidth() stroke width}, and
+     * {@linkplain #isRoundStroke()  stroke roundness} are used.
+     */
+    void drawMultiPolygon(double[][] rings);
+
+    /**
+     * Fills a polygon with multiple "rings" defined by the coordinates in the
+     * given 2D array, with the current {@linkplain #getColor() color}. Each row
+     * in the array corresponds to a ring; the odd indices in a row correspond
+     * to the x coordinates, the even indices to the y coordinates of the
+     * corners of the rings. For example, if the array
+     * <code>{{0.0, 0.0, 5.0, 0.0, 2.5, 5.0}, {1.0, 1.0, 4.0, 1.0, 2.5,
+     * 4.0}}</code> is given, the polygon has a triangular exterior ring and a
+     * smaller triangular hole.
+     * <p>
+     * This method also allows to fill polygons consisting of multiple
+     * non-overlapping parts, but as long as these contain no holes, multiple
+     * {@link #fillPolygon(double[])} calls could just as well be used.
+     */
+    void fillMultiPolygon(double[][] rings);
+
+    /**
+     * Draws the given string with the current {@linkplain #getColor() color},
+     * {@linkplain #getFontSize() font size}, {@linkplain #isBold() boldness},
+     * and {@linkplain #getTextAlign() alignment}. The baseline is located at
+     * the given <code>y</code> coordinate.
+     */
+    void drawString(String string, double x, double y);
+
+    /**
+     * Draws the image found at the given <code>path</code> with the upper-left
+     * corner at position (<code>x</code>, <code>y</code>).
+     * <p>
+     * First, <code>path</code> is interpreted as an absolute resource name and
+     * an attempt is made to load the image from the classpath. If such a
+     * resource does not exist, <code>path</code> is interpreted as a file path
+     * instead and the image is loaded from the file system.
+     */
+    default void drawImage(String path, double x, double y) {
+        drawImage(path, x, y, 1);
+    }
+
+    /**
+     * Draws the image found at the given <code>path</code> with the center at
+     * position (<code>x</code>, <code>y</code>).
+     *
+     * @see #drawImage(String, double, double)
+     */
+    default void drawImageCentered(String path, double x, double y) {
+        drawImageCentered(path, x, y, 1);
+    }
+
+    /**
+     * Draws the image found at the given <code>path</code> with the upper-left
+     * corner at position (<code>x</code>, <code>y</code>) and scales it by the
+     * given <code>scale</code>. For example, a scale of 2.0 doubles the size of
+     * the image.
+     *
+     * @see #drawImage(String, double, double)
+     */
+    default void drawImage(String path, double x, double y, double scale) {
+        drawImage(path, x, y, scale, 0);
+    }
+
+    /**
+     * Draws the image found at the given <code>path</code> with the center at
+     * position (<code>x</code>, <code>y</code>) and scales it by the given
+     * <code>scale</code>. For example, a scale of 2.0 doubles the size of the
+     * image.
+     *
+     * @see #drawImage(String, double, double)
+     */
+    default void drawImageCentered(String path, double x, double y, double scale) {
+        drawImageCentered(path, x, y, scale, 0);
+    }
+
+    void drawImage(String path, double x, double y, double scale, double angle);
+
+    /**
+     * Draws the image found at the given <code>path</code> with the center at
+     * position (<code>x</code>, <code>y</code>), scales it by the given
+     * <code>scale</code> and rotates it by the given <code>angle</code>, in
+     * radians (0&ndash;2&times;{@linkplain Math#PI &pi;}).
+     *
+     * @see #drawImage(String, double, double)
+     */
+    void drawImageCentered(String path, double x, double y, double scale, double angle);
+}
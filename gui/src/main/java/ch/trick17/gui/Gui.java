@@ -1,18 +1,26 @@
 package ch.trick17.gui;
 
+import ch.trick17.gui.component.Clickable;
 import ch.trick17.gui.component.Component;
 import ch.trick17.gui.component.Drawable;
+import ch.trick17.gui.component.EventListener;
 import ch.trick17.gui.component.Hoverable;
+import ch.trick17.gui.component.ImageShape;
 import ch.trick17.gui.component.Interactive;
-import ch.trick17.gui.impl.swing.Window;
+import ch.trick17.gui.component.Shape;
+import ch.trick17.gui.impl.Keys;
+import ch.trick17.gui.spi.Backend;
 
+import java.awt.HeadlessException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
  * An interface for creating simple GUIs (graphical user interfaces). By
  * default, each GUI is displayed as a separate window. The programmer can
- * display content in the GUI by drawing on a canvas using
+ * display content in the GUI by drawing on a {@linkplain Canvas canvas} using
  * <code>draw...()</code> and
  * <code>fill...()</code> methods. Note that the content of the canvas is not
  * displayed immediately, but only after a call to {@link #open()} or
@@ -50,14 +58,52 @@ import java.util.List;
  * origin in the upper-left corner of the GUI. The x-axis extends to the right
  * while the y-axis extends to the bottom of the GUI.
  */
-public interface Gui {
+public interface Gui extends Canvas {
 
     /**
      * Create a new GUI with the specified title, width, and height. The GUI is
      * displayed in a window.
+     * <p>
+     * If there is no display available, a {@link HeadlessException} is
+     * thrown. To run GUI programs on servers, e.g., for testing, select a
+     * different implementation, like <code>headless</code>, which paints into
+     * an in-memory image, using {@link #create(String, int, int, Map)} or the
+     * system property <code>ch.trick17.gui.backend</code>.
+     *
+     * @throws HeadlessException if no display is available
      */
     static Gui create(String title, int width, int height) {
-        return new Window(title, width, height);
+        return create(title, width, height, Map.of());
+    }
+
+    /**
+     * Create a new GUI with the specified title, width, and height, using the
+     * given options. The option <code>backend</code> selects the
+     * {@linkplain Backend backend} that implements the GUI, for example
+     * <code>swing</code> (a window, the default if a display is available) or
+     * <code>headless</code> (an in-memory image). All other options are
+     * backend-specific.
+     * <p>
+     * Default values for all options can also be given as system properties
+     * with the prefix <code>ch.trick17.gui.</code>, e.g.,
+     * <code>-Dch.trick17.gui.backend=headless</code>. This allows choosing a
+     * backend for each environment without changing the code.
+     *
+     * @throws IllegalArgumentException if the selected backend does not exist
+     *                                  or is not available
+     * @throws HeadlessException        if no backend is selected and no
+     *                                  display is available
+     */
+    static Gui create(String title, int width, int height, Map<String, String> options) {
+        var prefix = "ch.trick17.gui.";
+        var allOptions = new HashMap<String, String>();
+        for (var name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                allOptions.put(name.substring(prefix.length()), System.getProperty(name));
+            }
+        }
+        allOptions.putAll(options);
+        return Backend.select(allOptions.get("backend")).create(title, width, height, allOptions);
     }
 
     /**
@@ -118,6 +164,38 @@ public interface Gui {
      */
     boolean isFullScreen();
 
+    /**
+     * Sets the rendering quality, which trades off the quality of the
+     * displayed shapes and text against the time it takes to paint them. The
+     * following values are supported:
+     * <ul>
+     *     <li><code>"quality"</code>: anti-aliased shapes with precise stroke
+     *     geometry (the default);</li>
+     *     <li><code>"balanced"</code>: anti-aliased shapes, but with strokes
+     *     adjusted to the pixel grid and default rendering algorithms;</li>
+     *     <li><code>"speed"</code>: no anti-aliasing and the fastest
+     *     rendering algorithms, which is useful for scenes made of many small
+     *     shapes, such as single pixels;</li>
+     *     <li><code>"auto"</code>: starts with the highest quality and
+     *     automatically switches to a lower quality if painting the frames
+     *     takes longer than the time between frames (as given to the
+     *     <code>refresh...()</code> methods), and back to a higher quality when
+     *     painting is fast enough again.</li>
+     * </ul>
+     * Unlike the drawing settings (color, font size, etc.), the rendering
+     * quality applies to whole frames, starting with the next refresh.
+     *
+     * @throws IllegalArgumentException if the quality is not one of the
+     *                                  values above
+     */
+    void setRenderQuality(String quality);
+
+    /**
+     * Returns the current rendering quality, as set by
+     * {@link #setRenderQuality(String)}.
+     */
+    String getRenderQuality();
+
     /**
      * This method waits until the GUI is closed by the user (or if it was not
      * open in the first place). More precisely, this method returns as soon as
@@ -230,13 +308,48 @@ public interface Gui {
      * {@link #refresh()} methods is called, first the events for
      * {@link Interactive} components (e.g.
      * {@link Hoverable#onMouseEnter() onMouseEnter()}) are fired and then
-     * {@link Drawable} components are drawn.
+     * {@link Drawable} components are drawn. The component is added with a
+     * z-order of 0, see {@link #addComponent(Component, int)}.
      *
      * @throws IllegalArgumentException if <code>component</code> is
      *                                  <code>null</code> or already added.
      * @see #removeComponent(Component)
      */
-    void addComponent(Component component);
+    default void addComponent(Component component) {
+        addComponent(component, 0);
+    }
+
+    /**
+     * Adds <code>component</code> to this GUI with the given z-order.
+     * Components with a higher z-order are in front of those with a lower
+     * one: they are drawn later (on top) and receive clicks first (see
+     * {@link Clickable}). Among components with the same z-order, the ones
+     * added later are in front.
+     *
+     * @throws IllegalArgumentException if <code>component</code> is
+     *                                  <code>null</code> or already added.
+     * @see #addComponent(Component)
+     */
+    void addComponent(Component component, int zOrder);
+
+    /**
+     * Changes the z-order of the given component, which is then in front of
+     * all other components with the same z-order.
+     *
+     * @throws IllegalArgumentException if <code>component</code> was not
+     *                                  previously added.
+     * @see #addComponent(Component, int)
+     */
+    void setZOrder(Component component, int zOrder);
+
+    /**
+     * Returns the z-order of the given component.
+     *
+     * @throws IllegalArgumentException if <code>component</code> was not
+     *                                  previously added.
+     * @see #addComponent(Component, int)
+     */
+    int getZOrder(Component component);
 
     default void addComponents(Component... components) {
         for (var c : components) {
@@ -259,6 +372,28 @@ public interface Gui {
         }
     }
 
+    /**
+     * Gives the focus to the given listener, or removes the focus from the
+     * currently focused listener if <code>listener</code> is
+     * <code>null</code>. Listeners that {@linkplain EventListener#FOCUSABLE
+     * are focusable} only receive key events while they have the focus. The
+     * previously focused listener is notified using
+     * {@link EventListener#onFocusLoss()}, the new one using
+     * {@link EventListener#onFocusGain()}.
+     *
+     * @throws IllegalArgumentException if <code>listener</code> was not
+     *                                  previously added.
+     */
+    void setFocus(EventListener listener);
+
+    /**
+     * Returns the listener that currently has the focus, or
+     * <code>null</code> if there is none.
+     *
+     * @see #setFocus(EventListener)
+     */
+    EventListener getFocus();
+
     /**
      * Loads a font from the given <code>path</code>. Afterward, the font can be
      * used by setting the corresponding font family
@@ -272,130 +407,6 @@ public interface Gui {
      */
     void loadFont(String path);
 
-    /*
-     * Paint settings
-     */
-
-    /**
-     * Sets the color for the subsequent drawing operations. The three
-     * parameters represent the red, green, and blue channel and are expected to
-     * be in the 0&ndash;255 range. Values outside this range will be clamped.
-     * The default color is black (0, 0, 0). For colors with transparency, use
-     * {@link #setColor(Color)}.
-     */
-    default void setColor(int red, int green, int blue) {
-        setColor(new Color(red, green, blue));
-    }
-
-    /**
-     * Sets the color for the subsequent drawing operations, using a
-     * {@link Color} object. The default color is black (0, 0, 0).
-     */
-    void setColor(Color color);
-
-    /**
-     * Returns the current drawing color.
-     */
-    Color getColor();
-
-    /**
-     * Sets the stroke width for subsequent <code>draw...()</code> operations,
-     * in pixels. The default stroke width is 1 pixel.
-     */
-    void setStrokeWidth(double strokeWidth);
-
-    /**
-     * Returns the current stroke width (in pixels).
-     */
-    double getStrokeWidth();
-
-    /**
-     * If <code>roundStroke</code> is <code>true</code>, subsequent
-     * <code>draw...()</code> operations will use round stroke caps and joins
-     * (instead of flat caps and miter joins).
-     */
-    void setRoundStroke(boolean roundStroke);
-
-    /**
-     * Returns a boolean value indicating whether round stroke caps and joins
-     * are used to draw shapes (instead of flat caps and miter joins). The
-     * default is <code>false</code>.
-     */
-    boolean isRoundStroke();
-
-    /**
-     * Sets the font family to be used for subsequent
-     * {@link #drawString(String, double, double)} operations. This can be the
-     * family name of a physical font, like "Arial" or one of the following
-     * "logical" fonts, for which a suitable physical font is chosen
-     * automatically:
-     * <ul>
-     *     <li>"sansserif"</li>
-     *     <li>"serif"</li>
-     *     <li>"monospaced"</li>
-     * </ul>
-     * The physical fonts that are available are the ones that have previously
-     * been loaded with {@link #loadFont(String)}, plus a number of
-     * platform-dependent system fonts. The font family name is
-     * case-insensitive. The default is "sansserif".
-     */
-    void setFontFamily(String fontFamily);
-
-    /**
-     * Returns the name of the current font family.
-     */
-    String getFontFamily();
-
-    /**
-     * Sets the font size for subsequent
-     * {@link #drawString(String, double, double)} operations, in points. The
-     * default font size is 11 points.
-     */
-    void setFontSize(int fontSize);
-
-    /**
-     * Returns the current font size, in points.
-     */
-    int getFontSize();
-
-    /**
-     * If <code>bold</code> is <code>true</code>, subsequent
-     * {@link #drawString(String, double, double)} operations will use a bold
-     * font. The default is <code>false</code>.
-     */
-    void setBold(boolean bold);
-
-    /**
-     * Returns a boolean value indicating whether a bold font is used to
-     * {@linkplain #drawString(String, double, double) draw strings}.
-     */
-    boolean isBold();
-
-    /**
-     * If <code>italic</code> is <code>true</code>, subsequent
-     * {@link #drawString(String, double, double)} operations will use an italic
-     * font. The default is <code>false</code>.
-     */
-    void setItalic(boolean italic);
-
-    /**
-     * Returns a boolean value indicating whether an italic font is used to
-     * {@linkplain #drawString(String, double, double) draw strings}.
-     */
-    boolean isItalic();
-
-    /**
-     * Measures the width that the given text would have if it was
-     * {@linkplain #drawString(String, double, double) drawn} with the current
-     * {@linkplain #getFontFamily() font family},
-     * {@linkplain #getFontSize() font size}, and style ({@link #isBold()},
-     * {@link #isItalic()}). If the text contains multiple lines, the width of
-     * the widest line is returned.
-     */
-    default double stringWidth(String string) {
-        return stringWidth(string, getFontFamily(), getFontSize(), isBold(), isItalic());
-    }
-
     /**
      * Measures the width that the given text would have if it was
      * {@linkplain #drawString(String, double, double) drawn} with the current
@@ -415,326 +426,134 @@ public interface Gui {
     }
 
     /**
-     * Measures the width that the given text would have if it was
-     * {@linkplain #drawString(String, double, double) drawn} with the given
-     * font family, font size, and style. If the text contains multiple lines,
-     * the width of the widest line is returned.
-     */
-    double stringWidth(String string, String fontFamily, int fontSize,
-                       boolean bold, boolean italic);
-
-    /**
-     * Sets the alignment for subsequent
-     * {@link #drawString(String, double, double)} operations. A negative value
-     * means left aligned, zero means centered, and a positive value means right
-     * aligned. The default alignment is left.
-     */
-    void setTextAlign(int textAlign);
-
-    /**
-     * Subsequent {@link #drawString(String, double, double)} operations will
-     * draw the text left aligned.
-     */
-    default void setTextAlignLeft() {
-        setTextAlign(-1);
-    }
-
-    /**
-     * Subsequent {@link #drawString(String, double, double)} operations will
-     * draw the text centered (on the x Axis).
-     */
-    default void setTextAlignCenter() {
-        setTextAlign(0);
-    }
-
-    /**
-     * Subsequent {@link #drawString(String, double, double)} operations will
-     * draw the text right aligned.
+     * Returns a {@link Shape} that contains the opaque pixels of the image
+     * found at the given <code>path</code>, as it would be drawn by
+     * {@link #drawImage(String, double, double)}. The shape can be used as the
+     * {@linkplain Interactive#getInteractiveArea(Gui) interactive area} of a
+     * component, so that it only reacts to clicks on the visible parts of the
+     * image. The opaque pixels are only determined once per image.
+     *
+     * @see ImageShape
      */
-    default void setTextAlignRight() {
-        setTextAlign(1);
+    default Shape getImageShape(String path, double x, double y) {
+        return getImageShape(path, x, y, 1, 0);
     }
 
     /**
-     * Returns the current text alignment, as an int. Left aligned is
-     * represented as -1, centered as 0, and right aligned as +1.
-     */
-    int getTextAlign();
-
-    /**
-     * Sets the line spacing for subsequent
-     * {@link #drawString(String, double, double)} operations with multiple
-     * lines of text. The line spacing is specified as a multiplier of the font
-     * size; for example, 1.0 (the default value) means single spacing, 2.0
-     * means double spacing, etc.
-     */
-    void setLineSpacing(double lineSpacing);
-
-    /**
-     * Returns the current line spacing multiplier.
-     */
-    double getLineSpacing();
-
-    /**
-     * Sets the alpha value for subsequent drawing operations. The alpha value
-     * is a double in the 0&ndash;1 range, where 0 means fully transparent and 1
-     * means fully opaque. The default alpha value is 1.
-     */
-    void setAlpha(double alpha);
-
-    /**
-     * Returns the current alpha value.
-     */
-    double getAlpha();
-
-    /**
-     * If <code>nearestNeighborInterpolation</code> is <code>true</code>,
-     * subsequent image drawing operations will use nearest neighbor
-     * interpolation; otherwise, a smoother interpolation method will be used
-     * (the default).
-     */
-    void setNearestNeighborInterpolation(boolean nearestNeighborInterpolation);
-
-    /**
-     * Returns a boolean value indicating whether nearest neighbor interpolation
-     * is used for image drawing operations.
-     */
-    boolean isNearestNeighborInterpolation();
-
-    /**
-     * Resets all settings (color, font size, etc.) to their default values.
+     * Returns a {@link Shape} that contains the opaque pixels of the image
+     * found at the given <code>path</code>, as it would be drawn by
+     * {@link #drawImageCentered(String, double, double)}.
+     *
+     * @see #getImageShape(String, double, double)
      */
-    default void resetSettings() {
-        setColor(0, 0, 0);
-        setStrokeWidth(1);
-        setRoundStroke(false);
-        setFontSize(11);
-        setBold(false);
-        setTextAlignLeft();
-        setLineSpacing(1);
-        setAlpha(1);
-        setNearestNeighborInterpolation(false);
+    default Shape getImageShapeCentered(String path, double x, double y) {
+        return getImageShapeCentered(path, x, y, 1, 0);
     }
 
     /**
-     * Draws the outline of a rectangle with the upper-left corner at
-     * (<code>x</code>, <code>y</code>) and the given <code>width</code> and
-     * <code>height</code>. The current {@linkplain #getColor() color},
-     * {@linkplain #getStrokeWidth() stroke width}, and
-     * {@linkplain #isRoundStroke()  stroke roundness} are used.
-     */
-    void drawRect(double x, double y, double width, double height);
-
-    /**
-     * Fills a rectangle that has the upper-left corner at (<code>x</code>,
-     * <code>y</code>) and the given <code>width</code> and <code>height</code>
-     * with the current {@linkplain #getColor() color}.
-     */
-    void fillRect(double x, double y, double width, double height);
-
-    /**
-     * Draws the outline of an oval with a rectangular bounding box that has the
-     * upper-left corner at (<code>x</code>, <code>y</code>) and the given
-     * <code>width</code> and <code>height</code>. The current
-     * {@linkplain #getColor() color} and
-     * {@linkplain #getStrokeWidth() stroke width} are used.
-     */
-    void drawOval(double x, double y, double width, double height);
-
-    /**
-     * Fills an oval with the current {@linkplain #getColor() color}. The oval
-     * has a rectangular bounding box with the upper-left corner at
-     * (<code>x</code>,
-     * <code>y</code>) and the given <code>width</code> and <code>height</code>
-     */
-    void fillOval(double x, double y, double width, double height);
-
-    /**
-     * Draws the outline of a circle with the center at (<code>x</code>,
-     * <code>y</code>) and the given <code>radius</code>. The current
-     * {@linkplain #getColor() color} and
-     * {@linkplain #getStrokeWidth() stroke width} are used.
+     * Returns a {@link Shape} that contains the opaque pixels of the image
+     * found at the given <code>path</code>, as it would be drawn by
+     * {@link #drawImage(String, double, double, double, double)}.
+     *
+     * @see #getImageShape(String, double, double)
      */
-    default void drawCircle(double centerX, double centerY, double radius) {
-        drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
-    }
+    Shape getImageShape(String path, double x, double y, double scale, double angle);
 
     /**
-     * Fills a circle that has the center at (<code>x</code>, <code>y</code>)
-     * and the given <code>radius</code> with the current
-     * {@linkplain #getColor() color}.
+     * Returns a {@link Shape} that contains the opaque pixels of the image
+     * found at the given <code>path</code>, as it would be drawn by
+     * {@link #drawImageCentered(String, double, double, double, double)}.
+     *
+     * @see #getImageShape(String, double, double)
      */
-    default void fillCircle(double centerX, double centerY, double radius) {
-        fillOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
-    }
+    Shape getImageShapeCentered(String path, double x, double y, double scale, double angle);
 
     /**
-     * Draws a line from (<code>x1</code>, <code>y1</code>) to
-     * (<code>x2</code>,
-     * <code>y2</code>). The current {@linkplain #getColor() color},
-     * {@linkplain #getStrokeWidth() stroke width}, and
-     * {@linkplain #isRoundStroke()  stroke roundness} are used.
+     * Returns all keyboard and mouse events that happened between the last
+     * two refreshes, in the order in which they happened. Unlike
+     * {@link #getPressedKeys()}, {@link #wasKeyTyped(String)}, etc., which
+     * only describe the state at the time of the last refresh, these events
+     * also include keys that were pressed and released several times between
+     * two refreshes, as well as all intermediate mouse positions. The
+     * returned list is only valid until the next refresh.
      */
-    void drawLine(double x1, double y1, double x2, double y2);
+    List<InputEvent> getInputEvents();
 
     /**
-     * Draws a path defined by the coordinates in the given array. The odd
-     * indices correspond to the x coordinates, the even indices to the y
-     * coordinates of the points that constitute the path. For example, if the
-     * array <code>{1.0, 2.0, 3.0, 4.0, 5.0, 6.0}</code> is given, the path goes
-     * from (1.0, 2.0) to (3.0, 4.0) to (5.0, 6.0).
-     * <p>
-     * The current {@linkplain #getColor() color},
-     * {@linkplain #getStrokeWidth() stroke width}, and
-     * {@linkplain #isRoundStroke()  stroke roundness} are used.
+     * Returns all mouse positions that were reported between the last two
+     * refreshes, in order, including positions of mouse button events. While
+     * {@link #getMouseX()} and {@link #getMouseY()} only return the last of
+     * these positions, the trail allows, e.g., drawing programs to capture
+     * smooth strokes with a high-rate mouse. Note that the window system
+     * itself may already merge mouse movements if the GUI cannot keep up with
+     * processing them. The returned trail is only valid until the next
+     * refresh.
+     *
+     * @see #setMouseTrailCoalescing(double)
      */
-    void drawPath(double[] coordinates);
+    MouseTrail getMouseTrail();
 
     /**
-     * Draws a polygon with a single "ring" defined by the coordinates in the
-     * given array. The odd indices correspond to the x coordinates, the even
-     * indices to the y coordinates of the corners of the polygon. For example,
-     * if the array <code>{1.0, 2.0, 3.0, 4.0, 5.0, 6.0}</code> is given, the
-     * polygon is a triangle with the corners at the points (1.0, 2.0), (3.0,
-     * 4.0), and (5.0, 6.0).
-     * <p>
-     * This method is similar to {@link #drawPath(double[]) drawPath}, but
-     * always draws a closed path.
-     * <p>
-     * The current {@linkplain #getColor() color},
-     * {@linkplain #getStrokeWidth() stroke width}, and
-     * {@linkplain #isRoundStroke()  stroke roundness} are used.
+     * Sets the distance (in pixels) below which consecutive positions of the
+     * {@linkplain #getMouseTrail() mouse trail} are merged. With a larger
+     * distance, trails have fewer positions, which makes strokes cheaper to
+     * draw at the cost of some detail. The last position of each frame is
+     * always kept. By default, the distance is 0, i.e., only repeated
+     * positions are merged.
      */
-    void drawPolygon(double[] coordinates);
+    void setMouseTrailCoalescing(double distance);
 
     /**
-     * Fills a polygon with a single "ring" defined by the coordinates in the
-     * given array, with the current {@linkplain #getColor() color}. The odd
-     * indices correspond to the x coordinates, the even indices to the y
-     * coordinates of the corners of the polygon. For example, if the array
-     * <code>{1.0, 2.0, 3.0, 4.0, 5.0, 6.0}</code> is given, the polygon is a
-     * triangle with the corners at the points (1.0, 2.0), (3.0, 4.0), and
-     * (5.0,
-     * 6.0).
+     * Returns the distance below which positions of the mouse trail are
+     * merged.
      */
-    void fillPolygon(double[] coordinates);
+    double getMouseTrailCoalescing();
 
-    /**
-     * Draws a polygon with multiple "rings" defined by the coordinates in the
-     * given 2D array. Each row in the array corresponds to a ring; the odd
-     * indices in a row correspond to the x coordinates, the even indices to the
-     * y coordinates of the corners of the rings. For example, if the array
-     * <code>{{0.0, 0.0, 5.0, 0.0, 2.5, 5.0}, {1.0, 1.0, 4.0, 1.0, 2.5,
-     * 4.0}}</code> is given, the polygon has a triangular exterior ring and a
-     * smaller triangular hole.
-     * <p>
-     * The current {@linkplain #getColor() color},
-     * {@linkplain #getStrokeWidth() stroke width}, and
-     * {@linkplain #isRoundStroke()  stroke roundness} are used.
-     */
-    void drawMultiPolygon(double[][] rings);
+    List<String> getPressedKeys();
 
-    /**
-     * Fills a polygon with multiple "rings" defined by the coordinates in the
-     * given 2D array, with the current {@linkplain #getColor() color}. Each row
-     * in the array corresponds to a ring; the odd indices in a row correspond
-     * to the x coordinates, the even indices to the y coordinates of the
-     * corners of the rings. For example, if the array
-     * <code>{{0.0, 0.0, 5.0, 0.0, 2.5, 5.0}, {1.0, 1.0, 4.0, 1.0, 2.5,
-     * 4.0}}</code> is given, the polygon has a triangular exterior ring and a
-     * smaller triangular hole.
-     * <p>
-     * This method also allows to fill polygons consisting of multiple
-     * non-overlapping parts, but as long as these contain no holes, multiple
-     * {@link #fillPolygon(double[])} calls could just as well be used.
-     */
-    void fillMultiPolygon(double[][] rings);
+    List<String> getTypedKeys();
 
     /**
-     * Draws the given string with the current {@linkplain #getColor() color},
-     * {@linkplain #getFontSize() font size}, {@linkplain #isBold() boldness},
-     * and {@linkplain #getTextAlign() alignment}. The baseline is located at
-     * the given <code>y</code> coordinate.
+     * Returns whether the key specified by the given <code>keyText</code> is
+     * currently pressed. Use {@link #getPressedKeys()} to find out the names
+     * for your keys.
      */
-    void drawString(String string, double x, double y);
+    boolean isKeyPressed(String keyName);
 
     /**
-     * Draws the image found at the given <code>path</code> with the upper-left
-     * corner at position (<code>x</code>, <code>y</code>).
-     * <p>
-     * First, <code>path</code> is interpreted as an absolute resource name and
-     * an attempt is made to load the image from the classpath. If such a
-     * resource does not exist, <code>path</code> is interpreted as a file path
-     * instead and the image is loaded from the file system.
+     * Returns whether the key specified by the given <code>keyText</code> was
+     * just typed (released). Use {@link #getPressedKeys()} to find out the
+     * names for your keys.
      */
-    default void drawImage(String path, double x, double y) {
-        drawImage(path, x, y, 1);
-    }
+    boolean wasKeyTyped(String keyName);
 
     /**
-     * Draws the image found at the given <code>path</code> with the center at
-     * position (<code>x</code>, <code>y</code>).
+     * Returns whether the key with the given code is currently pressed. This
+     * is faster than {@link #isKeyPressed(String)}, which is useful if keys
+     * are queried many times per frame.
      *
-     * @see #drawImage(String, double, double)
+     * @see #keyCode(String)
      */
-    default void drawImageCentered(String path, double x, double y) {
-        drawImageCentered(path, x, y, 1);
-    }
+    boolean isKeyPressed(int keyCode);
 
     /**
-     * Draws the image found at the given <code>path</code> with the upper-left
-     * corner at position (<code>x</code>, <code>y</code>) and scales it by the
-     * given <code>scale</code>. For example, a scale of 2.0 doubles the size of
-     * the image.
+     * Returns whether the key with the given code was just typed (released).
      *
-     * @see #drawImage(String, double, double)
+     * @see #keyCode(String)
      */
-    default void drawImage(String path, double x, double y, double scale) {
-        drawImage(path, x, y, scale, 0);
-    }
+    boolean wasKeyTyped(int keyCode);
 
     /**
-     * Draws the image found at the given <code>path</code> with the center at
-     * position (<code>x</code>, <code>y</code>) and scales it by the given
-     * <code>scale</code>. For example, a scale of 2.0 doubles the size of the
-     * image.
-     *
-     * @see #drawImage(String, double, double)
+     * Returns the code of the key with the given name (ignoring case), or -1
+     * if there is no such key. Key codes are the values of the
+     * <code>VK_</code> constants in {@link java.awt.event.KeyEvent}; for
+     * example, <code>keyCode("left")</code> returns
+     * <code>KeyEvent.VK_LEFT</code>.
      */
-    default void drawImageCentered(String path, double x, double y, double scale) {
-        drawImageCentered(path, x, y, scale, 0);
+    static int keyCode(String keyName) {
+        return Keys.code(keyName);
     }
 
-    void drawImage(String path, double x, double y, double scale, double angle);
-
-    /**
-     * Draws the image found at the given <code>path</code> with the center at
-     * position (<code>x</code>, <code>y</code>), scales it by the given
-     * <code>scale</code> and rotates it by the given <code>angle</code>, in
-     * radians (0&ndash;2&times;{@linkplain Math#PI &pi;}).
-     *
-     * @see #drawImage(String, double, double)
-     */
-    void drawImageCentered(String path, double x, double y, double scale, double angle);
-
-    List<String> getPressedKeys();
-
-    List<String> getTypedKeys();
-
-    /**
-     * Returns whether the key specified by the given <code>keyText</code> is
-     * currently pressed. Use {@link #getPressedKeys()} to find out the names
-     * for your keys.
-     */
-    boolean isKeyPressed(String keyName);
-
-    /**
-     * Returns whether the key specified by the given <code>keyText</code> was
-     * just typed (released). Use {@link #getPressedKeys()} to find out the
-     * names for your keys.
-     */
-    boolean wasKeyTyped(String keyName);
-
     /**
      * Returns whether the left mouse button is currently pressed. Use
      * {@link #getMouseX()} and {@link #getMouseY()} to get the current mouse
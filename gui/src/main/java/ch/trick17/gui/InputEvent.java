@@ -0,0 +1,106 @@
+package ch.trick17.gui;
+
+import java.awt.event.KeyEvent;
+
+import static java.util.Locale.ROOT;
+
+/**
+ * A class to represent a single keyboard or mouse event, such as a key press
+ * or a mouse movement. Use {@link Gui#getInputEvents()} to get all events
+ * that happened between two refreshes, in the order in which they happened.
+ */
+public final class InputEvent {
+
+    /**
+     * The different kinds of events.
+     */
+    public enum Type {
+        KEY_PRESS, KEY_RELEASE, MOUSE_PRESS, MOUSE_RELEASE, MOUSE_MOVE
+    }
+
+    public final Type type;
+
+    /**
+     * The name of the key (in lower case) for key events, <code>null</code>
+     * for mouse events. See {@link Gui#getPressedKeys()}.
+     */
+    public final String keyName;
+
+    /**
+     * The code of the key for key events, -1 for mouse events. See
+     * {@link Gui#keyCode(String)}.
+     */
+    public final int keyCode;
+
+    /**
+     * The character typed by the key for key events, if any; otherwise
+     * {@link KeyEvent#CHAR_UNDEFINED}, as for mouse events.
+     */
+    public final char keyChar;
+
+    /**
+     * For mouse button events, <code>true</code> for the left and
+     * <code>false</code> for the right button.
+     */
+    public final boolean leftButton;
+
+    /**
+     * The mouse position for mouse events, 0 for key events.
+     */
+    public final int x, y;
+
+    /**
+     * The time of the event, in nanoseconds, as returned by
+     * {@link System#nanoTime()}.
+     */
+    public final long time;
+
+    private InputEvent(Type type, String keyName, int keyCode, char keyChar, boolean leftButton,
+                       int x, int y, long time) {
+        this.type = type;
+        this.keyName = keyName;
+        this.keyCode = keyCode;
+        this.keyChar = keyChar;
+        this.leftButton = leftButton;
+        this.x = x;
+        this.y = y;
+        this.time = time;
+    }
+
+    /**
+     * Creates a key press or release event.
+     */
+    public static InputEvent key(boolean press, String keyName, int keyCode, char keyChar, long time) {
+        return new InputEvent(press ? Type.KEY_PRESS : Type.KEY_RELEASE,
+                keyName.toLowerCase(ROOT), keyCode, keyChar, false, 0, 0, time);
+    }
+
+    /**
+     * Creates a mouse button press or release event.
+     */
+    public static InputEvent mouseButton(boolean press, boolean leftButton, int x, int y, long time) {
+        return new InputEvent(press ? Type.MOUSE_PRESS : Type.MOUSE_RELEASE,
+                null, -1, KeyEvent.CHAR_UNDEFINED, leftButton, x, y, time);
+    }
+
+    /**
+     * Creates a mouse movement event.
+     */
+    public static InputEvent mouseMove(int x, int y, long time) {
+        return new InputEvent(Type.MOUSE_MOVE, null, -1, KeyEvent.CHAR_UNDEFINED, false, x, y, time);
+    }
+
+    public boolean isKeyEvent() {
+        return type == Type.KEY_PRESS || type == Type.KEY_RELEASE;
+    }
+
+    public boolean isMouseEvent() {
+        return !isKeyEvent();
+    }
+
+    @Override
+    public String toString() {
+        return type + (isKeyEvent() ? " " + keyName : type == Type.MOUSE_MOVE ? "" :
+                leftButton ? " left" : " right") + " (" + x + ", " + y + ") @" + time;
+    }
+}
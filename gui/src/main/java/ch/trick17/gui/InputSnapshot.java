@@ -0,0 +1,115 @@
+package ch.trick17.gui;
+
+import ch.trick17.gui.component.Updatable;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An immutable copy of the input state of a {@link Gui} at the time of a
+ * refresh: the mouse position and buttons, the pressed and typed keys, and
+ * the input events. Unlike the GUI itself, a snapshot can safely be used by
+ * multiple threads at the same time, for example, by the
+ * {@link Updatable#update(InputSnapshot)} methods of components, which may
+ * run in parallel.
+ * <p>
+ * The methods have the same meaning as the corresponding methods of
+ * {@link Gui}.
+ */
+public final class InputSnapshot {
+
+    private final double width, height;
+    private final double mouseX, mouseY;
+    private final boolean leftPressed, rightPressed, leftClicked, rightClicked;
+    private final List<String> pressedKeys, typedKeys;
+    private final BitSet pressedCodes = new BitSet(), typedCodes = new BitSet();
+    private final List<InputEvent> events;
+
+    private InputSnapshot(Gui gui) {
+        width = gui.getWidth();
+        height = gui.getHeight();
+        mouseX = gui.getMouseX();
+        mouseY = gui.getMouseY();
+        leftPressed = gui.isLeftMouseButtonPressed();
+        rightPressed = gui.isRightMouseButtonPressed();
+        leftClicked = gui.wasLeftMouseButtonClicked();
+        rightClicked = gui.wasRightMouseButtonClicked();
+        pressedKeys = List.copyOf(gui.getPressedKeys());
+        typedKeys = List.copyOf(gui.getTypedKeys());
+        for (var key : pressedKeys) {
+            pressedCodes.set(Gui.keyCode(key));
+        }
+        for (var key : typedKeys) {
+            typedCodes.set(Gui.keyCode(key));
+        }
+        events = List.copyOf(gui.getInputEvents());
+    }
+
+    /**
+     * Creates a snapshot of the current input state of the given GUI. Must be
+     * called by the thread that refreshes the GUI.
+     */
+    public static InputSnapshot of(Gui gui) {
+        return new InputSnapshot(gui);
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public double getMouseX() {
+        return mouseX;
+    }
+
+    public double getMouseY() {
+        return mouseY;
+    }
+
+    public boolean isLeftMouseButtonPressed() {
+        return leftPressed;
+    }
+
+    public boolean isRightMouseButtonPressed() {
+        return rightPressed;
+    }
+
+    public boolean wasLeftMouseButtonClicked() {
+        return leftClicked;
+    }
+
+    public boolean wasRightMouseButtonClicked() {
+        return rightClicked;
+    }
+
+    public List<String> getPressedKeys() {
+        return pressedKeys;
+    }
+
+    public List<String> getTypedKeys() {
+        return typedKeys;
+    }
+
+    public boolean isKeyPressed(String keyName) {
+        return isKeyPressed(Gui.keyCode(keyName));
+    }
+
+    public boolean isKeyPressed(int keyCode) {
+        return keyCode >= 0 && pressedCodes.get(keyCode);
+    }
+
+    public boolean wasKeyTyped(String keyName) {
+        return wasKeyTyped(Gui.keyCode(keyName));
+    }
+
+    public boolean wasKeyTyped(int keyCode) {
+        return keyCode >= 0 && typedCodes.get(keyCode);
+    }
+
+    public List<InputEvent> getInputEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,49 @@
+package ch.trick17.gui;
+
+/**
+ * The positions of the mouse between two refreshes, in the order in which
+ * they were reported by the operating system, together with the time of each
+ * position. Use {@link Gui#getMouseTrail()} to get the trail of the last
+ * frame, e.g., to draw smooth strokes in a drawing program even if the mouse
+ * reports positions much more often than the GUI is refreshed.
+ * <p>
+ * A trail object is only valid until the next refresh of the GUI, as it may
+ * be reused for later frames.
+ */
+public interface MouseTrail {
+
+    /**
+     * Returns the number of positions in this trail.
+     */
+    int size();
+
+    /**
+     * Returns the x coordinate of the position with the given index.
+     */
+    int getX(int index);
+
+    /**
+     * Returns the y coordinate of the position with the given index.
+     */
+    int getY(int index);
+
+    /**
+     * Returns the time of the position with the given index, in nanoseconds,
+     * as returned by {@link System#nanoTime()}.
+     */
+    long getTime(int index);
+
+    /**
+     * Returns the positions of this trail as an array of coordinates in the
+     * format used by {@link Gui#drawPath(double[])}, i.e., x0, y0, x1, y1,
+     * etc.
+     */
+    default double[] toCoordinates() {
+        var coordinates = new double[2 * size()];
+        for (int i = 0; i < size(); i++) {
+            coordinates[2 * i] = getX(i);
+            coordinates[2 * i + 1] = getY(i);
+        }
+        return coordinates;
+    }
+}
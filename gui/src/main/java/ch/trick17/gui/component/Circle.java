@@ -0,0 +1,56 @@
+package ch.trick17.gui.component;
+
+import ch.trick17.gui.Gui;
+
+/**
+ * A circle that can be used as the
+ * {@linkplain Interactive#getInteractiveArea(Gui) interactive area} of a
+ * component.
+ */
+public class Circle implements Shape {
+
+    private final double centerX, centerY, radius;
+    private final Rectangle bounds;
+
+    /**
+     * Creates a circle with the given radius and the center at coordinate
+     * (centerX, centerY).
+     */
+    public Circle(double centerX, double centerY, double radius) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radius = radius;
+        bounds = new Rectangle(centerX - radius, centerY - radius, 2 * radius, 2 * radius);
+    }
+
+    public boolean contains(double px, double py) {
+        if (!bounds.contains(px, py)) {
+            return false;
+        }
+        var dx = px - centerX;
+        var dy = py - centerY;
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    @Override
+    public Circle translated(double dx, double dy) {
+        return new Circle(centerX + dx, centerY + dy, radius);
+    }
+
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+}
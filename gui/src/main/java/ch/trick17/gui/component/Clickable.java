@@ -8,8 +8,23 @@ import ch.trick17.gui.Gui;
  * {@link #onRightClick(double, double)} are called with the precise mouse
  * coordinates when a click occurs inside the area defined by
  * {@link #getInteractiveArea(Gui)}.
+ * <p>
+ * If the areas of multiple clickable components contain the mouse, only the
+ * component in front (the one with the highest
+ * {@linkplain Gui#addComponent(Component, int) z-order}) receives the click,
+ * unless it does not {@linkplain #consumesClicks() consume clicks}.
  */
 public interface Clickable extends Interactive {
     void onLeftClick(double x, double y);
     void onRightClick(double x, double y);
+
+    /**
+     * Returns whether clicks on this component are consumed, i.e., not
+     * delivered to the clickable components behind it. Returns
+     * <code>true</code> by default; components that should let clicks
+     * "through" (like transparent overlays) can override this method.
+     */
+    default boolean consumesClicks() {
+        return true;
+    }
 }
@@ -1,11 +1,52 @@
 package ch.trick17.gui.component;
 
+import ch.trick17.gui.Gui;
+
 /**
  * A {@link Component} that can react to any event that occurs in the GUI. If
  * you only want to react to local mouse events, consider implementing the
  * simpler {@link Clickable} or {@link Hoverable} instead.
+ * <p>
+ * By default, a listener receives all events. To avoid needless calls when
+ * there are many listeners, a listener can {@linkplain #getSubscribedEvents()
+ * subscribe} to only the events it is interested in. Listeners that only
+ * need keyboard input while they have the {@linkplain Gui#setFocus(EventListener)
+ * focus} (like text fields) can subscribe to {@link #FOCUSABLE}: then, key
+ * events are only delivered to the one focused listener.
  */
 public interface EventListener extends Component {
+
+    int KEY_PRESS = 1;
+    int KEY_RELEASE = 1 << 1;
+    int MOUSE_BUTTON_PRESS = 1 << 2;
+    int MOUSE_BUTTON_RELEASE = 1 << 3;
+    int MOUSE_MOVE = 1 << 4;
+    int ALL_EVENTS = KEY_PRESS | KEY_RELEASE | MOUSE_BUTTON_PRESS | MOUSE_BUTTON_RELEASE | MOUSE_MOVE;
+
+    /**
+     * Indicates that a listener can get the focus and only receives key
+     * events (of the subscribed kinds) while it has the focus. If the
+     * listener is also {@link Interactive}, it gets the focus when the user
+     * clicks on its interactive area, unless a component in front of it
+     * {@linkplain Clickable#consumesClicks() consumes} the click.
+     */
+    int FOCUSABLE = 1 << 5;
+
+    /**
+     * Returns the kinds of events this listener is interested in, as a
+     * combination of {@link #KEY_PRESS}, {@link #KEY_RELEASE},
+     * {@link #MOUSE_BUTTON_PRESS}, {@link #MOUSE_BUTTON_RELEASE},
+     * {@link #MOUSE_MOVE}, and {@link #FOCUSABLE}, for example,
+     * <code>KEY_RELEASE | FOCUSABLE</code>. The methods for the other events
+     * are not called. Returns {@link #ALL_EVENTS} by default.
+     * <p>
+     * This method is called when the listener is added to the GUI (or its
+     * z-order changes); later changes of the result have no effect.
+     */
+    default int getSubscribedEvents() {
+        return ALL_EVENTS;
+    }
+
     default void onKeyPress(String keyName, char keyChar) {}
     default void onKeyRelease(String keyName, char keyChar) {}
     default void onMouseButtonPress(double x, double y, boolean left) {}
@@ -27,4 +68,20 @@ public interface EventListener extends Component {
      *              method was called
      */
     default void onMouseMove(double x, double y, double prevX, double prevY) {}
+
+    /**
+     * Called when this listener gets the focus.
+     *
+     * @see Gui#setFocus(EventListener)
+     */
+    default void onFocusGain() {}
+
+    /**
+     * Called when this listener loses the focus, because another listener
+     * gets it, the user clicks somewhere else, or the listener is removed
+     * from the GUI.
+     *
+     * @see Gui#setFocus(EventListener)
+     */
+    default void onFocusLoss() {}
 }
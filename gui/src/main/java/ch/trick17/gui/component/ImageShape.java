@@ -0,0 +1,144 @@
+package ch.trick17.gui.component;
+
+import ch.trick17.gui.Gui;
+
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.PixelGrabber;
+
+import static ch.trick17.gui.component.TransformedShape.transformBounds;
+import static java.lang.Math.floor;
+
+/**
+ * A shape that contains the opaque pixels of an image, so that clicks on an
+ * irregular sprite only register where the sprite is actually visible. A
+ * pixel counts as opaque if its alpha value is at least
+ * {@value #ALPHA_THRESHOLD}. Use
+ * {@link Gui#getImageShape(String, double, double, double, double)} to get
+ * the shape of an image as it is drawn by
+ * {@link Gui#drawImage(String, double, double, double, double)}.
+ * <p>
+ * When the shape is created, the opaque pixels are stored in a bitmask, with
+ * one bit per pixel, so testing a point only requires looking up a single
+ * bit. Transforming an image shape does not copy this bitmask, so the shapes
+ * of many sprites that use the same image are cheap. The
+ * {@linkplain #getBounds() bounds} only include the opaque pixels.
+ */
+public final class ImageShape implements Shape {
+
+    public static final int ALPHA_THRESHOLD = 128;
+
+    private final int width, height;
+    private final int wordsPerRow;
+    private final long[] mask; // rows of bits, each starting at a new word
+    private final Rectangle opaqueBounds; // in image coordinates, or null
+
+    private final AffineTransform transform;
+    // inverse transformation, from GUI to image coordinates
+    private final double m00, m01, m02, m10, m11, m12;
+    private final Rectangle bounds;
+
+    private ImageShape(int width, int height, long[] mask, Rectangle opaqueBounds,
+                       AffineTransform transform) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) / 64;
+        this.mask = mask;
+        this.opaqueBounds = opaqueBounds;
+        this.transform = new AffineTransform(transform);
+        AffineTransform inverse;
+        try {
+            inverse = transform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            throw new IllegalArgumentException("transformation is not invertible: " + transform);
+        }
+        m00 = inverse.getScaleX();
+        m01 = inverse.getShearX();
+        m02 = inverse.getTranslateX();
+        m10 = inverse.getShearY();
+        m11 = inverse.getScaleY();
+        m12 = inverse.getTranslateY();
+        bounds = opaqueBounds == null
+                ? new Rectangle(0, 0, 0, 0)
+                : transformBounds(opaqueBounds, transform);
+    }
+
+    /**
+     * Creates the shape of the given image, with the upper-left corner at
+     * (0, 0) and one unit per pixel. For animated images, only the first
+     * frame is used.
+     */
+    public static ImageShape of(Image image) {
+        var grabber = new PixelGrabber(image, 0, 0, -1, -1, true);
+        try {
+            if (!grabber.grabPixels()) {
+                throw new Error("could not read pixels of image");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Error("could not read pixels of image", e);
+        }
+        var width = grabber.getWidth();
+        var height = grabber.getHeight();
+        var pixels = (int[]) grabber.getPixels();
+        var wordsPerRow = (width + 63) / 64;
+        var mask = new long[wordsPerRow * height];
+        int minX = width, minY = height, maxX = -1, maxY = -1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (pixels[y * width + x] >>> 24 >= ALPHA_THRESHOLD) {
+                    mask[y * wordsPerRow + x / 64] |= 1L << x;
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        var opaqueBounds = maxX < 0 ? null : new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        return new ImageShape(width, height, mask, opaqueBounds, new AffineTransform());
+    }
+
+    public boolean contains(double px, double py) {
+        if (!bounds.contains(px, py)) {
+            return false;
+        }
+        var x = (int) floor(m00 * px + m01 * py + m02);
+        var y = (int) floor(m10 * px + m11 * py + m12);
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        return (mask[y * wordsPerRow + x / 64] & 1L << x) != 0;
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Returns the shape of the same image, transformed using the given
+     * (invertible) affine transformation. The bitmask is shared.
+     */
+    @Override
+    public ImageShape transformed(AffineTransform transform) {
+        var combined = new AffineTransform(transform);
+        combined.concatenate(this.transform);
+        return new ImageShape(width, height, mask, opaqueBounds, combined);
+    }
+
+    /**
+     * Returns the width of the image, in pixels.
+     */
+    public int getImageWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the image, in pixels.
+     */
+    public int getImageHeight() {
+        return height;
+    }
+}
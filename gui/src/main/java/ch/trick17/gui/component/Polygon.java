@@ -0,0 +1,179 @@
+package ch.trick17.gui.component;
+
+import ch.trick17.gui.Gui;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A polygon that can be used as the
+ * {@linkplain Interactive#getInteractiveArea(Gui) interactive area} of a
+ * component. Like with {@link Gui#fillPolygon(double[])} and
+ * {@link Gui#fillMultiPolygon(double[][])}, a polygon consists of one or
+ * more "rings" and the even-odd rule decides which points are inside, so
+ * inner rings can be used to define holes. Whether points that lie exactly
+ * on an edge are contained is unspecified.
+ * <p>
+ * Polygons with many corners, like the outlines of countries, can be used as
+ * well: when the polygon is created, the edges are distributed into
+ * horizontal "slabs", so that testing a point only needs to look at the few
+ * edges in the slab that contains it, instead of all edges.
+ */
+public class Polygon implements Shape {
+
+    private static final int EDGES_PER_SLAB = 2;
+    private static final int MAX_ENTRIES_PER_EDGE = 4;
+
+    private final double[][] rings;
+    private final Rectangle bounds;
+
+    // the (non-horizontal) edges of all rings, grouped by slab: the edges of
+    // slab i are stored as (x1, y1, x2, y2) in slabEdges, from index
+    // 4 * slabStarts[i] (inclusive) to 4 * slabStarts[i + 1] (exclusive).
+    // Edges that span multiple slabs are stored multiple times.
+    private final int slabCount;
+    private final double slabHeight;
+    private final int[] slabStarts;
+    private final double[] slabEdges;
+
+    /**
+     * Creates a polygon with a single ring, using the same format as
+     * {@link Gui#fillPolygon(double[])}: the even indices of the array
+     * correspond to the x, the odd indices to the y coordinates of the
+     * corners.
+     */
+    public Polygon(double... coordinates) {
+        this(new double[][]{coordinates});
+    }
+
+    /**
+     * Creates a polygon with multiple rings, using the same format as
+     * {@link Gui#fillMultiPolygon(double[][])}.
+     */
+    public Polygon(double[][] rings) {
+        if (rings.length == 0) {
+            throw new IllegalArgumentException("polygon must have at least one ring");
+        }
+        this.rings = new double[rings.length][];
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < rings.length; r++) {
+            var ring = rings[r];
+            if (ring.length < 6 || ring.length % 2 != 0) {
+                throw new IllegalArgumentException("ring must have at least 3 corners "
+                                                   + "and an even number of coordinates");
+            }
+            this.rings[r] = ring.clone();
+            for (int i = 0; i < ring.length; i += 2) {
+                minX = min(minX, ring[i]);
+                maxX = max(maxX, ring[i]);
+                minY = min(minY, ring[i + 1]);
+                maxY = max(maxY, ring[i + 1]);
+            }
+        }
+        bounds = new Rectangle(minX, minY, maxX - minX, maxY - minY);
+
+        var edges = 0;
+        for (var ring : rings) {
+            for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                if (ring[i + 1] != ring[j + 1]) {
+                    edges++;
+                }
+            }
+        }
+        // use fewer slabs if many edges would need to be stored many times
+        var slabs = max(1, edges / EDGES_PER_SLAB);
+        while (slabs > 1 && slabEntries(slabs, maxY - minY) > (long) MAX_ENTRIES_PER_EDGE * edges) {
+            slabs /= 2;
+        }
+        slabCount = slabs;
+        slabHeight = (maxY - minY) / slabs;
+        slabStarts = new int[slabs + 1];
+        for (var ring : this.rings) {
+            for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                if (ring[i + 1] != ring[j + 1]) {
+                    var first = slab(min(ring[i + 1], ring[j + 1]));
+                    var last = slab(max(ring[i + 1], ring[j + 1]));
+                    for (int s = first; s <= last; s++) {
+                        slabStarts[s + 1]++;
+                    }
+                }
+            }
+        }
+        for (int s = 0; s < slabs; s++) {
+            slabStarts[s + 1] += slabStarts[s];
+        }
+        slabEdges = new double[4 * slabStarts[slabs]];
+        var next = slabStarts.clone();
+        for (var ring : this.rings) {
+            for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                if (ring[i + 1] != ring[j + 1]) {
+                    var first = slab(min(ring[i + 1], ring[j + 1]));
+                    var last = slab(max(ring[i + 1], ring[j + 1]));
+                    for (int s = first; s <= last; s++) {
+                        var k = 4 * next[s]++;
+                        slabEdges[k] = ring[i];
+                        slabEdges[k + 1] = ring[i + 1];
+                        slabEdges[k + 2] = ring[j];
+                        slabEdges[k + 3] = ring[j + 1];
+                    }
+                }
+            }
+        }
+    }
+
+    private long slabEntries(int slabs, double height) {
+        var entries = 0L;
+        for (var ring : rings) {
+            for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                var y1 = (ring[i + 1] - bounds.getTopY()) / height * slabs;
+                var y2 = (ring[j + 1] - bounds.getTopY()) / height * slabs;
+                if (y1 != y2) {
+                    entries += (long) max(y1, y2) - (long) min(y1, y2) + 1;
+                }
+            }
+        }
+        return entries;
+    }
+
+    private int slab(double y) {
+        var slab = (int) ((y - bounds.getTopY()) / slabHeight);
+        return slab < 0 ? 0 : min(slab, slabCount - 1);
+    }
+
+    public boolean contains(double px, double py) {
+        if (!bounds.contains(px, py)) {
+            return false;
+        }
+        // count the edges that a ray from the point to the right crosses,
+        // which are all in the slab that contains the point
+        var slab = slab(py);
+        var inside = false;
+        for (int k = 4 * slabStarts[slab], end = 4 * slabStarts[slab + 1]; k < end; k += 4) {
+            double x1 = slabEdges[k], y1 = slabEdges[k + 1], x2 = slabEdges[k + 2], y2 = slabEdges[k + 3];
+            if ((y1 > py) != (y2 > py) && px < x1 + (py - y1) / (y2 - y1) * (x2 - x1)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Returns the number of rings of this polygon.
+     */
+    public int getRingCount() {
+        return rings.length;
+    }
+
+    /**
+     * Returns (a copy of) the coordinates of the ring with the given index.
+     */
+    public double[] getRing(int index) {
+        return rings[index].clone();
+    }
+}
@@ -26,6 +26,19 @@ public class Rectangle implements Shape {
         return px >= x && py >= y && px <= x + width && py <= y + height;
     }
 
+    /**
+     * Returns this rectangle.
+     */
+    @Override
+    public Rectangle getBounds() {
+        return this;
+    }
+
+    @Override
+    public Rectangle translated(double dx, double dy) {
+        return new Rectangle(x + dx, y + dy, width, height);
+    }
+
     public double getLeftX() {
         return x;
     }
@@ -2,11 +2,21 @@ package ch.trick17.gui.component;
 
 import ch.trick17.gui.Gui;
 
+import java.awt.geom.AffineTransform;
+
 /**
  * A shape that defines the interactive area of a component. Used by
  * {@link Interactive#getInteractiveArea(Gui)}.
+ * <p>
+ * Shapes can also report their {@linkplain #getBounds() bounds}, which
+ * allows the GUI to find the shapes that contain a given point without
+ * testing all of them. The predefined shapes compute their bounds once and
+ * check them before doing any exact (and possibly expensive) test.
  *
  * @see Rectangle
+ * @see Circle
+ * @see Polygon
+ * @see Union
  */
 public interface Shape {
 
@@ -14,4 +24,48 @@ public interface Shape {
      * Returns <code>true</code> if the given coordinates lie inside this shape.
      */
     boolean contains(double px, double py);
+
+    /**
+     * Returns the smallest rectangle that contains this shape, or
+     * <code>null</code> if the bounds are not known (the default). Shapes
+     * without bounds are tested for every mouse event, so custom shapes
+     * should override this method if there are many of them.
+     */
+    default Rectangle getBounds() {
+        return null;
+    }
+
+    /**
+     * Returns a copy of this shape that is moved by the given distances.
+     */
+    default Shape translated(double dx, double dy) {
+        return transformed(AffineTransform.getTranslateInstance(dx, dy));
+    }
+
+    /**
+     * Returns a copy of this shape that is scaled by the given factors,
+     * relative to the origin (0, 0). The factors must not be 0.
+     */
+    default Shape scaled(double sx, double sy) {
+        return transformed(AffineTransform.getScaleInstance(sx, sy));
+    }
+
+    /**
+     * Returns a copy of this shape that is rotated by the given
+     * <code>angle</code>, in radians, around the point
+     * (<code>centerX</code>, <code>centerY</code>). Like with
+     * {@link Gui#drawImageCentered(String, double, double, double, double)},
+     * positive angles rotate clockwise.
+     */
+    default Shape rotated(double angle, double centerX, double centerY) {
+        return transformed(AffineTransform.getRotateInstance(angle, centerX, centerY));
+    }
+
+    /**
+     * Returns a copy of this shape that is transformed using the given
+     * (invertible) affine transformation.
+     */
+    default Shape transformed(AffineTransform transform) {
+        return new TransformedShape(this, transform);
+    }
 }
@@ -0,0 +1,73 @@
+package ch.trick17.gui.component;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A shape that is transformed by an affine transformation, created using
+ * {@link Shape#translated(double, double)},
+ * {@link Shape#scaled(double, double)}, etc. Points are tested by applying
+ * the inverse transformation and testing the original shape. Transforming a
+ * transformed shape again does not nest the shapes, but combines the
+ * transformations.
+ */
+final class TransformedShape implements Shape {
+
+    private final Shape shape;
+    private final AffineTransform transform;
+    private final AffineTransform inverse;
+    private final Rectangle bounds;
+
+    TransformedShape(Shape shape, AffineTransform transform) {
+        this.shape = shape;
+        this.transform = new AffineTransform(transform);
+        try {
+            inverse = transform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            throw new IllegalArgumentException("transformation is not invertible: " + transform);
+        }
+        bounds = transformBounds(shape.getBounds(), transform);
+    }
+
+    public boolean contains(double px, double py) {
+        if (bounds != null && !bounds.contains(px, py)) {
+            return false;
+        }
+        var p = inverse.transform(new Point2D.Double(px, py), null);
+        return shape.contains(p.getX(), p.getY());
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    @Override
+    public Shape transformed(AffineTransform transform) {
+        var combined = new AffineTransform(transform);
+        combined.concatenate(this.transform);
+        return new TransformedShape(shape, combined);
+    }
+
+    static Rectangle transformBounds(Rectangle bounds, AffineTransform transform) {
+        if (bounds == null) {
+            return null;
+        }
+        var corners = new double[]{
+                bounds.getLeftX(), bounds.getTopY(), bounds.getRightX(), bounds.getTopY(),
+                bounds.getRightX(), bounds.getBottomY(), bounds.getLeftX(), bounds.getBottomY()};
+        transform.transform(corners, 0, corners, 0, 4);
+        double minX = corners[0], minY = corners[1], maxX = minX, maxY = minY;
+        for (int i = 2; i < corners.length; i += 2) {
+            minX = min(minX, corners[i]);
+            maxX = max(maxX, corners[i]);
+            minY = min(minY, corners[i + 1]);
+            maxY = max(maxY, corners[i + 1]);
+        }
+        return new Rectangle(minX, minY, maxX - minX, maxY - minY);
+    }
+}
@@ -0,0 +1,70 @@
+package ch.trick17.gui.component;
+
+import ch.trick17.gui.Gui;
+
+import java.util.List;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * The union of multiple shapes, which can be used as the
+ * {@linkplain Interactive#getInteractiveArea(Gui) interactive area} of a
+ * component that consists of several parts. A point is contained if it lies
+ * inside any of the shapes. The union only has {@linkplain #getBounds()
+ * bounds} if all of its shapes have bounds.
+ */
+public class Union implements Shape {
+
+    private final List<Shape> shapes;
+    private final Rectangle bounds;
+
+    public Union(Shape... shapes) {
+        this(List.of(shapes));
+    }
+
+    public Union(List<? extends Shape> shapes) {
+        this.shapes = List.copyOf(shapes);
+        bounds = unionBounds(this.shapes);
+    }
+
+    public boolean contains(double px, double py) {
+        if (bounds != null && !bounds.contains(px, py)) {
+            return false;
+        }
+        for (var shape : shapes) {
+            if (shape.contains(px, py)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    public List<Shape> getShapes() {
+        return shapes;
+    }
+
+    private static Rectangle unionBounds(List<Shape> shapes) {
+        if (shapes.isEmpty()) {
+            return new Rectangle(0, 0, 0, 0);
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (var shape : shapes) {
+            var b = shape.getBounds();
+            if (b == null) {
+                return null;
+            }
+            minX = min(minX, b.getLeftX());
+            maxX = max(maxX, b.getRightX());
+            minY = min(minY, b.getTopY());
+            maxY = max(maxY, b.getBottomY());
+        }
+        return new Rectangle(minX, minY, maxX - minX, maxY - minY);
+    }
+}
@@ -0,0 +1,22 @@
+package ch.trick17.gui.component;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.InputSnapshot;
+
+/**
+ * A {@link Component} that updates its state once per frame, for example, an
+ * agent in a simulation. Whenever the GUI is refreshed, the
+ * {@link #update(InputSnapshot)} methods of all updatable components are
+ * called first, before any events are fired and before any component is
+ * {@linkplain Drawable drawn}.
+ * <p>
+ * If there are many updatable components, their update methods are called
+ * in parallel, on multiple threads. Therefore, an implementation must only
+ * modify the state of its own component and must not call any methods of
+ * the {@link Gui}. The current input is passed as an immutable
+ * {@link InputSnapshot} instead. Drawing happens afterward, sequentially,
+ * so {@link Drawable#draw(Gui)} can safely use the updated state.
+ */
+public interface Updatable extends Component {
+    void update(InputSnapshot input);
+}
@@ -0,0 +1,424 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.Canvas;
+import ch.trick17.gui.Color;
+
+import javax.swing.ImageIcon;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static java.awt.Font.*;
+import static java.lang.Double.isFinite;
+import static java.lang.Integer.signum;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Base class for implementations of {@link Canvas}, which keeps track of the
+ * paint settings and the transformation. Subclasses implement the drawing
+ * operations, and they may override the setters to record the changed
+ * settings.
+ */
+public abstract class CanvasBase implements Canvas {
+
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    protected Color color = new Color(0, 0, 0);
+    protected double strokeWidth = 1;
+    protected boolean roundStroke = false;
+    protected String fontFamily = "sansserif";
+    protected int fontSize = 11;
+    protected boolean bold = false;
+    protected boolean italic = false;
+    protected TextAlign textAlign = TextAlign.LEFT;
+    protected double lineSpacing = 1.0;
+    protected double alpha = 1;
+    protected boolean nearestNeighborInterpolation = false;
+    protected boolean antialiasing = true;
+    protected final Deque<Settings> settingsStack = new ArrayDeque<>();
+    // the transformation is never modified, but replaced, so that drawing
+    // commands can keep a reference to it
+    protected AffineTransform transform = IDENTITY;
+    protected final Deque<AffineTransform> transformStack = new ArrayDeque<>();
+    // the initial values of the settings above, used by resetSettings()
+    private Settings defaultSettings;
+
+    protected CanvasBase() {
+        defaultSettings = currentSettings();
+    }
+
+    /**
+     * Loads the image with the given path, either from the class path or
+     * from the file system.
+     */
+    protected Image loadImage(String path) {
+        try (var res = getClass().getClassLoader().getResourceAsStream(path)) {
+            Image image;
+            if (res != null) {
+                image = new ImageIcon(res.readAllBytes()).getImage();
+            } else {
+                image = new ImageIcon(path).getImage();
+            }
+            if (image == null) {
+                throw new Error("could not load image \"" + path + "\"");
+            }
+            return image;
+        } catch (IOException e) {
+            throw new Error("could not load image \"" + path + "\"", e);
+        }
+    }
+
+    /**
+     * Returns the transformation from image to GUI coordinates that
+     * {@link #drawImage(String, double, double, double, double)} and
+     * {@link #drawImageCentered(String, double, double, double, double)} (if
+     * <code>centered</code> is <code>true</code>) use for an image of the
+     * given size.
+     */
+    protected static AffineTransform imageTransform(int imgWidth, int imgHeight, double x, double y,
+                                                    double scale, double angle, boolean centered) {
+        var transform = new AffineTransform();
+        if (centered) {
+            transform.translate(x - imgWidth / 2.0 * scale, y - imgHeight / 2.0 * scale);
+        } else {
+            transform.translate(x, y);
+        }
+        transform.scale(scale, scale);
+        transform.rotate(angle, imgWidth / 2.0, imgHeight / 2.0);
+        return transform;
+    }
+
+    /*
+     * Paint settings
+     */
+
+    @Override
+    public void setColor(Color color) {
+        this.color = color;
+    }
+
+    @Override
+    public Color getColor() {
+        return color;
+    }
+
+    @Override
+    public void setStrokeWidth(double strokeWidth) {
+        this.strokeWidth = strokeWidth;
+    }
+
+    @Override
+    public double getStrokeWidth() {
+        return strokeWidth;
+    }
+
+    @Override
+    public void setRoundStroke(boolean roundStroke) {
+        this.roundStroke = roundStroke;
+    }
+
+    @Override
+    public boolean isRoundStroke() {
+        return roundStroke;
+    }
+
+    @Override
+    public void setFontFamily(String fontFamily) {
+        this.fontFamily = fontFamily;
+    }
+
+    @Override
+    public String getFontFamily() {
+        return fontFamily;
+    }
+
+    @Override
+    public void setFontSize(int fontSize) {
+        this.fontSize = fontSize;
+    }
+
+    @Override
+    public int getFontSize() {
+        return fontSize;
+    }
+
+    @Override
+    public void setBold(boolean bold) {
+        this.bold = bold;
+    }
+
+    @Override
+    public boolean isBold() {
+        return bold;
+    }
+
+    @Override
+    public void setItalic(boolean italic) {
+        this.italic = italic;
+    }
+
+    @Override
+    public boolean isItalic() {
+        return italic;
+    }
+
+    @Override
+    public void setTextAlign(int textAlign) {
+        this.textAlign = TextAlign.fromInt(textAlign);
+    }
+
+    @Override
+    public int getTextAlign() {
+        return textAlign.toInt();
+    }
+
+    @Override
+    public void setLineSpacing(double lineSpacing) {
+        this.lineSpacing = clampPositive(lineSpacing);
+    }
+
+    protected final double clampPositive(double d) {
+        if (isFinite(d)) {
+            return max(0, d);
+        } else {
+            return Double.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public double getLineSpacing() {
+        return lineSpacing;
+    }
+
+    @Override
+    public void setAlpha(double alpha) {
+        this.alpha = max(0, min(1, alpha));
+    }
+
+    @Override
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setNearestNeighborInterpolation(boolean nearestNeighborInterpolation) {
+        this.nearestNeighborInterpolation = nearestNeighborInterpolation;
+    }
+
+    @Override
+    public boolean isNearestNeighborInterpolation() {
+        return nearestNeighborInterpolation;
+    }
+
+    @Override
+    public void setAntialiasing(boolean antialiasing) {
+        this.antialiasing = antialiasing;
+    }
+
+    @Override
+    public boolean isAntialiasing() {
+        return antialiasing;
+    }
+
+    @Override
+    public void pushSettings() {
+        settingsStack.push(currentSettings());
+    }
+
+    @Override
+    public void popSettings() {
+        if (settingsStack.isEmpty()) {
+            throw new IllegalStateException("no saved settings");
+        }
+        applySettings(settingsStack.pop());
+    }
+
+    /**
+     * Resets the settings like {@link Canvas#resetSettings()}, which keeps the
+     * font family and style, but applies them all at once, using
+     * {@link #applySettings(Settings)}.
+     */
+    @Override
+    public void resetSettings() {
+        var defaults = defaultSettings;
+        if (!defaults.fontFamily.equals(fontFamily) || defaults.italic != italic) {
+            defaults = new Settings(defaults.color, defaults.strokeWidth, defaults.roundStroke, fontFamily,
+                    defaults.fontSize, defaults.bold, italic, defaults.textAlign, defaults.lineSpacing,
+                    defaults.alpha, defaults.nearestNeighborInterpolation, defaults.antialiasing);
+            defaultSettings = defaults;
+        }
+        applySettings(defaults);
+    }
+
+    /**
+     * Returns the current paint settings as an immutable object.
+     */
+    protected Settings currentSettings() {
+        return new Settings(color, strokeWidth, roundStroke, fontFamily, fontSize, bold, italic,
+                textAlign, lineSpacing, alpha, nearestNeighborInterpolation, antialiasing);
+    }
+
+    /**
+     * Changes all paint settings at once. Subclasses that record the
+     * settings as drawing commands should override this method to record a
+     * single command, instead of one per setting.
+     */
+    protected void applySettings(Settings settings) {
+        color = settings.color;
+        strokeWidth = settings.strokeWidth;
+        roundStroke = settings.roundStroke;
+        fontFamily = settings.fontFamily;
+        fontSize = settings.fontSize;
+        bold = settings.bold;
+        italic = settings.italic;
+        textAlign = settings.textAlign;
+        lineSpacing = settings.lineSpacing;
+        alpha = settings.alpha;
+        nearestNeighborInterpolation = settings.nearestNeighborInterpolation;
+        antialiasing = settings.antialiasing;
+    }
+
+    @Override
+    public double stringWidth(String string, String fontFamily, int fontSize,
+                              boolean bold, boolean italic) {
+        var style = (bold ? BOLD : PLAIN) | (italic ? ITALIC : PLAIN);
+        var font = new Font(fontFamily, style, fontSize);
+        var metrics = MetricsHolder.GRAPHICS.getFontMetrics(font);
+        return string.lines()
+                .mapToInt(metrics::stringWidth)
+                .max().orElse(0);
+    }
+
+    private static class MetricsHolder {
+        static final Graphics2D GRAPHICS = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+    }
+
+    /*
+     * Transformation
+     */
+
+    @Override
+    public void translate(double dx, double dy) {
+        var t = new AffineTransform(transform);
+        t.translate(dx, dy);
+        transform = t;
+    }
+
+    @Override
+    public void rotate(double angle) {
+        var t = new AffineTransform(transform);
+        t.rotate(angle);
+        transform = t;
+    }
+
+    @Override
+    public void rotate(double angle, double x, double y) {
+        var t = new AffineTransform(transform);
+        t.rotate(angle, x, y);
+        transform = t;
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        var t = new AffineTransform(transform);
+        t.scale(sx, sy);
+        transform = t;
+    }
+
+    @Override
+    public void pushTransform() {
+        transformStack.push(transform);
+    }
+
+    @Override
+    public void popTransform() {
+        if (transformStack.isEmpty()) {
+            throw new IllegalStateException("no saved transformation");
+        }
+        transform = transformStack.pop();
+    }
+
+    @Override
+    public void resetTransform() {
+        transform = IDENTITY;
+    }
+
+    /**
+     * Returns a copy of the current transformation, which maps the
+     * coordinates passed to the drawing operations to the coordinates of the
+     * GUI. This method is not part of {@link Canvas}, so the public API does
+     * not depend on AWT types.
+     */
+    public AffineTransform getTransform() {
+        return new AffineTransform(transform);
+    }
+
+    /**
+     * Returns the given transformation, preceded by the current
+     * transformation of the GUI (i.e., the given one is applied first). If
+     * there is no current transformation, the given object is returned.
+     */
+    protected AffineTransform transformed(AffineTransform t) {
+        if (transform.isIdentity()) {
+            return t;
+        }
+        var combined = new AffineTransform(transform);
+        combined.concatenate(t);
+        return combined;
+    }
+
+    protected enum TextAlign {
+        LEFT, CENTER, RIGHT;
+
+        public static TextAlign fromInt(int textAlign) {
+            return values()[signum(textAlign) + 1];
+        }
+
+        public int toInt() {
+            return ordinal() - 1;
+        }
+    }
+
+    /**
+     * The paint settings of a GUI at some point, as saved by
+     * {@link #pushSettings()}.
+     */
+    protected static final class Settings {
+        public final Color color;
+        public final double strokeWidth;
+        public final boolean roundStroke;
+        public final String fontFamily;
+        public final int fontSize;
+        public final boolean bold;
+        public final boolean italic;
+        public final TextAlign textAlign;
+        public final double lineSpacing;
+        public final double alpha;
+        public final boolean nearestNeighborInterpolation;
+        public final boolean antialiasing;
+
+        private Settings(Color color, double strokeWidth, boolean roundStroke, String fontFamily,
+                         int fontSize, boolean bold, boolean italic, TextAlign textAlign,
+                         double lineSpacing, double alpha, boolean nearestNeighborInterpolation,
+                         boolean antialiasing) {
+            this.color = color;
+            this.strokeWidth = strokeWidth;
+            this.roundStroke = roundStroke;
+            this.fontFamily = fontFamily;
+            this.fontSize = fontSize;
+            this.bold = bold;
+            this.italic = italic;
+            this.textAlign = textAlign;
+            this.lineSpacing = lineSpacing;
+            this.alpha = alpha;
+            this.nearestNeighborInterpolation = nearestNeighborInterpolation;
+            this.antialiasing = antialiasing;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.Color;
+
+import java.awt.Graphics2D;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A buffer that records drawing commands for a {@link Java2DGui} on another
+ * thread. Command buffers are created using
+ * {@link Java2DGui#createCommandBuffer(int)} and support all drawing methods
+ * and settings of a {@link ch.trick17.gui.Canvas Canvas}. Each buffer has its
+ * own settings, which start with the default values, so the commands it
+ * records do not depend on what other threads are drawing.
+ * <p>
+ * A buffer must only be used by one thread at a time. After drawing (part
+ * of) a frame, that thread calls {@link #submit()}, which hands the recorded
+ * commands over to the GUI and starts a new, empty recording with the same
+ * settings. The GUI merges all submitted commands into the next frame when
+ * it is refreshed, ordered by layer (see
+ * {@link Java2DGui#createCommandBuffer(int)}), so the result does not depend
+ * on the order in which the threads finish.
+ */
+public final class CommandBuffer extends CanvasBase {
+
+    private final Java2DGui gui;
+    private final CommandRecorder recorder;
+    final int layer;
+    final long sequence;
+
+    CommandBuffer(Java2DGui gui, int layer, long sequence) {
+        this.gui = gui;
+        this.layer = layer;
+        this.sequence = sequence;
+        recorder = new CommandRecorder(this, gui);
+    }
+
+    /**
+     * Hands the commands recorded since the last call of this method over to
+     * the GUI, which will paint them in the next frame. Afterward, a new
+     * recording is started with the current settings.
+     */
+    public void submit() {
+        gui.submit(this, recorder.restart());
+    }
+
+    /**
+     * Returns the layer of this buffer.
+     */
+    public int getLayer() {
+        return layer;
+    }
+
+    /*
+     * Paint settings
+     */
+
+    @Override
+    public void setColor(Color color) {
+        super.setColor(color);
+        recorder.colorChanged();
+    }
+
+    @Override
+    public void setStrokeWidth(double strokeWidth) {
+        super.setStrokeWidth(strokeWidth);
+        recorder.strokeWidthChanged();
+    }
+
+    @Override
+    public void setRoundStroke(boolean roundStroke) {
+        super.setRoundStroke(roundStroke);
+        recorder.roundStrokeChanged();
+    }
+
+    @Override
+    public void setFontFamily(String fontFamily) {
+        super.setFontFamily(fontFamily);
+        recorder.fontChanged();
+    }
+
+    @Override
+    public void setFontSize(int fontSize) {
+        super.setFontSize(fontSize);
+        recorder.fontChanged();
+    }
+
+    @Override
+    public void setBold(boolean bold) {
+        super.setBold(bold);
+        recorder.fontChanged();
+    }
+
+    @Override
+    public void setItalic(boolean italic) {
+        super.setItalic(italic);
+        recorder.fontChanged();
+    }
+
+    @Override
+    public void setTextAlign(int textAlign) {
+        super.setTextAlign(textAlign);
+        recorder.textAlignChanged();
+    }
+
+    @Override
+    public void setLineSpacing(double lineSpacing) {
+        super.setLineSpacing(lineSpacing);
+        recorder.lineSpacingChanged();
+    }
+
+    @Override
+    public void setAlpha(double alpha) {
+        super.setAlpha(alpha);
+        recorder.alphaChanged();
+    }
+
+    @Override
+    public void setNearestNeighborInterpolation(boolean nearestNeighborInterpolation) {
+        super.setNearestNeighborInterpolation(nearestNeighborInterpolation);
+        recorder.interpolationChanged();
+    }
+
+    @Override
+    public void setAntialiasing(boolean antialiasing) {
+        super.setAntialiasing(antialiasing);
+        recorder.antialiasingChanged();
+    }
+
+    @Override
+    protected void applySettings(Settings settings) {
+        super.applySettings(settings);
+        recorder.settingsApplied(settings);
+    }
+
+    /*
+     * Painting
+     */
+
+    @Override
+    public void drawRect(double x, double y, double width, double height) {
+        recorder.drawRect(x, y, width, height);
+    }
+
+    @Override
+    public void fillRect(double x, double y, double width, double height) {
+        recorder.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public void drawOval(double x, double y, double width, double height) {
+        recorder.drawOval(x, y, width, height);
+    }
+
+    @Override
+    public void fillOval(double x, double y, double width, double height) {
+        recorder.fillOval(x, y, width, height);
+    }
+
+    @Override
+    public void drawLine(double x1, double y1, double x2, double y2) {
+        recorder.drawLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawPath(double[] coordinates) {
+        recorder.drawPath(coordinates);
+    }
+
+    @Override
+    public void drawPolygon(double[] coordinates) {
+        recorder.drawPolygon(coordinates);
+    }
+
+    @Override
+    public void fillPolygon(double[] coordinates) {
+        recorder.fillPolygon(coordinates);
+    }
+
+    @Override
+    public void drawMultiPolygon(double[][] rings) {
+        recorder.drawMultiPolygon(rings);
+    }
+
+    @Override
+    public void fillMultiPolygon(double[][] rings) {
+        recorder.fillMultiPolygon(rings);
+    }
+
+    @Override
+    public void drawString(String string, double x, double y) {
+        recorder.drawString(string, x, y);
+    }
+
+    @Override
+    public void drawImage(String path, double x, double y, double scale, double angle) {
+        recorder.drawImage(path, x, y, scale, angle, false);
+    }
+
+    @Override
+    public void drawImageCentered(String path, double x, double y, double scale, double angle) {
+        recorder.drawImage(path, x, y, scale, angle, true);
+    }
+
+    /**
+     * Adds a custom command, like {@link Java2DGui#addCustomCommand(Consumer)}.
+     * Changes of the transform or the clip only affect the subsequent commands
+     * of this buffer.
+     *
+     * @param command command to be added
+     */
+    public void addCustomCommand(Consumer<Graphics2D> command) {
+        recorder.addCustomCommand(command);
+    }
+
+    /**
+     * Commands submitted by a buffer, to be merged into the next frame.
+     */
+    static final class Submission {
+
+        final int layer;
+        final long sequence;
+        final List<Consumer<Graphics2D>> commands;
+
+        Submission(int layer, long sequence, List<Consumer<Graphics2D>> commands) {
+            this.layer = layer;
+            this.sequence = sequence;
+            this.commands = commands;
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.impl.CanvasBase.Settings;
+import ch.trick17.gui.impl.CanvasBase.TextAlign;
+import ch.trick17.gui.impl.Java2DGui.BoundedCommand;
+
+import java.awt.*;
+import java.awt.RenderingHints.Key;
+import java.awt.geom.*;
+import java.awt.image.PixelGrabber;
+import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static java.awt.BasicStroke.*;
+import static java.awt.Font.*;
+import static java.awt.RenderingHints.*;
+import static java.awt.geom.Path2D.WIND_EVEN_ODD;
+import static java.lang.Math.max;
+
+/**
+ * Records the drawing operations and setting changes of a canvas as commands
+ * that operate on a {@link Graphics2D} object. The settings and the
+ * transformation are read from the canvas when an operation is recorded, so
+ * the canvas calls the <code>...Changed()</code> methods after changing a
+ * setting. This class is used by {@link Java2DGui} and by
+ * {@link CommandBuffer}, which records commands on other threads.
+ */
+final class CommandRecorder {
+
+    static final Key TEXT_ALIGN = new Key(165191049) {
+        public boolean isCompatibleValue(Object val) {
+            return val instanceof TextAlign;
+        }
+    };
+    static final Key LINE_SPACING = new Key(165191050) {
+        public boolean isCompatibleValue(Object val) {
+            return val instanceof Double;
+        }
+    };
+    // antialiasing value of the render quality, restored when antialiasing
+    // is enabled again after having been disabled for some commands
+    static final Key QUALITY_ANTIALIASING = new Key(165191051) {
+        public boolean isCompatibleValue(Object val) {
+            return KEY_ANTIALIASING.isCompatibleValue(val);
+        }
+    };
+
+    private final CanvasBase canvas;
+    private final GuiBase gui; // whose size is used for occlusion culling
+
+    List<Consumer<Graphics2D>> commands;
+
+    // cache for settingsApplied
+    private Settings lastSettings;
+    private Consumer<Graphics2D> lastSettingsCommand;
+
+    // area covered by an opaque command at the start of the commands (or
+    // null), which means that the white background does not need to be painted
+    Rectangle2D cover;
+    // maximum coordinates of what the commands paint, which an opaque command
+    // must cover to make them obsolete (the canvas never grows to the left or
+    // top, so the minimum coordinates are irrelevant)
+    double drawnMaxX;
+    double drawnMaxY;
+    // set when custom commands are added, as they may change the transform,
+    // color, etc. in ways that occlusion culling cannot take into account
+    private boolean customCommands;
+
+    private final Map<String, Image> images = new HashMap<>();
+    private final Map<Image, Boolean> opaqueImages = new HashMap<>();
+
+    CommandRecorder(CanvasBase canvas, GuiBase gui) {
+        this.canvas = canvas;
+        this.gui = gui;
+        commands = new ArrayList<>(List.of(applyCurrentSettings()));
+    }
+
+    /**
+     * Returns the commands recorded so far and starts a new list of commands,
+     * which begins with a command that applies the current settings.
+     */
+    List<Consumer<Graphics2D>> restart() {
+        var recorded = commands;
+        commands = new ArrayList<>(List.of(applyCurrentSettings()));
+        cover = null;
+        drawnMaxX = 0;
+        drawnMaxY = 0;
+        customCommands = false;
+        return recorded;
+    }
+
+    /**
+     * Adds the given commands, which may paint anywhere and change any
+     * setting, below and above the recorded ones. The settings of the canvas
+     * are applied again after the commands above.
+     */
+    void merge(List<Consumer<Graphics2D>> below, List<Consumer<Graphics2D>> above) {
+        drawnMaxX = Double.POSITIVE_INFINITY;
+        drawnMaxY = Double.POSITIVE_INFINITY;
+        if (!below.isEmpty()) {
+            // recorded commands start with the settings of the canvas
+            below.addAll(commands);
+            commands = below;
+            cover = null;
+        }
+        if (!above.isEmpty()) {
+            commands.addAll(above);
+            commands.add(applyCurrentSettings());
+        }
+    }
+
+    Consumer<Graphics2D> applyCurrentSettings() {
+        return settingsCommand(canvas.currentSettings());
+    }
+
+    private static Consumer<Graphics2D> settingsCommand(Settings settings) {
+        var color = settings.color;
+        var currentColor = new java.awt.Color(color.r, color.g, color.b, color.alpha);
+        var currentStroke = new BasicStroke((float) settings.strokeWidth,
+                settings.roundStroke ? CAP_ROUND : CAP_BUTT,
+                settings.roundStroke ? JOIN_ROUND : JOIN_MITER);
+        var currentFont = font(settings.fontFamily, settings.fontSize, settings.bold, settings.italic);
+        var currentTextAlign = settings.textAlign;
+        var currentLineHeight = settings.lineSpacing;
+        var currentComposite = AlphaComposite.SrcOver.derive((float) settings.alpha);
+        var currentInterpolation = settings.nearestNeighborInterpolation ?
+                VALUE_INTERPOLATION_NEAREST_NEIGHBOR : VALUE_INTERPOLATION_BILINEAR;
+        var currentAntialiasing = settings.antialiasing;
+        return g -> {
+            g.setColor(currentColor);
+            g.setStroke(currentStroke);
+            g.setFont(currentFont);
+            // Text alignment and line height are stored as a "rendering hints"
+            // inside the Graphics2D object. Somewhat hacky, but consistent with
+            // all other settings, which are supported by Graphics2D directly.
+            g.addRenderingHints(Map.of(
+                    TEXT_ALIGN, currentTextAlign,
+                    LINE_SPACING, currentLineHeight,
+                    KEY_INTERPOLATION, currentInterpolation));
+            g.setComposite(currentComposite);
+            applyAntialiasing(g, currentAntialiasing);
+        };
+    }
+
+    private static void applyAntialiasing(Graphics2D g, boolean antialiasing) {
+        g.setRenderingHint(KEY_ANTIALIASING, antialiasing
+                ? g.getRenderingHint(QUALITY_ANTIALIASING) : VALUE_ANTIALIAS_OFF);
+    }
+
+    private Font currentFont() {
+        return font(canvas.fontFamily, canvas.fontSize, canvas.bold, canvas.italic);
+    }
+
+    private static Font font(String family, int size, boolean bold, boolean italic) {
+        var style = (bold ? BOLD : PLAIN) | (italic ? ITALIC : PLAIN);
+        return new Font(family, style, size);
+    }
+
+    /*
+     * Paint settings
+     */
+
+    void colorChanged() {
+        var color = canvas.color;
+        commands.add(g -> g.setColor(new java.awt.Color(color.r, color.g, color.b, color.alpha)));
+    }
+
+    void strokeWidthChanged() {
+        var strokeWidth = canvas.strokeWidth;
+        commands.add(g -> {
+            var prev = (BasicStroke) g.getStroke();
+            g.setStroke(new BasicStroke((float) strokeWidth,
+                    prev.getEndCap(),
+                    prev.getLineJoin()));
+        });
+    }
+
+    void roundStrokeChanged() {
+        var roundStroke = canvas.roundStroke;
+        commands.add(g -> {
+            var prev = (BasicStroke) g.getStroke();
+            g.setStroke(new BasicStroke(prev.getLineWidth(),
+                    roundStroke ? CAP_ROUND : CAP_BUTT,
+                    roundStroke ? JOIN_ROUND : JOIN_MITER));
+        });
+    }
+
+    /**
+     * Records a change of the font family, size, or style.
+     */
+    void fontChanged() {
+        var currentFont = currentFont();
+        commands.add(g -> g.setFont(currentFont));
+    }
+
+    void textAlignChanged() {
+        var textAlign = canvas.textAlign;
+        commands.add(g -> g.addRenderingHints(Map.of(TEXT_ALIGN, textAlign)));
+    }
+
+    void lineSpacingChanged() {
+        var lineSpacing = canvas.lineSpacing;
+        commands.add(g -> g.addRenderingHints(Map.of(LINE_SPACING, lineSpacing)));
+    }
+
+    void alphaChanged() {
+        var composite = AlphaComposite.SrcOver.derive((float) canvas.alpha);
+        commands.add(g -> g.setComposite(composite));
+    }
+
+    void interpolationChanged() {
+        var interpolation = canvas.nearestNeighborInterpolation
+                ? VALUE_INTERPOLATION_NEAREST_NEIGHBOR : VALUE_INTERPOLATION_BILINEAR;
+        commands.add(g -> g.addRenderingHints(Map.of(KEY_INTERPOLATION, interpolation)));
+    }
+
+    void antialiasingChanged() {
+        var antialiasing = canvas.antialiasing;
+        commands.add(g -> applyAntialiasing(g, antialiasing));
+    }
+
+    /**
+     * Records a single command that applies all settings. The command for
+     * the last applied settings object is reused, so resetting the settings
+     * for every component does not create any objects.
+     */
+    void settingsApplied(Settings settings) {
+        if (settings != lastSettings) {
+            lastSettings = settings;
+            lastSettingsCommand = settingsCommand(settings);
+        }
+        commands.add(lastSettingsCommand);
+    }
+
+    /*
+     * Painting
+     */
+
+    void drawRect(double x, double y, double width, double height) {
+        addStrokeCommand(new Rectangle2D.Double(x, y, width, height));
+    }
+
+    void fillRect(double x, double y, double width, double height) {
+        Rectangle2D rect = new Rectangle2D.Double(x, y, width, height);
+        var transform = canvas.transform;
+        if (!transform.isIdentity()) {
+            if (transform.getShearX() != 0 || transform.getShearY() != 0) {
+                addFillCommand(rect);
+                return;
+            }
+            // still an axis-aligned rectangle, which may occlude others
+            rect = transform.createTransformedShape(rect).getBounds2D();
+        }
+        var r = rect;
+        Consumer<Graphics2D> command = g -> g.fill(r);
+        if (canvas.color.alpha == 255) {
+            addPossiblyOccluding(command, r);
+        } else {
+            addDrawCommand(command, fillBounds(r));
+        }
+    }
+
+    void drawOval(double x, double y, double width, double height) {
+        addStrokeCommand(new Ellipse2D.Double(x, y, width, height));
+    }
+
+    void fillOval(double x, double y, double width, double height) {
+        addFillCommand(new Ellipse2D.Double(x, y, width, height));
+    }
+
+    void drawLine(double x1, double y1, double x2, double y2) {
+        addStrokeCommand(new Line2D.Double(x1, y1, x2, y2));
+    }
+
+    void drawPath(double[] coordinates) {
+        if (coordinates.length >= 2) {
+            var path = new Path2D.Double();
+            append(path, coordinates);
+            addStrokeCommand(path);
+        }
+    }
+
+    void drawPolygon(double[] coordinates) {
+        if (coordinates.length >= 2) {
+            var path = new Path2D.Double();
+            append(path, coordinates);
+            path.closePath();
+            addStrokeCommand(path);
+        }
+    }
+
+    void fillPolygon(double[] coordinates) {
+        if (coordinates.length >= 2) {
+            var path = new Path2D.Double(WIND_EVEN_ODD);
+            append(path, coordinates);
+            path.closePath();
+            addFillCommand(path);
+        }
+    }
+
+    void drawMultiPolygon(double[][] rings) {
+        addStrokeCommand(multiPolygon(rings));
+    }
+
+    void fillMultiPolygon(double[][] rings) {
+        addFillCommand(multiPolygon(rings));
+    }
+
+    private static Path2D multiPolygon(double[][] rings) {
+        var path = new Path2D.Double(WIND_EVEN_ODD);
+        for (var ring : rings) {
+            if (ring.length >= 2) {
+                append(path, ring);
+                path.closePath();
+            }
+        }
+        return path;
+    }
+
+    private static void append(Path2D.Double path, double[] coordinates) {
+        path.moveTo(coordinates[0], coordinates[1]);
+        for (int i = 2; i < coordinates.length; i += 2) {
+            path.lineTo(coordinates[i], coordinates[i + 1]);
+        }
+    }
+
+    void drawString(String string, double x, double y) {
+        var bounds = textBounds(string, x, y);
+        var t = canvas.transform;
+        if (!t.isIdentity()) {
+            // glyphs cannot be transformed in advance, so only text commands
+            // change the transform of the graphics object
+            Consumer<Graphics2D> text = textCommand(string, x, y);
+            addDrawCommand(g -> {
+                var prev = g.getTransform();
+                g.transform(t);
+                text.accept(g);
+                g.setTransform(prev);
+            }, t.createTransformedShape(bounds).getBounds2D());
+        } else {
+            addDrawCommand(textCommand(string, x, y), bounds);
+        }
+    }
+
+    private static Consumer<Graphics2D> textCommand(String string, double x, double y) {
+        return g -> {
+            var align = (TextAlign) g.getRenderingHints().get(TEXT_ALIGN);
+            var lineHeight = (double) g.getRenderingHints().get(LINE_SPACING);
+            var metrics = g.getFontMetrics();
+            var drawY = y;
+            for (var line : (Iterable<String>) string.lines()::iterator) {
+                var drawX = x;
+                if (align != TextAlign.LEFT) {
+                    var width = metrics.stringWidth(line);
+                    drawX -= align == TextAlign.CENTER ? width / 2f : width;
+                }
+                g.drawString(line, (float) drawX, (float) drawY);
+                drawY += g.getFont().getSize() * lineHeight;
+            }
+        };
+    }
+
+    private Rectangle2D textBounds(String string, double x, double y) {
+        var fontSize = canvas.fontSize;
+        var width = canvas.stringWidth(string, canvas.fontFamily, fontSize, canvas.bold, canvas.italic);
+        var minX = canvas.textAlign == TextAlign.LEFT ? x
+                : canvas.textAlign == TextAlign.CENTER ? x - width / 2 : x - width;
+        var lines = max(1, string.lines().count());
+        // generous margins for ascent, descent, italic overhang, etc.
+        return new Rectangle2D.Double(minX - fontSize, y - 2 * fontSize, width + 2 * fontSize,
+                (lines - 1) * fontSize * canvas.lineSpacing + 3 * fontSize);
+    }
+
+    void drawImage(String path, double x, double y, double scale, double angle, boolean centered) {
+        var image = image(path);
+        var t = canvas.transformed(CanvasBase.imageTransform(image.getWidth(null), image.getHeight(null),
+                x, y, scale, angle, centered));
+        Consumer<Graphics2D> command = g -> g.drawImage(image, t, null);
+        var bounds = new Rectangle2D.Double(0, 0, image.getWidth(null), image.getHeight(null));
+        if (t.getShearX() == 0 && t.getShearY() == 0 && isOpaque(path, image)) {
+            addPossiblyOccluding(command, t.createTransformedShape(bounds).getBounds2D());
+        } else {
+            addDrawCommand(command, fillBounds(t.createTransformedShape(bounds)));
+        }
+    }
+
+    /**
+     * Returns the image with the given path, which is loaded only once per
+     * recorder.
+     */
+    Image image(String path) {
+        return images.computeIfAbsent(path, canvas::loadImage);
+    }
+
+    void addCustomCommand(Consumer<Graphics2D> command) {
+        commands.add(command);
+        customCommands = true;
+    }
+
+    /**
+     * Adds a command that paints the given area opaquely (if alpha is 1). If
+     * the area covers the whole canvas and everything drawn before, all
+     * previous commands are dropped, as they would be painted over anyway.
+     * (Covering the canvas alone is not enough, as a resizable window may
+     * grow before the commands are painted.) Since the settings commands are
+     * dropped as well, they are replaced by a single command that applies the
+     * current settings.
+     */
+    private void addPossiblyOccluding(Consumer<Graphics2D> command, Rectangle2D area) {
+        if (canvas.alpha == 1 && !customCommands && area.contains(0, 0, gui.width, gui.height)
+            && area.getMaxX() >= drawnMaxX && area.getMaxY() >= drawnMaxY) {
+            commands = new ArrayList<>(List.of(applyCurrentSettings(), command));
+            cover = area;
+            drawnMaxX = area.getMaxX();
+            drawnMaxY = area.getMaxY();
+        } else {
+            addDrawCommand(command, fillBounds(area));
+        }
+    }
+
+    /**
+     * Adds a command that draws the outline of the given shape. If there is
+     * a current transformation, the outline is computed and transformed when
+     * the command is recorded, so it can be filled without changing the
+     * transform of the graphics object.
+     */
+    private void addStrokeCommand(Shape shape) {
+        var transform = canvas.transform;
+        if (transform.isIdentity()) {
+            addDrawCommand(g -> g.draw(shape), strokeBounds(shape));
+        } else {
+            var bounds = strokeBounds(shape);
+            var corners = new double[]{bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMinY(),
+                    bounds.getMaxX(), bounds.getMaxY(), bounds.getMinX(), bounds.getMaxY()};
+            transform.transform(corners, 0, corners, 0, 4);
+            var maxX = max(max(corners[0], corners[2]), max(corners[4], corners[6]));
+            var maxY = max(max(corners[1], corners[3]), max(corners[5], corners[7]));
+            if (!customCommands && (maxX < 0 || maxY < 0)) {
+                return; // skip the expensive stroking, see addDrawCommand
+            }
+            var stroke = new BasicStroke((float) canvas.strokeWidth, canvas.roundStroke ? CAP_ROUND : CAP_BUTT,
+                    canvas.roundStroke ? JOIN_ROUND : JOIN_MITER);
+            var outline = transform.createTransformedShape(stroke.createStrokedShape(shape));
+            addDrawCommand(g -> g.fill(outline), fillBounds(outline));
+        }
+    }
+
+    /**
+     * Adds a command that fills the given shape, which is transformed when
+     * the command is recorded if there is a current transformation.
+     */
+    private void addFillCommand(Shape shape) {
+        var transform = canvas.transform;
+        var transformed = transform.isIdentity() ? shape : transform.createTransformedShape(shape);
+        addDrawCommand(g -> g.fill(transformed), fillBounds(transformed));
+    }
+
+    /**
+     * Adds a command that only paints inside the given bounds, which allows
+     * skipping it when painting other parts of the canvas. Commands entirely
+     * above or left of the canvas are not added at all, as they cannot
+     * become visible even if the canvas grows. Once custom commands have
+     * been added, the bounds are unknown, as the transform or clip may have
+     * been changed.
+     */
+    private void addDrawCommand(Consumer<Graphics2D> command, Rectangle2D bounds) {
+        if (customCommands) {
+            commands.add(command);
+        } else if (bounds.getMaxX() >= 0 && bounds.getMaxY() >= 0) {
+            commands.add(new BoundedCommand(command, bounds));
+            drawnMaxX = max(drawnMaxX, bounds.getMaxX());
+            drawnMaxY = max(drawnMaxY, bounds.getMaxY());
+        }
+    }
+
+    private static Rectangle2D fillBounds(Shape shape) {
+        return grow(shape.getBounds2D(), 1); // 1 pixel for anti-aliasing
+    }
+
+    private Rectangle2D strokeBounds(Shape shape) {
+        // miter joins can extend up to miter limit (10) times half the width
+        var strokeWidth = canvas.strokeWidth;
+        var margin = canvas.roundStroke ? strokeWidth / 2 : strokeWidth * 5;
+        return grow(shape.getBounds2D(), margin + 1);
+    }
+
+    private static Rectangle2D grow(Rectangle2D r, double margin) {
+        return new Rectangle2D.Double(r.getX() - margin, r.getY() - margin,
+                r.getWidth() + 2 * margin, r.getHeight() + 2 * margin);
+    }
+
+    private boolean isOpaque(String path, Image image) {
+        if (path.toLowerCase().endsWith(".gif")) {
+            return false; // later frames of animated GIFs might be transparent
+        }
+        return opaqueImages.computeIfAbsent(image, img -> {
+            var grabber = new PixelGrabber(img, 0, 0, -1, -1, true);
+            try {
+                if (!grabber.grabPixels()) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                return false;
+            }
+            for (var pixel : (int[]) grabber.getPixels()) {
+                if (pixel >>> 24 != 255) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
@@ -1,25 +1,40 @@
 package ch.trick17.gui.impl;
 
-import ch.trick17.gui.Color;
 import ch.trick17.gui.Gui;
+import ch.trick17.gui.InputEvent;
+import ch.trick17.gui.InputSnapshot;
+import ch.trick17.gui.MouseTrail;
 import ch.trick17.gui.component.EventListener;
 import ch.trick17.gui.component.*;
 
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Image;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import static java.lang.Double.isFinite;
-import static java.lang.Integer.signum;
+import static ch.trick17.gui.InputEvent.Type.KEY_RELEASE;
+import static java.awt.Font.*;
+import static java.awt.GraphicsEnvironment.getLocalGraphicsEnvironment;
 import static java.lang.Math.max;
-import static java.lang.Math.min;
 import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Comparator.comparingInt;
 import static java.util.Locale.ROOT;
-import static java.util.stream.Collectors.toList;
 
-public abstract class GuiBase implements Gui {
+public abstract class GuiBase extends CanvasBase implements Gui {
+
+    private static final int UPDATE_BATCH_SIZE = 256;
 
     public static final char CHAR_UNDEFINED = KeyEvent.CHAR_UNDEFINED;
 
+    protected static final List<String> RENDER_QUALITIES = List.of("speed", "balanced", "quality", "auto");
+
     protected final String title;
     protected volatile double width;
     protected volatile double height;
@@ -27,36 +42,40 @@ public abstract class GuiBase implements Gui {
     protected long lastRefreshTime; // nanoseconds
     private volatile boolean open;
 
-    protected Color color = new Color(0, 0, 0);
-    protected double strokeWidth = 1;
-    protected boolean roundStroke = false;
-    protected String fontFamily = "sansserif";
-    protected int fontSize = 11;
-    protected boolean bold = false;
-    protected boolean italic = false;
-    protected TextAlign textAlign = TextAlign.LEFT;
-    protected double lineSpacing = 1.0;
-    protected double alpha = 1;
-    protected boolean nearestNeighborInterpolation = false;
-
-    protected final Object inputLock = new Object();
-    // the following variables are accessed both by the GUI thread and the main
-    // thread, always inside synchronized(inputLock) blocks
-    protected final Set<Input> pressedInputs = new HashSet<>();
-    protected final Set<Input> releasedInputs = new HashSet<>();
-    protected int mouseX = 0;
-    protected int mouseY = 0;
+    protected volatile String renderQuality = "quality"; // also read by the painting thread
+    protected volatile int lastWaitTime; // millis, as passed to the last refresh
+
+    // filled by the GUI thread (using the methods in the "Input events"
+    // section) and drained by the main thread when refreshing
+    private final InputQueue inputQueue = new InputQueue();
 
     // the following snapshots are only accessed in the main thread
+    protected final List<InputEvent> events = new ArrayList<>();
+    private final MouseTrailBuffer mouseTrail = new MouseTrailBuffer();
+    protected double mouseTrailCoalescing = 0;
     protected final Set<Input> pressedSnapshot = new HashSet<>();
     protected final Set<Input> releasedSnapshot = new HashSet<>();
+    protected final BitSet pressedKeys = new BitSet(); // indexed by key code
+    protected final BitSet typedKeys = new BitSet();
     protected int mouseXSnapshot = 0;
     protected int mouseYSnapshot = 0;
     protected int prevMouseX = 0;
     protected int prevMouseY = 0;
 
-    private final Set<Hoverable> hovered = newSetFromMap(new IdentityHashMap<>());
-    private final List<Component> components = new ArrayList<>();
+    // components that are run, sorted by z-order. Adding and removing
+    // components only updates the z-orders (which define which components
+    // are present) and the pending changes, which are applied in a batch at
+    // the start of the next frame, so the list is never modified while the
+    // components are run.
+    private List<Component> components = new ArrayList<>();
+    private final Map<Component, Integer> zOrders = new IdentityHashMap<>();
+    private final List<Component> pendingAdds = new ArrayList<>();
+    private final Set<Component> pendingRemoves = newSetFromMap(new IdentityHashMap<>());
+    private final List<Updatable> updatables = new ArrayList<>(); // in the order they were added
+    private int[] eventMasks = new int[0]; // by position in components, 0 for non-listeners
+    private EventListener focus;
+    private final InteractiveIndex interactiveIndex = new InteractiveIndex();
+    private final Map<String, ImageShape> imageShapes = new HashMap<>();
 
     public GuiBase(String title, int width, int height) {
         this.title = title;
@@ -65,87 +84,132 @@ public abstract class GuiBase implements Gui {
     }
 
     protected void runComponents() {
+        applyPendingChanges();
         if (components.isEmpty()) {
+            interactiveIndex.update(components, this); // forget removed components
             return;
         }
+        if (!updatables.isEmpty()) {
+            updateComponents();
+        }
 
-        // components are run with default settings, so save current settings
-        var prevColor = color;
-        var prevStrokeWidth = strokeWidth;
-        var prevRoundStroke = roundStroke;
-        var prevFontFamily = fontFamily;
-        var prevFontSize = fontSize;
-        var prevBold = bold;
-        var prevItalic = italic;
-        var prevTextAlign = textAlign;
-        var prevLineSpacing = lineSpacing;
-        var prevAlpha = alpha;
-        var prevNearestNeighborInterpolation = nearestNeighborInterpolation;
+        // components are run with default settings and without
+        // transformation, so save current settings and transformation
+        var stackSize = settingsStack.size();
+        var transformStackSize = transformStack.size();
+        pushSettings();
+        pushTransform();
 
         var mx = mouseXSnapshot;
         var my = mouseYSnapshot;
         var leftClicked = wasLeftMouseButtonClicked();
         var rightClicked = wasRightMouseButtonClicked();
-        var componentsSnapshot = List.copyOf(components);
-        for (var comp : componentsSnapshot) {
-            if (comp instanceof Hoverable) {
-                var h = (Hoverable) comp;
-                if (h.getInteractiveArea(this).contains(mx, my) && hovered.add(h)) {
-                    h.onMouseEnter();
-                } else if (!h.getInteractiveArea(this).contains(mx, my) && hovered.remove(h)) {
-                    h.onMouseExit();
+        // interactive areas are computed like the components are drawn
+        resetSettings();
+        resetTransform();
+        interactiveIndex.update(components, this);
+        interactiveIndex.hitTest(mx, my);
+        if (leftClicked) {
+            // the focusable component in front gets the focus, unless the
+            // click is consumed before; clicking anywhere else removes it
+            EventListener clickFocus = null;
+            for (int i = interactiveIndex.lastHit(components.size() - 1); i >= 0;
+                 i = interactiveIndex.lastHit(i - 1)) {
+                var comp = components.get(i);
+                if ((eventMasks[i] & EventListener.FOCUSABLE) != 0) {
+                    clickFocus = (EventListener) comp;
+                    break;
+                }
+                if (comp instanceof Clickable && ((Clickable) comp).consumesClicks()) {
+                    break;
                 }
             }
-            if (comp instanceof Clickable) {
-                var c = (Clickable) comp;
-                if (c.getInteractiveArea(this).contains(mx, my)) {
+            setFocus(clickFocus);
+        }
+        if (leftClicked || rightClicked) {
+            // only the clickable components in front receive the click
+            for (int i = interactiveIndex.lastHit(components.size() - 1); i >= 0;
+                 i = interactiveIndex.lastHit(i - 1)) {
+                if (components.get(i) instanceof Clickable) {
+                    var c = (Clickable) components.get(i);
                     if (leftClicked) {
                         c.onLeftClick(mx, my);
                     }
                     if (rightClicked) {
                         c.onRightClick(mx, my);
                     }
+                    if (c.consumesClicks()) {
+                        break;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < components.size(); i++) {
+            var hit = interactiveIndex.isHit(i);
+            if (!hit && interactiveIndex.isPassive(i) && !interactiveIndex.isHovered(i)) {
+                continue; // nothing to do for components far from the mouse
+            }
+            var comp = components.get(i);
+            if (comp instanceof Hoverable) {
+                var h = (Hoverable) comp;
+                if (hit != interactiveIndex.isHovered(i)) {
+                    interactiveIndex.setHovered(i, hit);
+                    if (hit) {
+                        h.onMouseEnter();
+                    } else {
+                        h.onMouseExit();
+                    }
                 }
             }
-            if (comp instanceof EventListener) {
+            var mask = eventMasks[i];
+            if (mask != 0) {
                 var e = (EventListener) comp;
-                for (var input : pressedSnapshot) {
-                    if (input instanceof KeyInput) {
-                        e.onKeyPress(((KeyInput) input).keyName, ((KeyInput) input).keyChar);
-                    } else if (input instanceof MouseInput) {
-                        e.onMouseButtonPress(mx, my, ((MouseInput) input).left);
+                if ((mask & EventListener.FOCUSABLE) != 0 && e != focus) {
+                    mask &= ~(EventListener.KEY_PRESS | EventListener.KEY_RELEASE);
+                }
+                if ((mask & (EventListener.KEY_PRESS | EventListener.MOUSE_BUTTON_PRESS)) != 0) {
+                    for (var input : pressedSnapshot) {
+                        if (input instanceof KeyInput) {
+                            if ((mask & EventListener.KEY_PRESS) != 0) {
+                                e.onKeyPress(((KeyInput) input).keyName, ((KeyInput) input).keyChar);
+                            }
+                        } else if (input instanceof MouseInput && (mask & EventListener.MOUSE_BUTTON_PRESS) != 0) {
+                            e.onMouseButtonPress(mx, my, ((MouseInput) input).left);
+                        }
                     }
                 }
-                for (var input : releasedSnapshot) {
-                    if (input instanceof KeyInput) {
-                        e.onKeyRelease(((KeyInput) input).keyName, ((KeyInput) input).keyChar);
-                    } else if (input instanceof MouseInput) {
-                        e.onMouseButtonRelease(mx, my, ((MouseInput) input).left);
+                if ((mask & (EventListener.KEY_RELEASE | EventListener.MOUSE_BUTTON_RELEASE)) != 0) {
+                    for (var input : releasedSnapshot) {
+                        if (input instanceof KeyInput) {
+                            if ((mask & EventListener.KEY_RELEASE) != 0) {
+                                e.onKeyRelease(((KeyInput) input).keyName, ((KeyInput) input).keyChar);
+                            }
+                        } else if (input instanceof MouseInput && (mask & EventListener.MOUSE_BUTTON_RELEASE) != 0) {
+                            e.onMouseButtonRelease(mx, my, ((MouseInput) input).left);
+                        }
                     }
                 }
-                if (mx != prevMouseX || my != prevMouseY) {
+                if ((mask & EventListener.MOUSE_MOVE) != 0 && (mx != prevMouseX || my != prevMouseY)) {
                     e.onMouseMove(mx, my, prevMouseX, prevMouseY);
                 }
             }
             if (comp instanceof Drawable) {
                 var d = (Drawable) comp;
                 resetSettings();
+                resetTransform();
                 d.draw(this);
             }
         }
 
-        // restore settings
-        setColor(prevColor);
-        setStrokeWidth(prevStrokeWidth);
-        setRoundStroke(prevRoundStroke);
-        setFontFamily(prevFontFamily);
-        setFontSize(prevFontSize);
-        setBold(prevBold);
-        setItalic(prevItalic);
-        setTextAlign(prevTextAlign.toInt());
-        setLineSpacing(prevLineSpacing);
-        setAlpha(prevAlpha);
-        setNearestNeighborInterpolation(prevNearestNeighborInterpolation);
+        // restore settings, ignoring any that components pushed and did not pop
+        while (settingsStack.size() > stackSize + 1) {
+            settingsStack.pop();
+        }
+        popSettings();
+        while (transformStack.size() > transformStackSize + 1) {
+            transformStack.pop();
+        }
+        popTransform();
     }
 
     @Override
@@ -197,19 +261,44 @@ public abstract class GuiBase implements Gui {
             }
         }
         lastRefreshTime = System.nanoTime();
+        lastWaitTime = waitTime;
 
-        pressedSnapshot.clear();
+        events.clear();
         releasedSnapshot.clear();
+        typedKeys.clear();
         prevMouseX = mouseXSnapshot;
         prevMouseY = mouseYSnapshot;
-        synchronized (inputLock) {
-            pressedSnapshot.addAll(pressedInputs);
-            releasedSnapshot.addAll(releasedInputs);
-            releasedInputs.clear();
-
-            mouseXSnapshot = mouseX;
-            mouseYSnapshot = mouseY;
+        inputQueue.drainTo(events);
+        mouseTrail.clear();
+        for (var event : events) {
+            switch (event.type) {
+                case KEY_PRESS:
+                    pressedSnapshot.add(new KeyInput(event.keyName, event.keyCode, event.keyChar));
+                    pressedKeys.set(event.keyCode);
+                    break;
+                case MOUSE_PRESS:
+                    pressedSnapshot.add(new MouseInput(event.leftButton));
+                    break;
+                case KEY_RELEASE:
+                case MOUSE_RELEASE:
+                    var input = event.type == KEY_RELEASE
+                            ? new KeyInput(event.keyName, event.keyCode, event.keyChar)
+                            : new MouseInput(event.leftButton);
+                    pressedSnapshot.remove(input);
+                    releasedSnapshot.add(input);
+                    if (event.type == KEY_RELEASE) {
+                        pressedKeys.clear(event.keyCode);
+                        typedKeys.set(event.keyCode);
+                    }
+                    break;
+            }
+            if (event.isMouseEvent()) {
+                mouseXSnapshot = event.x;
+                mouseYSnapshot = event.y;
+                mouseTrail.add(event.x, event.y, event.time, mouseTrailCoalescing);
+            }
         }
+        mouseTrail.finish();
 
         runComponents();
         repaint(clear);
@@ -218,14 +307,15 @@ public abstract class GuiBase implements Gui {
     protected abstract void repaint(boolean clear);
 
     @Override
-    public void addComponent(Component component) {
+    public void addComponent(Component component, int zOrder) {
         if (component == null) {
             throw new IllegalArgumentException("component must not be null");
         }
-        if (components.stream().anyMatch(c -> c == component)) {
+        if (zOrders.containsKey(component)) {
             throw new IllegalArgumentException("component already added");
         }
-        components.add(component);
+        zOrders.put(component, zOrder);
+        pendingAdds.add(component);
     }
 
     @Override
@@ -233,165 +323,354 @@ public abstract class GuiBase implements Gui {
         if (component == null) {
             throw new IllegalArgumentException("component must not be null");
         }
-        if (!components.remove(component)) {
+        if (zOrders.remove(component) == null) {
             throw new IllegalArgumentException("component not present");
         }
+        pendingRemoves.add(component);
+        if (component == focus) {
+            setFocus(null);
+        }
     }
 
-    /*
-     * Paint settings
-     */
-
     @Override
-    public void setColor(Color color) {
-        this.color = color;
+    public void setZOrder(Component component, int zOrder) {
+        checkPresent(component);
+        zOrders.put(component, zOrder);
+        pendingRemoves.add(component);
+        pendingAdds.add(component);
     }
 
     @Override
-    public Color getColor() {
-        return color;
+    public int getZOrder(Component component) {
+        checkPresent(component);
+        return zOrders.get(component);
     }
 
     @Override
-    public void setStrokeWidth(double strokeWidth) {
-        this.strokeWidth = strokeWidth;
+    public void setFocus(EventListener listener) {
+        if (listener != null) {
+            checkPresent(listener);
+        }
+        if (listener != focus) {
+            var prev = focus;
+            focus = listener;
+            if (prev != null) {
+                prev.onFocusLoss();
+            }
+            if (listener != null) {
+                listener.onFocusGain();
+            }
+        }
     }
 
     @Override
-    public double getStrokeWidth() {
-        return strokeWidth;
+    public EventListener getFocus() {
+        return focus;
     }
 
-    @Override
-    public void setRoundStroke(boolean roundStroke) {
-        this.roundStroke = roundStroke;
+    private void checkPresent(Component component) {
+        if (component == null) {
+            throw new IllegalArgumentException("component must not be null");
+        }
+        if (!zOrders.containsKey(component)) {
+            throw new IllegalArgumentException("component not present");
+        }
     }
 
-    @Override
-    public boolean isRoundStroke() {
-        return roundStroke;
+    /**
+     * Applies the pending additions and removals to the list of components,
+     * in time linear in the number of components (plus sorting the added
+     * ones). Removed components (including the ones whose z-order changed)
+     * are dropped in a single pass; added ones are merged in, behind
+     * components with a higher z-order and in front of all others. In the
+     * common case, where all added components have the highest z-order, they
+     * are simply appended.
+     */
+    private void applyPendingChanges() {
+        if (!pendingRemoves.isEmpty()) {
+            // compact the components and their event masks in place
+            int size = 0;
+            for (int i = 0; i < components.size(); i++) {
+                var comp = components.get(i);
+                if (!pendingRemoves.contains(comp)) {
+                    components.set(size, comp);
+                    eventMasks[size++] = eventMasks[i];
+                }
+            }
+            components.subList(size, components.size()).clear();
+            if (!updatables.isEmpty()) {
+                updatables.removeIf(pendingRemoves::contains);
+            }
+            pendingRemoves.clear();
+        }
+        if (!pendingAdds.isEmpty()) {
+            mergePendingAdds();
+        }
     }
 
-    @Override
-    public void setFontFamily(String fontFamily) {
-        this.fontFamily = fontFamily;
+    private void mergePendingAdds() {
+        // skip components that were removed again, or added multiple times
+        // (e.g., when the z-order changed twice)
+        var added = new ArrayList<Component>(pendingAdds.size());
+        var seen = newSetFromMap(new IdentityHashMap<>());
+        for (var c : pendingAdds) {
+            if (zOrders.containsKey(c) && seen.add(c)) {
+                added.add(c);
+                if (c instanceof Updatable) {
+                    updatables.add((Updatable) c);
+                }
+            }
+        }
+        pendingAdds.clear();
+        if (added.isEmpty()) {
+            return;
+        }
+        added.sort(comparingInt(zOrders::get)); // stable
+        var size = components.size() + added.size();
+        if (components.isEmpty() || zOrders.get(components.get(components.size() - 1))
+                                    <= zOrders.get(added.get(0))) {
+            if (eventMasks.length < size) {
+                eventMasks = Arrays.copyOf(eventMasks, max(size, 2 * eventMasks.length));
+            }
+            for (var c : added) {
+                eventMasks[components.size()] = eventMask(c);
+                components.add(c);
+            }
+        } else {
+            var merged = new ArrayList<Component>(size);
+            var mergedMasks = new int[max(size, eventMasks.length)];
+            int i = 0, j = 0;
+            while (i < components.size() || j < added.size()) {
+                if (j == added.size() || i < components.size()
+                        && zOrders.get(components.get(i)) <= zOrders.get(added.get(j))) {
+                    mergedMasks[merged.size()] = eventMasks[i];
+                    merged.add(components.get(i++));
+                } else {
+                    mergedMasks[merged.size()] = eventMask(added.get(j));
+                    merged.add(added.get(j++));
+                }
+            }
+            components = merged;
+            eventMasks = mergedMasks;
+        }
     }
 
-    @Override
-    public String getFontFamily() {
-        return fontFamily;
+    private static int eventMask(Component comp) {
+        return comp instanceof EventListener ? ((EventListener) comp).getSubscribedEvents() : 0;
     }
 
-    @Override
-    public void setFontSize(int fontSize) {
-        this.fontSize = fontSize;
+    /**
+     * Calls the update methods of all {@link Updatable} components. If there
+     * are enough of them, they are split into batches that are updated
+     * concurrently using the common {@link ForkJoinPool}; the method returns
+     * when all updates are done.
+     */
+    private void updateComponents() {
+        var input = InputSnapshot.of(this);
+        if (updatables.size() < 2 * UPDATE_BATCH_SIZE || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            for (var u : updatables) {
+                u.update(input);
+            }
+        } else {
+            ForkJoinPool.commonPool().invoke(new UpdateAction(updatables, input, 0, updatables.size()));
+        }
     }
 
-    @Override
-    public int getFontSize() {
-        return fontSize;
+    /**
+     * Updates a range of components, splitting it in halves until the
+     * batches are small enough.
+     */
+    private static class UpdateAction extends RecursiveAction {
+
+        private final List<Updatable> updatables;
+        private final InputSnapshot input;
+        private final int from;
+        private final int to;
+
+        UpdateAction(List<Updatable> updatables, InputSnapshot input, int from, int to) {
+            this.updatables = updatables;
+            this.input = input;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > UPDATE_BATCH_SIZE) {
+                var mid = (from + to) >>> 1;
+                invokeAll(new UpdateAction(updatables, input, from, mid),
+                        new UpdateAction(updatables, input, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                updatables.get(i).update(input);
+            }
+        }
     }
 
     @Override
-    public void setBold(boolean bold) {
-        this.bold = bold;
+    public void loadFont(String path) {
+        try (var res = getClass().getClassLoader().getResourceAsStream(path);
+             var stream = res != null ? res : Files.newInputStream(Path.of(path))) {
+            var font = Font.createFont(TRUETYPE_FONT, stream);
+            var success = getLocalGraphicsEnvironment().registerFont(font);
+            if (!success) {
+                throw new Error("could not register font \"" + font.getFontName() + "\" (conflicting name?)");
+            }
+        } catch (IOException | FontFormatException e) {
+            throw new Error("could not load font \"" + path + "\"", e);
+        }
     }
 
-    @Override
-    public boolean isBold() {
-        return bold;
+    /**
+     * Returns the image with the given path, which subclasses that keep
+     * loaded images in a cache should return from there. By default, the
+     * image is loaded again using {@link #loadImage(String)}.
+     */
+    protected Image cachedImage(String path) {
+        return loadImage(path);
     }
 
     @Override
-    public void setItalic(boolean italic) {
-        this.italic = italic;
+    public Shape getImageShape(String path, double x, double y, double scale, double angle) {
+        return imageShape(path, x, y, scale, angle, false);
     }
 
     @Override
-    public boolean isItalic() {
-        return italic;
+    public Shape getImageShapeCentered(String path, double x, double y, double scale, double angle) {
+        return imageShape(path, x, y, scale, angle, true);
     }
 
-    @Override
-    public void setTextAlign(int textAlign) {
-        this.textAlign = TextAlign.fromInt(textAlign);
+    private Shape imageShape(String path, double x, double y, double scale, double angle, boolean centered) {
+        var shape = imageShapes.computeIfAbsent(path, p -> ImageShape.of(cachedImage(p)));
+        return shape.transformed(transformed(imageTransform(shape.getImageWidth(), shape.getImageHeight(),
+                x, y, scale, angle, centered)));
     }
 
     @Override
-    public int getTextAlign() {
-        return textAlign.toInt();
+    public void setRenderQuality(String quality) {
+        if (!RENDER_QUALITIES.contains(quality)) {
+            throw new IllegalArgumentException("unknown render quality: " + quality);
+        }
+        this.renderQuality = quality;
     }
 
     @Override
-    public void setLineSpacing(double lineSpacing) {
-        this.lineSpacing = clampPositive(lineSpacing);
+    public String getRenderQuality() {
+        return renderQuality;
     }
 
-    protected final double clampPositive(double d) {
-        if (isFinite(d)) {
-            return max(0, d);
-        } else {
-            return Double.MAX_VALUE;
+    /*
+     * Input events (may be called by any thread)
+     */
+
+    protected void keyPressed(String keyName, char keyChar) {
+        keyPressed(checkedCode(keyName), keyChar);
+    }
+
+    protected void keyReleased(String keyName, char keyChar) {
+        keyReleased(checkedCode(keyName), keyChar);
+    }
+
+    protected void keyPressed(int keyCode, char keyChar) {
+        inputQueue.add(InputEvent.key(true, checkedName(keyCode), keyCode, keyChar, System.nanoTime()));
+    }
+
+    protected void keyReleased(int keyCode, char keyChar) {
+        inputQueue.add(InputEvent.key(false, checkedName(keyCode), keyCode, keyChar, System.nanoTime()));
+    }
+
+    private static int checkedCode(String keyName) {
+        var code = Keys.code(keyName);
+        if (code < 0) {
+            throw new IllegalArgumentException("key \"" + keyName + "\" does not exist");
         }
+        return code;
     }
 
-    @Override
-    public double getLineSpacing() {
-        return lineSpacing;
+    private static String checkedName(int keyCode) {
+        var name = Keys.name(keyCode);
+        if (name == null) {
+            throw new IllegalArgumentException("key code " + keyCode + " does not exist");
+        }
+        return name;
     }
 
-    @Override
-    public void setAlpha(double alpha) {
-        this.alpha = max(0, min(1, alpha));
+    protected void mouseButtonPressed(boolean left, int x, int y) {
+        inputQueue.add(InputEvent.mouseButton(true, left, x, y, System.nanoTime()));
     }
 
+    protected void mouseButtonReleased(boolean left, int x, int y) {
+        inputQueue.add(InputEvent.mouseButton(false, left, x, y, System.nanoTime()));
+    }
+
+    protected void mouseMoved(int x, int y) {
+        inputQueue.add(InputEvent.mouseMove(x, y, System.nanoTime()));
+    }
+
+    /*
+     * Input
+     */
+
     @Override
-    public double getAlpha() {
-        return alpha;
+    public List<InputEvent> getInputEvents() {
+        return unmodifiableList(events);
     }
 
     @Override
-    public void setNearestNeighborInterpolation(boolean nearestNeighborInterpolation) {
-        this.nearestNeighborInterpolation = nearestNeighborInterpolation;
+    public MouseTrail getMouseTrail() {
+        return mouseTrail;
     }
 
     @Override
-    public boolean isNearestNeighborInterpolation() {
-        return nearestNeighborInterpolation;
+    public void setMouseTrailCoalescing(double distance) {
+        if (!(distance >= 0)) {
+            throw new IllegalArgumentException("illegal coalescing distance: " + distance);
+        }
+        mouseTrailCoalescing = distance;
     }
 
-    /*
-     * Input
-     */
+    @Override
+    public double getMouseTrailCoalescing() {
+        return mouseTrailCoalescing;
+    }
 
     @Override
     public List<String> getPressedKeys() {
-        return pressedSnapshot.stream()
-                .filter(i -> i instanceof KeyInput)
-                .map(i -> ((KeyInput) i).keyName)
-                .collect(toList());
+        return keyNames(pressedKeys);
     }
 
     @Override
     public List<String> getTypedKeys() {
-        return releasedSnapshot.stream()
-                .filter(i -> i instanceof KeyInput)
-                .map(i -> ((KeyInput) i).keyName)
-                .collect(toList());
+        return keyNames(typedKeys);
+    }
+
+    private static List<String> keyNames(BitSet keys) {
+        var names = new ArrayList<String>(keys.cardinality());
+        for (int code = keys.nextSetBit(0); code >= 0; code = keys.nextSetBit(code + 1)) {
+            names.add(Keys.name(code));
+        }
+        return names;
     }
 
     @Override
     public boolean isKeyPressed(String keyName) {
-        return pressedSnapshot.stream()
-                .anyMatch(i -> i instanceof KeyInput &&
-                               ((KeyInput) i).keyName.equalsIgnoreCase(keyName));
+        return isKeyPressed(Keys.code(keyName));
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return keyCode >= 0 && pressedKeys.get(keyCode);
     }
 
     @Override
     public boolean wasKeyTyped(String keyName) {
-        return releasedSnapshot.stream()
-                .anyMatch(i -> i instanceof KeyInput &&
-                               ((KeyInput) i).keyName.equalsIgnoreCase(keyName));
+        return wasKeyTyped(Keys.code(keyName));
+    }
+
+    @Override
+    public boolean wasKeyTyped(int keyCode) {
+        return keyCode >= 0 && typedKeys.get(keyCode);
     }
 
     @Override
@@ -424,43 +703,32 @@ public abstract class GuiBase implements Gui {
         return mouseYSnapshot;
     }
 
-    protected enum TextAlign {
-        LEFT, CENTER, RIGHT;
-
-        public static TextAlign fromInt(int textAlign) {
-            return values()[signum(textAlign) + 1];
-        }
-
-        public int toInt() {
-            return ordinal() - 1;
-        }
-    }
-
     protected static class Input {}
 
+    /**
+     * A pressed or released key. Two instances are equal if they have the
+     * same key code, so that the release of a key matches its press even if
+     * the key char differs, e.g., because Shift was pressed in between.
+     */
     protected static final class KeyInput extends Input {
         private final String keyName;
+        private final int keyCode;
         private final char keyChar;
 
-        public KeyInput(String keyName, char keyChar) {
+        public KeyInput(String keyName, int keyCode, char keyChar) {
             this.keyName = keyName.toLowerCase(ROOT);
+            this.keyCode = keyCode;
             this.keyChar = keyChar;
         }
 
         @Override
         public boolean equals(Object o) {
-            if (this == o) {
-                return true;
-            } else if (!(o instanceof KeyInput)) {
-                return false;
-            }
-            var keyInput = (KeyInput) o;
-            return keyChar == keyInput.keyChar && keyName.equals(keyInput.keyName);
+            return this == o || o instanceof KeyInput && keyCode == ((KeyInput) o).keyCode;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(keyName, keyChar);
+            return keyCode;
         }
     }
 
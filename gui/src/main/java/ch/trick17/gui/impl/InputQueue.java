@@ -0,0 +1,113 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.InputEvent;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static ch.trick17.gui.InputEvent.Type.MOUSE_MOVE;
+
+/**
+ * A lock-free queue for input events with multiple producers (usually only
+ * the event dispatch thread) and a single consumer (the thread that refreshes
+ * the GUI). Events are stored in a ring buffer: a producer claims a position
+ * by atomically incrementing the tail and then publishes the event in the
+ * corresponding slot. The consumer takes events in the order of their
+ * positions, stopping at the first slot that has been claimed but not
+ * published yet, so the order is preserved.
+ * <p>
+ * If the ring buffer is full (e.g., because the GUI is not refreshed for a
+ * while, or never, as in programs that only use components), mouse moves are
+ * dropped, except for the latest one, which is appended when the queue is
+ * drained next, so the mouse position is still up to date. Key and mouse
+ * button events are stored in an overflow map instead, keyed by their
+ * position, up to {@link #MAX_OVERFLOW} events. The consumer looks for an
+ * event in the map if its slot is empty, so the order is still preserved.
+ */
+final class InputQueue {
+
+    static final int DEFAULT_CAPACITY = 1024;
+    // far more key and button events than a user generates in minutes
+    static final int MAX_OVERFLOW = 1 << 16;
+
+    private final AtomicReferenceArray<InputEvent> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // next position to claim
+    private volatile long head; // next position to take, only written by the consumer
+    private final Map<Long, InputEvent> overflow = new ConcurrentHashMap<>();
+    private final AtomicReference<InputEvent> droppedMove = new AtomicReference<>();
+
+    InputQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    InputQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the given event. May be called by any thread.
+     */
+    void add(InputEvent event) {
+        if (tail.get() - head > mask
+            && (event.type == MOUSE_MOVE || overflow.size() >= MAX_OVERFLOW)) {
+            // drop without claiming a position, so the consumer does not
+            // wait for it. Concurrent producers may still claim positions
+            // beyond the ring buffer, but at most one event each.
+            if (event.type == MOUSE_MOVE) {
+                droppedMove.set(event);
+            }
+            return;
+        }
+        var pos = tail.getAndIncrement();
+        if (pos - head > mask) {
+            overflow.put(pos, event); // ring buffer full
+        } else {
+            slots.lazySet((int) pos & mask, event);
+        }
+    }
+
+    /**
+     * Moves all available events to the given collection, in order. Must only
+     * be called by the consumer thread.
+     */
+    void drainTo(Collection<? super InputEvent> events) {
+        var dropped = droppedMove.getAndSet(null);
+        var lastMoveTime = Long.MIN_VALUE;
+        var pos = head;
+        while (true) {
+            var index = (int) pos & mask;
+            var event = slots.get(index);
+            if (event != null) {
+                slots.lazySet(index, null);
+            } else if (overflow.isEmpty() || (event = overflow.remove(pos)) == null) {
+                break; // not published yet (or empty)
+            }
+            events.add(event);
+            if (event.type == MOUSE_MOVE) {
+                lastMoveTime = event.time;
+            }
+            pos++;
+        }
+        head = pos;
+        if (dropped != null && dropped.time >= lastMoveTime) {
+            events.add(dropped);
+        }
+    }
+
+    /**
+     * Returns the number of events currently stored in this queue, not
+     * counting the latest dropped mouse move.
+     */
+    int size() {
+        return (int) (tail.get() - head);
+    }
+}
@@ -0,0 +1,273 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.component.Component;
+import ch.trick17.gui.component.Drawable;
+import ch.trick17.gui.component.EventListener;
+import ch.trick17.gui.component.Interactive;
+import ch.trick17.gui.component.Shape;
+
+import java.util.*;
+
+import static java.lang.Math.floor;
+
+/**
+ * A uniform grid over the interactive areas of the components of a GUI,
+ * which allows finding the components under the mouse by only testing the
+ * areas in the grid cell that contains the mouse position.
+ * <p>
+ * The index also keeps track of which components are hovered, so that
+ * information is forgotten when a component is removed from the GUI.
+ * <p>
+ * The index is updated incrementally: for each frame, the interactive area
+ * of each component is queried once, and only components whose area changed
+ * (i.e., a different object that does not have the same
+ * {@linkplain Shape#getBounds() bounds}) are moved to other cells. Areas whose
+ * bounds are unknown or that span many cells are kept in a separate list,
+ * which is tested for every query. The state needed for every component in
+ * every frame is kept in arrays indexed by the position of the component, so
+ * the common case (same components, same areas) does not need any lookups.
+ */
+final class InteractiveIndex {
+
+    static final double CELL_SIZE = 64;
+    private static final int MAX_CELLS_PER_AREA = 256;
+
+    private final Map<Interactive, Entry> entries = new IdentityHashMap<>();
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private final List<Entry> unbounded = new ArrayList<>();
+
+    // by position in the list of components passed to the last update
+    // (areas and entries are null for non-interactive components)
+    private Component[] components = new Component[0];
+    private Shape[] areas = new Shape[0];
+    private Entry[] positions = new Entry[0];
+    private final BitSet hits = new BitSet();
+    private final BitSet hovered = new BitSet();
+    private final BitSet passive = new BitSet();
+    // entries replaced at their position during an update, which may have
+    // been removed
+    private final List<Entry> displaced = new ArrayList<>();
+
+    /**
+     * Updates the index to the current interactive areas of the given
+     * components. Components that are no longer in the list are removed.
+     */
+    void update(List<Component> components, Gui gui) {
+        var size = components.size();
+        if (this.components.length != size) {
+            for (int i = size; i < positions.length; i++) {
+                if (positions[i] != null) {
+                    displaced.add(positions[i]);
+                }
+            }
+            this.components = Arrays.copyOf(this.components, size);
+            areas = Arrays.copyOf(areas, size);
+            positions = Arrays.copyOf(positions, size);
+            hovered.clear(size, Integer.MAX_VALUE);
+            passive.clear(size, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < size; i++) {
+            var comp = components.get(i);
+            if (comp != this.components[i]) {
+                // component added or moved to a different position
+                place(comp, i);
+            }
+            var entry = positions[i];
+            if (entry != null) {
+                var area = ((Interactive) comp).getInteractiveArea(gui);
+                if (area != areas[i]) {
+                    if (!sameBounds(areas[i], area)) {
+                        remove(entry);
+                        insert(entry, area);
+                    }
+                    entry.area = area;
+                    areas[i] = area;
+                }
+            }
+        }
+
+        // displaced entries that were not placed anywhere else are removed
+        for (var entry : displaced) {
+            if (entry.position >= size || positions[entry.position] != entry) {
+                if (entries.remove(entry.component) != null) {
+                    remove(entry);
+                }
+            }
+        }
+        displaced.clear();
+    }
+
+    private void place(Component comp, int position) {
+        if (positions[position] != null) {
+            displaced.add(positions[position]);
+        }
+        components[position] = comp;
+        if (comp instanceof Interactive) {
+            var interactive = (Interactive) comp;
+            var entry = entries.computeIfAbsent(interactive, Entry::new);
+            entry.position = position;
+            positions[position] = entry;
+            areas[position] = entry.area; // null for new entries, which are inserted then
+            hovered.set(position, entry.hovered);
+            passive.set(position, !(comp instanceof EventListener || comp instanceof Drawable));
+        } else {
+            positions[position] = null;
+            areas[position] = null;
+            hovered.clear(position);
+            passive.clear(position);
+        }
+    }
+
+    /**
+     * Finds the components whose interactive area contains the given point,
+     * which can then be queried using {@link #isHit(int)}. Only the areas in
+     * the grid cell that contains the point (and the unbounded ones) are
+     * tested.
+     */
+    void hitTest(double x, double y) {
+        hits.clear();
+        var cell = cells.get(key(cell(x), cell(y)));
+        if (cell != null) {
+            for (var entry : cell) {
+                if (areas[entry.position].contains(x, y)) {
+                    hits.set(entry.position);
+                }
+            }
+        }
+        for (var entry : unbounded) {
+            if (areas[entry.position].contains(x, y)) {
+                hits.set(entry.position);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the interactive area of the component at the given
+     * position in the list passed to the last {@link #update} contains the
+     * point passed to the last {@link #hitTest}.
+     */
+    boolean isHit(int position) {
+        return hits.get(position);
+    }
+
+    /**
+     * Returns the highest position that is not greater than the given one
+     * and whose component was hit by the last {@link #hitTest}, or -1 if there
+     * is none. Used to visit hit components from front to back.
+     */
+    int lastHit(int position) {
+        return position < 0 ? -1 : hits.previousSetBit(position);
+    }
+
+    /**
+     * Returns whether the component at the given position is hovered, i.e.,
+     * whether the mouse entered its area (and has not exited it yet).
+     */
+    boolean isHovered(int position) {
+        return hovered.get(position);
+    }
+
+    /**
+     * Returns whether the component at the given position is neither an
+     * {@link EventListener} nor {@link Drawable}, in which case it does not
+     * need to be visited unless it is hit or hovered.
+     */
+    boolean isPassive(int position) {
+        return passive.get(position);
+    }
+
+    void setHovered(int position, boolean hovered) {
+        positions[position].hovered = hovered;
+        this.hovered.set(position, hovered);
+    }
+
+    private void insert(Entry entry, Shape area) {
+        var r = area.getBounds();
+        if (r == null) {
+            addUnbounded(entry);
+            return;
+        }
+        entry.minCol = cell(r.getLeftX());
+        entry.maxCol = cell(r.getRightX());
+        entry.minRow = cell(r.getTopY());
+        entry.maxRow = cell(r.getBottomY());
+        var cellCount = ((long) entry.maxCol - entry.minCol + 1) * ((long) entry.maxRow - entry.minRow + 1);
+        if (cellCount > MAX_CELLS_PER_AREA || cellCount <= 0) {
+            addUnbounded(entry);
+            return;
+        }
+        entry.cellCount = (int) cellCount;
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int col = entry.minCol; col <= entry.maxCol; col++) {
+                cells.computeIfAbsent(key(col, row), k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    private void addUnbounded(Entry entry) {
+        entry.cellCount = -1;
+        entry.unboundedIndex = unbounded.size();
+        unbounded.add(entry);
+    }
+
+    private void remove(Entry entry) {
+        if (entry.cellCount == 0) {
+            return; // not inserted yet
+        }
+        if (entry.cellCount < 0) {
+            // move the last entry into the gap, as the order does not matter
+            var last = unbounded.remove(unbounded.size() - 1);
+            if (last != entry) {
+                unbounded.set(entry.unboundedIndex, last);
+                last.unboundedIndex = entry.unboundedIndex;
+            }
+            return;
+        }
+        for (int row = entry.minRow; row <= entry.maxRow; row++) {
+            for (int col = entry.minCol; col <= entry.maxCol; col++) {
+                var key = key(col, row);
+                var cell = cells.get(key);
+                cell.remove(entry);
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private static boolean sameBounds(Shape a, Shape b) {
+        if (a == null) {
+            return false;
+        }
+        var r1 = a.getBounds();
+        var r2 = b.getBounds();
+        if (r1 == null || r2 == null) {
+            return false;
+        }
+        return r1.getLeftX() == r2.getLeftX() && r1.getTopY() == r2.getTopY()
+               && r1.getWidth() == r2.getWidth() && r1.getHeight() == r2.getHeight();
+    }
+
+    private static int cell(double coordinate) {
+        return (int) floor(coordinate / CELL_SIZE);
+    }
+
+    private static long key(int col, int row) {
+        return (long) col << 32 | row & 0xFFFFFFFFL;
+    }
+
+    private static final class Entry {
+        final Interactive component;
+        Shape area; // the same as in the areas array, but kept when moved
+        int position; // in the list passed to the last update
+        int minCol, maxCol, minRow, maxRow;
+        int cellCount; // -1 if in the unbounded list, 0 if not inserted yet
+        int unboundedIndex; // position in the unbounded list, if in there
+        boolean hovered;
+
+        Entry(Interactive component) {
+            this.component = component;
+        }
+    }
+}
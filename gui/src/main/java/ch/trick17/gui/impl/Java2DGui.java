@@ -0,0 +1,576 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.Color;
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.impl.CommandBuffer.Submission;
+
+import java.awt.*;
+import java.awt.RenderingHints.Key;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static ch.trick17.gui.impl.CommandRecorder.QUALITY_ANTIALIASING;
+import static java.awt.Color.WHITE;
+import static java.awt.RenderingHints.*;
+import static java.lang.Math.*;
+import static java.util.Arrays.copyOf;
+import static java.util.Comparator.comparingInt;
+
+/**
+ * Base class for implementations of {@link Gui} that paint using Java2D. All
+ * drawing operations are recorded as commands that operate on a
+ * {@link Graphics2D} object (see {@link CommandRecorder}); subclasses decide
+ * where and when these commands are executed.
+ */
+public abstract class Java2DGui extends GuiBase {
+
+    // transform and clip before the commands of a command buffer were painted
+    private static final Key SAVED_STATE = new Key(165191052) {
+        public boolean isCompatibleValue(Object val) {
+            return val instanceof Object[];
+        }
+    };
+
+    protected static final Map<Key, Object> SPEED_HINTS =
+            hints(VALUE_RENDER_SPEED, VALUE_STROKE_NORMALIZE, VALUE_ANTIALIAS_OFF);
+    protected static final Map<Key, Object> BALANCED_HINTS =
+            hints(VALUE_RENDER_DEFAULT, VALUE_STROKE_NORMALIZE, VALUE_ANTIALIAS_ON);
+    protected static final Map<Key, Object> QUALITY_HINTS =
+            hints(VALUE_RENDER_QUALITY, VALUE_STROKE_PURE, VALUE_ANTIALIAS_ON);
+
+    // levels of the "auto" render quality, from lowest to highest
+    private static final List<Map<Key, Object>> AUTO_LEVELS = List.of(SPEED_HINTS, BALANCED_HINTS, QUALITY_HINTS);
+    private static final double DEFAULT_FRAME_BUDGET = 1000.0 / 60; // millis
+    private static final int DOWNGRADE_FRAMES = 3;
+    private static final int MIN_UPGRADE_FRAMES = 60;
+    private static final int MAX_UPGRADE_FRAMES = 3600;
+
+    private static Map<Key, Object> hints(Object rendering, Object strokeControl, Object antialiasing) {
+        return Map.of(
+                KEY_RENDERING, rendering,
+                KEY_STROKE_CONTROL, strokeControl,
+                KEY_ANTIALIASING, antialiasing,
+                QUALITY_ANTIALIASING, antialiasing);
+    }
+
+    private final CommandRecorder recorder;
+
+    private final Queue<Submission> submissions = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bufferSequence = new AtomicLong();
+
+    // state of the "auto" render quality; the level is read by the main thread
+    // and the rest is only accessed by the thread that paints the frames. To
+    // reset the state, the main thread increments the generation, and the
+    // painting thread resets its counters when it notices the change.
+    private volatile int autoLevel = AUTO_LEVELS.size() - 1;
+    private volatile int autoGeneration;
+    private int seenAutoGeneration;
+    private int slowFrames;
+    private int fastFrames;
+    private int framesSinceUpgrade = MAX_UPGRADE_FRAMES;
+    private int upgradeFrames = MIN_UPGRADE_FRAMES;
+
+    public Java2DGui(String title, int width, int height) {
+        super(title, width, height);
+        recorder = new CommandRecorder(this, this);
+    }
+
+    /**
+     * Returns a snapshot of the commands recorded so far. If
+     * <code>clear</code> is <code>true</code>, a new list of commands is
+     * started afterward.
+     */
+    protected Snapshot takeSnapshot(boolean clear) {
+        mergeSubmissions();
+        if (clear) {
+            var cover = recorder.cover;
+            return new Snapshot(recorder.restart(), cover, renderingHints());
+        } else {
+            return new Snapshot(new ArrayList<>(recorder.commands), recorder.cover, renderingHints());
+        }
+    }
+
+    /**
+     * Returns the commands recorded so far and starts a new list of commands,
+     * for subclasses that paint the commands onto an image that is kept
+     * across frames. The size of that image is passed to this method, so
+     * later commands only occlude the image if they cover all of it.
+     */
+    protected List<Consumer<Graphics2D>> takeCommands(double imageWidth, double imageHeight) {
+        mergeSubmissions();
+        var commands = recorder.restart();
+        recorder.drawnMaxX = imageWidth;
+        recorder.drawnMaxY = imageHeight;
+        return commands;
+    }
+
+    /**
+     * Creates a buffer for recording drawing commands on another thread. The
+     * commands that are {@linkplain CommandBuffer#submit() submitted} are
+     * merged into the next frame when this GUI is refreshed. Commands of
+     * buffers with a negative layer are painted below the commands drawn
+     * directly on this GUI, those of buffers with a layer of 0 or more are
+     * painted above them. Within the same layer, the commands of buffers
+     * created earlier are painted first.
+     * <p>
+     * Note that the drawing methods of this GUI itself must still be called
+     * by a single thread.
+     */
+    public CommandBuffer createCommandBuffer(int layer) {
+        return new CommandBuffer(this, layer, bufferSequence.getAndIncrement());
+    }
+
+    void submit(CommandBuffer buffer, List<Consumer<Graphics2D>> commands) {
+        submissions.add(new Submission(buffer.layer, buffer.sequence, commands));
+    }
+
+
+    /**
+     * Merges the commands submitted by command buffers since the last call
+     * into the recorded commands, in the order described in
+     * {@link #createCommandBuffer(int)}. Since the settings of the buffers
+     * are independent of the settings of this GUI, the latter are applied
+     * again after commands of other buffers have been merged.
+     */
+    private void mergeSubmissions() {
+        if (submissions.isEmpty()) {
+            return;
+        }
+        var sorted = new ArrayList<Submission>();
+        for (Submission s; (s = submissions.poll()) != null; ) {
+            sorted.add(s);
+        }
+        sorted.sort(comparingInt((Submission s) -> s.layer).thenComparingLong(s -> s.sequence));
+        var below = new ArrayList<Consumer<Graphics2D>>();
+        var above = new ArrayList<Consumer<Graphics2D>>();
+        for (var submission : sorted) {
+            var target = submission.layer < 0 ? below : above;
+            target.add(g -> g.setRenderingHint(SAVED_STATE, new Object[]{g.getTransform(), g.getClip()}));
+            target.addAll(submission.commands);
+            target.add(g -> {
+                // custom commands of the buffer may have changed these
+                var state = (Object[]) g.getRenderingHint(SAVED_STATE);
+                g.setTransform((AffineTransform) state[0]);
+                g.setClip((Shape) state[1]);
+            });
+        }
+        recorder.merge(below, above);
+    }
+
+    /**
+     * Returns the rendering hints for the current render quality. For the
+     * "auto" quality, these depend on the paint times reported to
+     * {@link #framePainted(long)}.
+     */
+    protected Map<Key, Object> renderingHints() {
+        switch (renderQuality) {
+            case "speed":
+                return SPEED_HINTS;
+            case "balanced":
+                return BALANCED_HINTS;
+            case "auto":
+                return AUTO_LEVELS.get(autoLevel);
+            default:
+                return QUALITY_HINTS;
+        }
+    }
+
+    /**
+     * Reports the time it took to paint a frame, which the "auto" render
+     * quality compares to the frame budget, i.e., the wait time passed to the
+     * last <code>refresh...()</code> call (or 1/60 s if that was 0). After a
+     * few frames over budget, the quality is lowered by one level; after
+     * many frames that took less than half the budget, it is raised again. If
+     * a raised quality turns out to be too slow soon afterward, the number of
+     * fast frames required for the next raise is doubled, so the quality does
+     * not keep oscillating. Must be called by the thread that paints.
+     */
+    protected void framePainted(long nanos) {
+        if (!renderQuality.equals("auto")) {
+            return;
+        }
+        var generation = autoGeneration;
+        if (generation != seenAutoGeneration) {
+            seenAutoGeneration = generation;
+            autoLevel = AUTO_LEVELS.size() - 1;
+            slowFrames = 0;
+            fastFrames = 0;
+            upgradeFrames = MIN_UPGRADE_FRAMES;
+            framesSinceUpgrade = MAX_UPGRADE_FRAMES;
+        }
+        var budget = (lastWaitTime > 0 ? lastWaitTime : DEFAULT_FRAME_BUDGET) * 1_000_000;
+        framesSinceUpgrade = min(framesSinceUpgrade + 1, MAX_UPGRADE_FRAMES);
+        if (nanos > budget) {
+            fastFrames = 0;
+            if (++slowFrames >= DOWNGRADE_FRAMES && autoLevel > 0) {
+                if (framesSinceUpgrade < upgradeFrames) {
+                    upgradeFrames = min(2 * upgradeFrames, MAX_UPGRADE_FRAMES);
+                }
+                autoLevel--;
+                slowFrames = 0;
+            }
+        } else if (nanos < budget / 2) {
+            slowFrames = 0;
+            if (++fastFrames >= upgradeFrames && autoLevel < AUTO_LEVELS.size() - 1) {
+                autoLevel++;
+                fastFrames = 0;
+                framesSinceUpgrade = 0;
+            }
+        } else {
+            slowFrames = 0;
+            fastFrames = 0;
+        }
+    }
+
+    /*
+     * Paint settings
+     */
+
+    @Override
+    public void setColor(Color color) {
+        super.setColor(color);
+        recorder.colorChanged();
+    }
+
+    @Override
+    public void setStrokeWidth(double strokeWidth) {
+        super.setStrokeWidth(strokeWidth);
+        recorder.strokeWidthChanged();
+    }
+
+    @Override
+    public void setRoundStroke(boolean roundStroke) {
+        super.setRoundStroke(roundStroke);
+        recorder.roundStrokeChanged();
+    }
+
+    @Override
+    public void setFontFamily(String fontFamily) {
+        super.setFontFamily(fontFamily);
+        recorder.fontChanged();
+    }
+
+    @Override
+    public void setFontSize(int fontSize) {
+        super.setFontSize(fontSize);
+        recorder.fontChanged();
+    }
+
+    @Override
+    public void setBold(boolean bold) {
+        super.setBold(bold);
+        recorder.fontChanged();
+    }
+
+    @Override
+    public void setItalic(boolean italic) {
+        super.setItalic(italic);
+        recorder.fontChanged();
+    }
+
+    @Override
+    public void setTextAlign(int textAlign) {
+        super.setTextAlign(textAlign);
+        recorder.textAlignChanged();
+    }
+
+    @Override
+    public void setLineSpacing(double lineSpacing) {
+        super.setLineSpacing(lineSpacing);
+        recorder.lineSpacingChanged();
+    }
+
+    @Override
+    public void setAlpha(double alpha) {
+        super.setAlpha(alpha);
+        recorder.alphaChanged();
+    }
+
+    @Override
+    public void setNearestNeighborInterpolation(boolean nearestNeighborInterpolation) {
+        super.setNearestNeighborInterpolation(nearestNeighborInterpolation);
+        recorder.interpolationChanged();
+    }
+
+    @Override
+    public void setAntialiasing(boolean antialiasing) {
+        super.setAntialiasing(antialiasing);
+        recorder.antialiasingChanged();
+    }
+
+    @Override
+    protected void applySettings(Settings settings) {
+        super.applySettings(settings);
+        recorder.settingsApplied(settings);
+    }
+
+    @Override
+    public void setRenderQuality(String quality) {
+        super.setRenderQuality(quality);
+        autoLevel = AUTO_LEVELS.size() - 1; // for the next frame already
+        autoGeneration++; // only written by this thread
+    }
+
+    /*
+     * Painting
+     */
+
+    @Override
+    public void drawRect(double x, double y, double width, double height) {
+        recorder.drawRect(x, y, width, height);
+    }
+
+    @Override
+    public void fillRect(double x, double y, double width, double height) {
+        recorder.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public void drawOval(double x, double y, double width, double height) {
+        recorder.drawOval(x, y, width, height);
+    }
+
+    @Override
+    public void fillOval(double x, double y, double width, double height) {
+        recorder.fillOval(x, y, width, height);
+    }
+
+    @Override
+    public void drawLine(double x1, double y1, double x2, double y2) {
+        recorder.drawLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawPath(double[] coordinates) {
+        recorder.drawPath(coordinates);
+    }
+
+    @Override
+    public void drawPolygon(double[] coordinates) {
+        recorder.drawPolygon(coordinates);
+    }
+
+    @Override
+    public void fillPolygon(double[] coordinates) {
+        recorder.fillPolygon(coordinates);
+    }
+
+    @Override
+    public void drawMultiPolygon(double[][] rings) {
+        recorder.drawMultiPolygon(rings);
+    }
+
+    @Override
+    public void fillMultiPolygon(double[][] rings) {
+        recorder.fillMultiPolygon(rings);
+    }
+
+    @Override
+    public void drawString(String string, double x, double y) {
+        recorder.drawString(string, x, y);
+    }
+
+    @Override
+    public void drawImage(String path, double x, double y, double scale, double angle) {
+        recorder.drawImage(path, x, y, scale, angle, false);
+    }
+
+    @Override
+    public void drawImageCentered(String path, double x, double y, double scale, double angle) {
+        recorder.drawImage(path, x, y, scale, angle, true);
+    }
+
+    @Override
+    protected Image cachedImage(String path) {
+        return recorder.image(path);
+    }
+
+    /**
+     * Adds a custom command to be executed in the next frame. The command has
+     * direct access to the {@link Graphics2D} object used internally for
+     * drawing, allowing for advanced operations like applying transformations.
+     * <p>
+     * Note that any transformation applied will only affect subsequent drawing
+     * commands <em>until the next {@linkplain Gui#refreshAndClear(int) clear}
+     * command</em>, so it is better to think of this method as a drawing method
+     * (like {@link #drawRect(double, double, double, double) drawRect}) rather
+     * than a setter method (like {@link #setColor(Color) setColor}).
+     *
+     * @param command command to be added
+     */
+    public void addCustomCommand(Consumer<Graphics2D> command) {
+        recorder.addCustomCommand(command);
+    }
+
+    /**
+     * A drawing command together with the bounds of the area it paints.
+     */
+    protected static final class BoundedCommand implements Consumer<Graphics2D> {
+
+        public final Consumer<Graphics2D> command;
+        public final Rectangle2D bounds;
+
+        public BoundedCommand(Consumer<Graphics2D> command, Rectangle2D bounds) {
+            this.command = command;
+            this.bounds = bounds;
+        }
+
+        @Override
+        public void accept(Graphics2D g) {
+            command.accept(g);
+        }
+    }
+
+    /**
+     * An immutable list of commands that make up a frame, together with the
+     * area covered by an opaque first command (if any) and the rendering
+     * hints to paint them with.
+     */
+    protected static final class Snapshot {
+
+        public static final Snapshot EMPTY = new Snapshot(List.of(), null, QUALITY_HINTS);
+
+        public final List<Consumer<Graphics2D>> commands;
+        public final Rectangle2D cover;
+        public final Map<Key, Object> hints;
+
+        public Snapshot(List<Consumer<Graphics2D>> commands, Rectangle2D cover, Map<Key, Object> hints) {
+            this.commands = commands;
+            this.cover = cover;
+            this.hints = hints;
+        }
+
+        /**
+         * Paints the white background (unless covered by the first command)
+         * and executes all commands on the given graphics object.
+         */
+        public void paint(Graphics2D g, int width, int height) {
+            paintBackground(g, width, height);
+            for (var command : commands) {
+                command.accept(g);
+            }
+        }
+
+        /**
+         * Paints the background and executes only the commands with the
+         * given indices, e.g., the ones in the {@linkplain #bin bin} of a
+         * tile, when the graphics object is clipped to that tile.
+         */
+        public void paint(Graphics2D g, int width, int height, int[] commandIndices) {
+            paintBackground(g, width, height);
+            for (var index : commandIndices) {
+                commands.get(index).accept(g);
+            }
+        }
+
+        private void paintBackground(Graphics2D g, int width, int height) {
+            g.addRenderingHints(hints);
+            if (cover == null || !cover.contains(0, 0, width, height)) {
+                g.setColor(WHITE);
+                g.fillRect(0, 0, width, height);
+            }
+        }
+
+        /**
+         * Paints this snapshot into the given image like {@link #paint}, but
+         * splits the image into square tiles that are painted concurrently
+         * using the common {@link ForkJoinPool}. Each tile is painted with its
+         * own clip and only executes the drawing commands whose bounds
+         * intersect it (and all other commands, which change the settings),
+         * in the original order. If Marlin's path clipping is disabled (see
+         * <code>HeadlessGui.setParallel</code>), Java2D computes the pixels of a shape
+         * independently of the clip, so the result is the same as with
+         * sequential painting.
+         */
+        public void paintParallel(BufferedImage image, int tileSize) {
+            var columns = (image.getWidth() + tileSize - 1) / tileSize;
+            var rows = (image.getHeight() + tileSize - 1) / tileSize;
+            var bins = bin(columns, rows, tileSize);
+            ForkJoinPool.commonPool().invoke(new TileAction(image, tileSize, columns, bins, 0, bins.length));
+        }
+
+        /**
+         * Distributes the indices of the commands into one bin per tile,
+         * where the tiles are numbered row by row. Commands without bounds
+         * are added to all bins.
+         */
+        public int[][] bin(int columns, int rows, int tileSize) {
+            var bins = new int[columns * rows][];
+            var counts = new int[bins.length];
+            for (int tile = 0; tile < bins.length; tile++) {
+                bins[tile] = new int[16];
+            }
+            for (int i = 0; i < commands.size(); i++) {
+                int minCol = 0, maxCol = columns - 1, minRow = 0, maxRow = rows - 1;
+                if (commands.get(i) instanceof BoundedCommand) {
+                    var bounds = ((BoundedCommand) commands.get(i)).bounds;
+                    minCol = max(minCol, (int) floor(bounds.getMinX() / tileSize));
+                    maxCol = min(maxCol, (int) floor(bounds.getMaxX() / tileSize));
+                    minRow = max(minRow, (int) floor(bounds.getMinY() / tileSize));
+                    maxRow = min(maxRow, (int) floor(bounds.getMaxY() / tileSize));
+                }
+                for (int row = minRow; row <= maxRow; row++) {
+                    for (int col = minCol; col <= maxCol; col++) {
+                        var tile = row * columns + col;
+                        if (counts[tile] == bins[tile].length) {
+                            bins[tile] = copyOf(bins[tile], 2 * counts[tile]);
+                        }
+                        bins[tile][counts[tile]++] = i;
+                    }
+                }
+            }
+            for (int tile = 0; tile < bins.length; tile++) {
+                bins[tile] = copyOf(bins[tile], counts[tile]);
+            }
+            return bins;
+        }
+
+        /**
+         * Paints a range of tiles, splitting it in halves until single tiles
+         * remain.
+         */
+        private class TileAction extends RecursiveAction {
+
+            private final BufferedImage image;
+            private final int tileSize;
+            private final int columns;
+            private final int[][] bins;
+            private final int from;
+            private final int to;
+
+            TileAction(BufferedImage image, int tileSize, int columns, int[][] bins, int from, int to) {
+                this.image = image;
+                this.tileSize = tileSize;
+                this.columns = columns;
+                this.bins = bins;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1) {
+                    var mid = (from + to) >>> 1;
+                    invokeAll(new TileAction(image, tileSize, columns, bins, from, mid),
+                            new TileAction(image, tileSize, columns, bins, mid, to));
+                    return;
+                }
+                var g = image.createGraphics();
+                try {
+                    g.clipRect(from % columns * tileSize, from / columns * tileSize, tileSize, tileSize);
+                    paint(g, image.getWidth(), image.getHeight(), bins[from]);
+                } finally {
+                    g.dispose();
+                }
+            }
+        }
+    }
+}
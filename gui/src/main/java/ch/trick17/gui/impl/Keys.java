@@ -0,0 +1,56 @@
+package ch.trick17.gui.impl;
+
+import java.awt.event.KeyEvent;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Locale.ROOT;
+
+/**
+ * The table of key names and codes. The names are the names of the
+ * <code>VK_</code> constants in {@link KeyEvent} without the prefix and in
+ * lower case (e.g., "left" for {@link KeyEvent#VK_LEFT}) and the codes are
+ * the values of these constants.
+ */
+public final class Keys {
+
+    private static final Map<String, Integer> NAME_TO_CODE = new HashMap<>();
+    private static final Map<Integer, String> CODE_TO_NAME = new HashMap<>();
+
+    static {
+        for (var field : KeyEvent.class.getFields()) {
+            var fieldName = field.getName();
+            if (fieldName.startsWith("VK_")) {
+                try {
+                    var code = field.getInt(KeyEvent.class);
+                    var name = fieldName.substring(3).toLowerCase(ROOT);
+                    NAME_TO_CODE.put(name, code);
+                    CODE_TO_NAME.put(code, name);
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+
+    private Keys() {}
+
+    /**
+     * Returns the code of the key with the given name (ignoring case), or
+     * -1 if there is no such key.
+     */
+    public static int code(String keyName) {
+        var code = NAME_TO_CODE.get(keyName);
+        if (code == null) {
+            code = NAME_TO_CODE.get(keyName.toLowerCase(ROOT));
+        }
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the name of the key with the given code, or <code>null</code>
+     * if there is no such key.
+     */
+    public static String name(int keyCode) {
+        return CODE_TO_NAME.get(keyCode);
+    }
+}
@@ -0,0 +1,97 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.MouseTrail;
+
+import static java.util.Arrays.copyOf;
+
+/**
+ * Implementation of {@link MouseTrail} that stores the positions in
+ * primitive arrays, which are reused (and grown as needed) for each frame.
+ * Consecutive positions that are closer to each other than the coalescing
+ * distance are merged; the last position of a frame is always kept, so the
+ * trail ends at the current mouse position.
+ */
+final class MouseTrailBuffer implements MouseTrail {
+
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private long[] times = new long[64];
+    private int size;
+
+    private boolean pending; // last added position was merged, not stored
+    private int pendingX, pendingY;
+    private long pendingTime;
+
+    void clear() {
+        size = 0;
+        pending = false;
+    }
+
+    void add(int x, int y, long time, double coalescingDistance) {
+        if (size > 0) {
+            var dx = x - xs[size - 1];
+            var dy = y - ys[size - 1];
+            if (dx == 0 && dy == 0 || dx * dx + dy * dy < coalescingDistance * coalescingDistance) {
+                pending = true;
+                pendingX = x;
+                pendingY = y;
+                pendingTime = time;
+                return;
+            }
+        }
+        pending = false;
+        append(x, y, time);
+    }
+
+    /**
+     * Stores the last position if it was merged, so the trail ends at the
+     * current mouse position.
+     */
+    void finish() {
+        if (pending && (pendingX != xs[size - 1] || pendingY != ys[size - 1])) {
+            append(pendingX, pendingY, pendingTime);
+        }
+        pending = false;
+    }
+
+    private void append(int x, int y, long time) {
+        if (size == xs.length) {
+            xs = copyOf(xs, 2 * size);
+            ys = copyOf(ys, 2 * size);
+            times = copyOf(times, 2 * size);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        times[size] = time;
+        size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    @Override
+    public int getY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    @Override
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ch.trick17.gui.impl.headless;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.spi.Backend;
+import ch.trick17.gui.spi.Capability;
+
+import java.util.Map;
+import java.util.Set;
+
+import static ch.trick17.gui.spi.Capability.CUSTOM_COMMANDS;
+import static ch.trick17.gui.spi.Capability.IMAGE_OUTPUT;
+
+/**
+ * Backend for the {@link HeadlessGui}. Supported options:
+ * <ul>
+ *     <li><code>parallel</code>: whether to enable
+ *     {@linkplain HeadlessGui#setParallel(boolean) parallel painting}
+ *     (default: <code>false</code>).</li>
+ * </ul>
+ */
+public class HeadlessBackend implements Backend {
+
+    @Override
+    public String getName() {
+        return "headless";
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Set.of(IMAGE_OUTPUT, CUSTOM_COMMANDS);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Gui create(String title, int width, int height, Map<String, String> options) {
+        var gui = new HeadlessGui(title, width, height);
+        gui.setParallel(Boolean.parseBoolean(options.get("parallel")));
+        return gui;
+    }
+}
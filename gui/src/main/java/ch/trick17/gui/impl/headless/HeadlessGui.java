@@ -0,0 +1,146 @@
+package ch.trick17.gui.impl.headless;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.impl.Java2DGui;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Headless implementation of {@link Gui}, which paints into an in-memory
+ * image instead of a window. Apart from that, it has the same semantics as the
+ * Swing-based implementation: the image is updated by {@link #open()} and
+ * the <code>refresh...()</code> methods. Since there is no user, there is
+ * no user input either.
+ * <p>
+ * This implementation is useful for running programs on machines without a
+ * display, e.g., for testing or for benchmarking the drawing code.
+ */
+public class HeadlessGui extends Java2DGui {
+
+    private static final int PARALLEL_TILE_SIZE = 128;
+
+    /**
+     * Marlin's path clipping approximates curves outside the clip, so the
+     * pixels of a shape would depend on the clip. This method disables it
+     * (unless configured otherwise), so that tiles painted separately match.
+     * Since Marlin reads the property only once per JVM, this only has an
+     * effect if nothing has been rendered before.
+     */
+    static void disableRendererClip() {
+        if (System.getProperty("sun.java2d.renderer.clip") == null) {
+            System.setProperty("sun.java2d.renderer.clip", "false");
+        }
+    }
+
+    private final BufferedImage image;
+    private boolean fullScreen;
+    private boolean parallel;
+
+    public HeadlessGui(String title, int width, int height) {
+        super(title, width, height);
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Override
+    public void open() {
+        paint(takeSnapshot(false));
+        super.open();
+    }
+
+    @Override
+    protected void repaint(boolean clear) {
+        paint(takeSnapshot(clear));
+    }
+
+    private void paint(Snapshot snapshot) {
+        var start = System.nanoTime();
+        if (parallel) {
+            snapshot.paintParallel(image, PARALLEL_TILE_SIZE);
+        } else {
+            var g = image.createGraphics();
+            try {
+                snapshot.paint(g, image.getWidth(), image.getHeight());
+            } finally {
+                g.dispose();
+            }
+        }
+        framePainted(System.nanoTime() - start);
+    }
+
+    /**
+     * Since there is no user that could close a headless GUI, this method
+     * closes the GUI itself and returns immediately.
+     */
+    @Override
+    public void waitUntilClosed() {
+        close();
+    }
+
+    @Override
+    public void setResizable(boolean resizable) {
+        // the size of a headless GUI is fixed
+    }
+
+    @Override
+    public void setFullScreen(boolean fullScreen) {
+        this.fullScreen = fullScreen; // no effect without a screen
+    }
+
+    @Override
+    public boolean isFullScreen() {
+        return fullScreen;
+    }
+
+    /**
+     * Enables or disables parallel painting. If enabled, the image is split
+     * into tiles, which are painted concurrently on multiple cores. This is
+     * faster for complex frames, but uses more CPU time overall, as commands
+     * that span multiple tiles are executed multiple times. By default,
+     * painting is sequential.
+     * <p>
+     * The result is the same in both modes only if Marlin's path clipping is
+     * disabled using the system property
+     * <code>sun.java2d.renderer.clip=false</code>. Enabling parallel painting
+     * sets this property if it is not set, but since Java2D reads it only
+     * once, this must happen before anything is rendered in the JVM. To be
+     * safe, pass <code>-Dsun.java2d.renderer.clip=false</code> on the command
+     * line.
+     */
+    public void setParallel(boolean parallel) {
+        if (parallel) {
+            disableRendererClip();
+        }
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Returns the image that contains the content displayed by the last call
+     * to {@link #open()} or one of the <code>refresh...()</code> methods. Note
+     * that the same image object is reused for all frames.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Writes the content that was displayed by the last call to
+     * {@link #open()} or one of the <code>refresh...()</code> methods to the
+     * given file, in PNG format.
+     */
+    public void writePng(Path file) {
+        try {
+            if (!ImageIO.write(image, "png", file.toFile())) {
+                throw new Error("no PNG writer available");
+            }
+        } catch (IOException e) {
+            throw new Error("could not write image \"" + file + "\"", e);
+        }
+    }
+}
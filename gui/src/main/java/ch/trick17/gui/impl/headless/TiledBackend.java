@@ -0,0 +1,45 @@
+package ch.trick17.gui.impl.headless;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.spi.Backend;
+import ch.trick17.gui.spi.Capability;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static ch.trick17.gui.spi.Capability.CUSTOM_COMMANDS;
+import static ch.trick17.gui.spi.Capability.IMAGE_OUTPUT;
+
+/**
+ * Backend for the {@link TiledCanvas}. Supported options:
+ * <ul>
+ *     <li><code>file</code>: path of the file in which the tiles are stored.
+ *     If not set, the tiles are stored in direct buffers.</li>
+ * </ul>
+ */
+public class TiledBackend implements Backend {
+
+    @Override
+    public String getName() {
+        return "tiled";
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Set.of(IMAGE_OUTPUT, CUSTOM_COMMANDS);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Gui create(String title, int width, int height, Map<String, String> options) {
+        var file = options.get("file");
+        return file == null
+                ? new TiledCanvas(title, width, height)
+                : new TiledCanvas(title, width, height, Path.of(file));
+    }
+}
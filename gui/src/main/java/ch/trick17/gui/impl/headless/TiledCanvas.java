@@ -0,0 +1,350 @@
+package ch.trick17.gui.impl.headless;
+
+import ch.trick17.gui.Color;
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.impl.Java2DGui;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Vector;
+
+import static java.awt.Color.WHITE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Arrays.fill;
+
+/**
+ * Headless implementation of {@link Gui} for very large canvases, e.g., for
+ * rendering posters or maps. Instead of keeping the whole canvas in an image
+ * on the Java heap, the pixels are stored in square tiles outside the heap,
+ * either in direct buffers or in a memory-mapped file. Only tiles that
+ * contain something other than the white background take up memory.
+ * <p>
+ * The canvas is painted lazily, when its content is needed, i.e., when it is
+ * written to a file using {@link #writePng(Path)} or when single pixels are
+ * queried using {@link #getPixel(int, int)}. Like in a window, this content
+ * is the one that was displayed by the last call to {@link #open()} or one
+ * of the <code>refresh...()</code> methods. Painting happens tile by tile, so
+ * only a single tile-sized image is needed on the heap. Like for
+ * {@linkplain HeadlessGui#setParallel(boolean) parallel painting}, shapes
+ * that span multiple tiles are only painted seamlessly if Marlin's path
+ * clipping is disabled before anything is rendered in the JVM.
+ */
+public class TiledCanvas extends Java2DGui {
+
+    public static final int TILE_SIZE = 512;
+
+    private static final int TILE_BYTES = TILE_SIZE * TILE_SIZE * Integer.BYTES;
+    private static final int[] RGB_MASKS = {0xFF0000, 0xFF00, 0xFF};
+
+    private final int columns;
+    private final int rows;
+    private final IntBuffer[] tiles;
+    private final boolean mapped;
+    private final BitSet used = new BitSet();    // tiles with non-white content
+    private final BitSet painted = new BitSet(); // tiles up-to-date with snapshot
+
+    private Snapshot snapshot = Snapshot.EMPTY;
+    private int[][] bins; // commands of the snapshot by tile, computed lazily
+    private long replayedCommands; // for testing
+    private BufferedImage tileImage;
+    private boolean fullScreen;
+
+    /**
+     * Creates a canvas whose tiles are stored in direct buffers, which are
+     * allocated only for tiles that are used.
+     */
+    public TiledCanvas(String title, int width, int height) {
+        super(title, width, height);
+        HeadlessGui.disableRendererClip(); // tiles are painted with separate clips
+        columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        tiles = new IntBuffer[columns * rows];
+        mapped = false;
+    }
+
+    /**
+     * Creates a canvas whose tiles are stored in the given file, which is
+     * created (or overwritten) as a sparse file and mapped into memory. The
+     * operating system only needs to keep the pages of tiles that are
+     * currently in use in memory and can write them to the file when memory
+     * is tight.
+     */
+    public TiledCanvas(String title, int width, int height, Path file) {
+        super(title, width, height);
+        HeadlessGui.disableRendererClip(); // tiles are painted with separate clips
+        columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        tiles = new IntBuffer[columns * rows];
+        mapped = true;
+        // mappings remain valid after the channel is closed
+        try (var channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, SPARSE, READ, WRITE)) {
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = channel.map(READ_WRITE, (long) i * TILE_BYTES, TILE_BYTES).asIntBuffer();
+            }
+        } catch (IOException e) {
+            throw new Error("could not map file \"" + file + "\"", e);
+        }
+    }
+
+    @Override
+    public void open() {
+        setSnapshot(takeSnapshot(false));
+        super.open();
+    }
+
+    @Override
+    protected void repaint(boolean clear) {
+        setSnapshot(takeSnapshot(clear));
+    }
+
+    private void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+        bins = null;
+        painted.clear();
+    }
+
+    @Override
+    public void setResizable(boolean resizable) {
+        // the size of a tiled canvas is fixed
+    }
+
+    @Override
+    public void setFullScreen(boolean fullScreen) {
+        this.fullScreen = fullScreen; // no effect without a screen
+    }
+
+    @Override
+    public boolean isFullScreen() {
+        return fullScreen;
+    }
+
+    /**
+     * Returns the color of the pixel at the given coordinates, as displayed
+     * by the last call to {@link #open()} or one of the
+     * <code>refresh...()</code> methods.
+     */
+    public Color getPixel(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IllegalArgumentException("pixel (" + x + ", " + y + ") outside canvas");
+        }
+        var index = ensurePainted(x / TILE_SIZE, y / TILE_SIZE);
+        if (!used.get(index)) {
+            return new Color(255, 255, 255);
+        }
+        var rgb = tiles[index].get(y % TILE_SIZE * TILE_SIZE + x % TILE_SIZE);
+        return new Color(rgb >> 16 & 0xFF, rgb >> 8 & 0xFF, rgb & 0xFF);
+    }
+
+    /**
+     * Writes the content that was displayed by the last call to
+     * {@link #open()} or one of the <code>refresh...()</code> methods to the
+     * given file, in PNG format. The image is encoded row by row, painting
+     * tiles as they are needed, so the whole canvas is never kept on the
+     * heap.
+     */
+    public void writePng(Path file) {
+        try {
+            if (!ImageIO.write(new TileImage(), "png", file.toFile())) {
+                throw new Error("no PNG writer available");
+            }
+        } catch (IOException e) {
+            throw new Error("could not write image \"" + file + "\"", e);
+        }
+    }
+
+    /**
+     * Returns the number of tiles that currently take up memory.
+     */
+    int usedTiles() {
+        return used.cardinality();
+    }
+
+    /**
+     * Returns the number of commands that were executed to paint tiles so
+     * far.
+     */
+    long replayedCommands() {
+        return replayedCommands;
+    }
+
+    private int ensurePainted(int column, int row) {
+        var index = row * columns + column;
+        if (painted.get(index)) {
+            return index;
+        }
+        if (tileImage == null) {
+            tileImage = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        }
+        if (bins == null) {
+            // only the commands that intersect a tile are executed for it
+            bins = snapshot.bin(columns, rows, TILE_SIZE);
+        }
+        var g = tileImage.createGraphics();
+        try {
+            g.setColor(WHITE);
+            g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            g.translate(-column * TILE_SIZE, -row * TILE_SIZE);
+            g.clipRect(column * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            snapshot.paint(g, (int) width, (int) height, bins[index]);
+            replayedCommands += bins[index].length;
+        } finally {
+            g.dispose();
+        }
+
+        var pixels = ((DataBufferInt) tileImage.getRaster().getDataBuffer()).getData();
+        if (isBlank(pixels)) {
+            used.clear(index);
+            if (!mapped) {
+                tiles[index] = null;
+            }
+        } else {
+            if (tiles[index] == null) {
+                tiles[index] = ByteBuffer.allocateDirect(TILE_BYTES).asIntBuffer();
+            }
+            tiles[index].position(0);
+            tiles[index].put(pixels);
+            used.set(index);
+        }
+        painted.set(index);
+        return index;
+    }
+
+    private static boolean isBlank(int[] pixels) {
+        for (var pixel : pixels) {
+            if ((pixel & 0xFFFFFF) != 0xFFFFFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A view of the canvas as a {@link RenderedImage}, which can be passed to
+     * {@link ImageIO}. The image has the same tile layout as the canvas.
+     */
+    private class TileImage implements RenderedImage {
+
+        private final ColorModel colorModel = new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]);
+        private final SampleModel sampleModel = new SinglePixelPackedSampleModel(
+                DataBuffer.TYPE_INT, TILE_SIZE, TILE_SIZE, RGB_MASKS);
+
+        public Vector<RenderedImage> getSources() {
+            return null;
+        }
+
+        public Object getProperty(String name) {
+            return Image.UndefinedProperty;
+        }
+
+        public String[] getPropertyNames() {
+            return null;
+        }
+
+        public ColorModel getColorModel() {
+            return colorModel;
+        }
+
+        public SampleModel getSampleModel() {
+            return sampleModel;
+        }
+
+        public int getWidth() {
+            return (int) width;
+        }
+
+        public int getHeight() {
+            return (int) height;
+        }
+
+        public int getMinX() {
+            return 0;
+        }
+
+        public int getMinY() {
+            return 0;
+        }
+
+        public int getNumXTiles() {
+            return columns;
+        }
+
+        public int getNumYTiles() {
+            return rows;
+        }
+
+        public int getMinTileX() {
+            return 0;
+        }
+
+        public int getMinTileY() {
+            return 0;
+        }
+
+        public int getTileWidth() {
+            return TILE_SIZE;
+        }
+
+        public int getTileHeight() {
+            return TILE_SIZE;
+        }
+
+        public int getTileGridXOffset() {
+            return 0;
+        }
+
+        public int getTileGridYOffset() {
+            return 0;
+        }
+
+        public Raster getTile(int tileX, int tileY) {
+            return getData(new Rectangle(tileX * TILE_SIZE, tileY * TILE_SIZE, TILE_SIZE, TILE_SIZE));
+        }
+
+        public Raster getData() {
+            return getData(new Rectangle(0, 0, getWidth(), getHeight()));
+        }
+
+        public Raster getData(Rectangle rect) {
+            var raster = Raster.createPackedRaster(DataBuffer.TYPE_INT,
+                    rect.width, rect.height, RGB_MASKS, new Point(rect.x, rect.y));
+            return copyData(raster);
+        }
+
+        public WritableRaster copyData(WritableRaster raster) {
+            if (raster == null) {
+                raster = colorModel.createCompatibleWritableRaster(getWidth(), getHeight());
+            }
+            var minX = max(0, raster.getMinX());
+            var maxX = min(getWidth(), raster.getMinX() + raster.getWidth());
+            var minY = max(0, raster.getMinY());
+            var maxY = min(getHeight(), raster.getMinY() + raster.getHeight());
+            var row = new int[TILE_SIZE];
+            for (int y = minY; y < maxY; y++) {
+                for (int x = minX; x < maxX; ) {
+                    var index = ensurePainted(x / TILE_SIZE, y / TILE_SIZE);
+                    var tileX = x % TILE_SIZE;
+                    var length = min(TILE_SIZE - tileX, maxX - x);
+                    if (used.get(index)) {
+                        tiles[index].position(y % TILE_SIZE * TILE_SIZE + tileX);
+                        tiles[index].get(row, 0, length);
+                    } else {
+                        fill(row, 0, length, 0xFFFFFF);
+                    }
+                    raster.setDataElements(x, y, length, 1, row);
+                    x += length;
+                }
+            }
+            return raster;
+        }
+    }
+}
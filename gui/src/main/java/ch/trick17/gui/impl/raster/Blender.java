@@ -0,0 +1,87 @@
+package ch.trick17.gui.impl.raster;
+
+import java.util.Arrays;
+
+/**
+ * The blending loops of the {@link Rasterizer}, which composite a color or
+ * an image onto a span of opaque RGB pixels. Alpha values range from 0 to
+ * 256.
+ * <p>
+ * This class contains the scalar implementations. On Java 17 and later,
+ * {@link #INSTANCE} is a subclass that uses the (incubating) Vector API
+ * instead, provided that the <code>jdk.incubator.vector</code> module is
+ * available, e.g., by running with
+ * <code>--add-modules jdk.incubator.vector</code>. That subclass is only
+ * contained in the Java 17 part of the multi-release JAR. Both produce
+ * exactly the same pixels. Setting the system property
+ * <code>ch.trick17.gui.vector</code> to <code>false</code> forces the
+ * scalar implementation.
+ */
+class Blender {
+
+    static final Blender INSTANCE = create();
+
+    private static Blender create() {
+        if (!Boolean.parseBoolean(System.getProperty("ch.trick17.gui.vector", "true"))) {
+            return new Blender();
+        }
+        try {
+            var vectorClass = Class.forName("ch.trick17.gui.impl.raster.VectorBlender");
+            return (Blender) vectorClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new Blender(); // Java 11 or module not available
+        }
+    }
+
+    /**
+     * Fills a span with the given color, using the same alpha for each pixel.
+     */
+    void fill(int[] dest, int offset, int length, int rgb, int alpha) {
+        if (alpha >= 256) {
+            Arrays.fill(dest, offset, offset + length, rgb);
+        } else if (alpha > 0) {
+            for (int i = offset; i < offset + length; i++) {
+                dest[i] = blend(dest[i], rgb, alpha);
+            }
+        }
+    }
+
+    /**
+     * Fills a span with the given color, using a separate alpha for each
+     * pixel, e.g., the coverage of an anti-aliased shape.
+     */
+    void fill(int[] dest, int offset, int length, int rgb, int[] alphas, int alphasOffset) {
+        for (int i = 0; i < length; i++) {
+            dest[offset + i] = blend(dest[offset + i], rgb, alphas[alphasOffset + i]);
+        }
+    }
+
+    /**
+     * Composites a span of premultiplied ARGB pixels onto the destination
+     * span, with an additional alpha for all pixels.
+     */
+    void blit(int[] dest, int offset, int length, int[] src, int srcOffset, int alpha) {
+        for (int i = 0; i < length; i++) {
+            dest[offset + i] = blendPremultiplied(dest[offset + i], src[srcOffset + i], alpha);
+        }
+    }
+
+    static int blend(int dest, int rgb, int alpha) {
+        var inv = 256 - alpha;
+        var rb = ((dest & 0xFF00FF) * inv + (rgb & 0xFF00FF) * alpha) >>> 8 & 0xFF00FF;
+        var g = ((dest & 0xFF00) * inv + (rgb & 0xFF00) * alpha) >>> 8 & 0xFF00;
+        return rb | g;
+    }
+
+    static int blendPremultiplied(int dest, int argb, int alpha) {
+        if (alpha < 256) {
+            var ag = (argb >>> 8 & 0xFF00FF) * alpha & 0xFF00FF00;
+            var rb = (argb & 0xFF00FF) * alpha >>> 8 & 0xFF00FF;
+            argb = ag | rb;
+        }
+        var inv = 256 - ((argb >>> 24) + (argb >>> 31)); // 255 -> 256
+        var rb = (argb & 0xFF00FF) + ((dest & 0xFF00FF) * inv >>> 8 & 0xFF00FF);
+        var g = (argb & 0xFF00) + ((dest & 0xFF00) * inv >>> 8 & 0xFF00);
+        return rb | g;
+    }
+}
@@ -0,0 +1,36 @@
+package ch.trick17.gui.impl.raster;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.spi.Backend;
+import ch.trick17.gui.spi.Capability;
+
+import java.util.Map;
+import java.util.Set;
+
+import static ch.trick17.gui.spi.Capability.IMAGE_OUTPUT;
+
+/**
+ * Backend for the {@link RasterGui}. There are no options.
+ */
+public class RasterBackend implements Backend {
+
+    @Override
+    public String getName() {
+        return "raster";
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Set.of(IMAGE_OUTPUT);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Gui create(String title, int width, int height, Map<String, String> options) {
+        return new RasterGui(title, width, height);
+    }
+}
@@ -0,0 +1,387 @@
+package ch.trick17.gui.impl.raster;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.impl.GuiBase;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.awt.BasicStroke.*;
+import static java.awt.Font.*;
+import static java.awt.RenderingHints.*;
+import static java.awt.geom.Path2D.WIND_EVEN_ODD;
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+
+/**
+ * Headless implementation of {@link Gui} that does not use Java2D for
+ * painting shapes and images, but its own scanline {@link Rasterizer}, which
+ * paints directly into an <code>int[]</code>. On machines without graphics
+ * hardware, Java2D falls back to generic software loops, which are slow for
+ * many small anti-aliased shapes. Only text is still painted using Java2D
+ * (on the same pixels).
+ * <p>
+ * Unlike the Java2D-based implementations, this one does not record
+ * commands but paints them immediately into a canvas. The content of the
+ * canvas is copied to the displayed image by {@link #open()} and the
+ * <code>refresh...()</code> methods, so the semantics are the same. Animated
+ * images are not supported; only their first frame is painted. Shapes are
+ * always anti-aliased, as the rasterizer computes exact coverage anyway, so
+ * the {@linkplain #setRenderQuality(String) render quality} and
+ * {@linkplain #setAntialiasing(boolean) antialiasing} settings have no
+ * effect.
+ */
+public class RasterGui extends GuiBase {
+
+    private static final int WHITE = 0xFFFFFF;
+
+    private final BufferedImage image;
+    private final int[] displayed;
+    private final BufferedImage canvas;
+    private final int[] pixels;
+    private final Rasterizer rasterizer;
+    private final Map<String, BufferedImage> images = new HashMap<>();
+
+    private final double[] quad = new double[8];
+    private double[] polygon = new double[0]; // transformed coordinates
+
+    private Graphics2D textGraphics;
+    private boolean fullScreen;
+
+    public RasterGui(String title, int width, int height) {
+        super(title, width, height);
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        displayed = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+        rasterizer = new Rasterizer(pixels, width, height);
+        rasterizer.clear(WHITE);
+    }
+
+    @Override
+    public void open() {
+        System.arraycopy(pixels, 0, displayed, 0, pixels.length);
+        super.open();
+    }
+
+    @Override
+    protected void repaint(boolean clear) {
+        System.arraycopy(pixels, 0, displayed, 0, pixels.length);
+        if (clear) {
+            rasterizer.clear(WHITE);
+        }
+    }
+
+    /**
+     * Since there is no user that could close a headless GUI, this method
+     * closes the GUI itself and returns immediately.
+     */
+    @Override
+    public void waitUntilClosed() {
+        close();
+    }
+
+    @Override
+    public void setResizable(boolean resizable) {
+        // the size of a headless GUI is fixed
+    }
+
+    @Override
+    public void setFullScreen(boolean fullScreen) {
+        this.fullScreen = fullScreen; // no effect without a screen
+    }
+
+    @Override
+    public boolean isFullScreen() {
+        return fullScreen;
+    }
+
+    /**
+     * Returns the image that contains the content displayed by the last call
+     * to {@link #open()} or one of the <code>refresh...()</code> methods. Note
+     * that the same image object is reused for all frames.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Writes the content that was displayed by the last call to
+     * {@link #open()} or one of the <code>refresh...()</code> methods to the
+     * given file, in PNG format.
+     */
+    public void writePng(Path file) {
+        try {
+            if (!ImageIO.write(image, "png", file.toFile())) {
+                throw new Error("no PNG writer available");
+            }
+        } catch (IOException e) {
+            throw new Error("could not write image \"" + file + "\"", e);
+        }
+    }
+
+    /*
+     * Painting
+     */
+
+    private int rgb() {
+        return color.r << 16 | color.g << 8 | color.b;
+    }
+
+    private int paintAlpha() {
+        return (int) round(color.alpha * alpha * 256 / 255);
+    }
+
+    /**
+     * Returns whether a shape with the given bounds (before the current
+     * transformation), grown by the given margin, may be visible on the
+     * canvas. Used to skip invisible shapes before they are stroked or
+     * transformed, which is much more expensive than rasterizing nothing.
+     */
+    private boolean visible(Rectangle2D bounds, double margin) {
+        var minX = bounds.getMinX() - margin;
+        var minY = bounds.getMinY() - margin;
+        var maxX = bounds.getMaxX() + margin;
+        var maxY = bounds.getMaxY() + margin;
+        if (!transform.isIdentity()) {
+            quad[0] = minX;
+            quad[1] = minY;
+            quad[2] = maxX;
+            quad[3] = minY;
+            quad[4] = maxX;
+            quad[5] = maxY;
+            quad[6] = minX;
+            quad[7] = maxY;
+            transform.transform(quad, 0, quad, 0, 4);
+            minX = min(min(quad[0], quad[2]), min(quad[4], quad[6]));
+            maxX = max(max(quad[0], quad[2]), max(quad[4], quad[6]));
+            minY = min(min(quad[1], quad[3]), min(quad[5], quad[7]));
+            maxY = max(max(quad[1], quad[3]), max(quad[5], quad[7]));
+        }
+        return maxX >= 0 && maxY >= 0 && minX <= width && minY <= height;
+    }
+
+    private void draw(Shape shape) {
+        // miter joins can extend up to miter limit (10) times half the width
+        if (!visible(shape.getBounds2D(), roundStroke ? strokeWidth / 2 : strokeWidth * 5)) {
+            return;
+        }
+        var stroke = new BasicStroke((float) strokeWidth, roundStroke ? CAP_ROUND : CAP_BUTT,
+                roundStroke ? JOIN_ROUND : JOIN_MITER);
+        rasterizer.fill(transformed(stroke.createStrokedShape(shape)), false, rgb(), paintAlpha());
+    }
+
+    private Shape transformed(Shape shape) {
+        return transform.isIdentity() ? shape : transform.createTransformedShape(shape);
+    }
+
+    @Override
+    public void drawRect(double x, double y, double width, double height) {
+        draw(new Rectangle2D.Double(x, y, width, height));
+    }
+
+    @Override
+    public void fillRect(double x, double y, double width, double height) {
+        if (transform.isIdentity()) {
+            rasterizer.fillRect(x, y, width, height, rgb(), paintAlpha());
+        } else {
+            quad[0] = x;
+            quad[1] = y;
+            quad[2] = x + width;
+            quad[3] = y;
+            quad[4] = x + width;
+            quad[5] = y + height;
+            quad[6] = x;
+            quad[7] = y + height;
+            transform.transform(quad, 0, quad, 0, 4);
+            if (quad[1] == quad[3] && quad[0] == quad[6]) {
+                // still axis-aligned (no rotation or shear)
+                var minX = min(quad[0], quad[2]);
+                var minY = min(quad[1], quad[5]);
+                rasterizer.fillRect(minX, minY, abs(quad[2] - quad[0]), abs(quad[5] - quad[1]),
+                        rgb(), paintAlpha());
+            } else {
+                rasterizer.fillPolygon(quad, quad.length, false, rgb(), paintAlpha());
+            }
+        }
+    }
+
+    @Override
+    public void drawOval(double x, double y, double width, double height) {
+        draw(new Ellipse2D.Double(x, y, width, height));
+    }
+
+    @Override
+    public void fillOval(double x, double y, double width, double height) {
+        if (transform.isIdentity()) {
+            rasterizer.fillOval(x, y, width, height, rgb(), paintAlpha());
+        } else {
+            var oval = new Ellipse2D.Double(x, y, width, height);
+            if (visible(oval.getBounds2D(), 0)) {
+                rasterizer.fill(transform.createTransformedShape(oval), false, rgb(), paintAlpha());
+            }
+        }
+    }
+
+    @Override
+    public void drawLine(double x1, double y1, double x2, double y2) {
+        var length = Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+        if (roundStroke || length == 0 || !transform.isIdentity()) {
+            draw(new Line2D.Double(x1, y1, x2, y2));
+        } else {
+            // with butt caps, a line is just a rectangle, no need for the stroker
+            var nx = (y1 - y2) / length * strokeWidth / 2;
+            var ny = (x2 - x1) / length * strokeWidth / 2;
+            quad[0] = x1 + nx;
+            quad[1] = y1 + ny;
+            quad[2] = x2 + nx;
+            quad[3] = y2 + ny;
+            quad[4] = x2 - nx;
+            quad[5] = y2 - ny;
+            quad[6] = x1 - nx;
+            quad[7] = y1 - ny;
+            rasterizer.fillPolygon(quad, quad.length, false, rgb(), paintAlpha());
+        }
+    }
+
+    @Override
+    public void drawPath(double[] coordinates) {
+        if (coordinates.length >= 2) {
+            var path = new Path2D.Double();
+            append(path, coordinates);
+            draw(path);
+        }
+    }
+
+    @Override
+    public void drawPolygon(double[] coordinates) {
+        if (coordinates.length >= 2) {
+            var path = new Path2D.Double();
+            append(path, coordinates);
+            path.closePath();
+            draw(path);
+        }
+    }
+
+    @Override
+    public void fillPolygon(double[] coordinates) {
+        var length = coordinates.length & ~1;
+        if (length < 2) {
+            return;
+        }
+        if (transform.isIdentity()) {
+            rasterizer.fillPolygon(coordinates, length, true, rgb(), paintAlpha());
+        } else {
+            if (polygon.length < length) {
+                polygon = new double[length];
+            }
+            transform.transform(coordinates, 0, polygon, 0, length / 2);
+            rasterizer.fillPolygon(polygon, length, true, rgb(), paintAlpha());
+        }
+    }
+
+    @Override
+    public void drawMultiPolygon(double[][] rings) {
+        var path = new Path2D.Double(WIND_EVEN_ODD);
+        for (var ring : rings) {
+            if (ring.length >= 2) {
+                append(path, ring);
+                path.closePath();
+            }
+        }
+        draw(path);
+    }
+
+    @Override
+    public void fillMultiPolygon(double[][] rings) {
+        var path = new Path2D.Double(WIND_EVEN_ODD);
+        for (var ring : rings) {
+            if (ring.length >= 2) {
+                append(path, ring);
+                path.closePath();
+            }
+        }
+        rasterizer.fill(transformed(path), true, rgb(), paintAlpha());
+    }
+
+    private static void append(Path2D.Double path, double[] coordinates) {
+        path.moveTo(coordinates[0], coordinates[1]);
+        for (int i = 2; i < coordinates.length; i += 2) {
+            path.lineTo(coordinates[i], coordinates[i + 1]);
+        }
+    }
+
+    @Override
+    public void drawString(String string, double x, double y) {
+        if (textGraphics == null) {
+            textGraphics = canvas.createGraphics();
+            textGraphics.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
+            textGraphics.setRenderingHint(KEY_RENDERING, VALUE_RENDER_QUALITY);
+        }
+        var style = (bold ? BOLD : PLAIN) | (italic ? ITALIC : PLAIN);
+        textGraphics.setTransform(transform);
+        textGraphics.setFont(new Font(fontFamily, style, fontSize));
+        textGraphics.setColor(new java.awt.Color(color.r, color.g, color.b, color.alpha));
+        textGraphics.setComposite(AlphaComposite.SrcOver.derive((float) alpha));
+        var metrics = textGraphics.getFontMetrics();
+        var drawY = y;
+        for (var line : (Iterable<String>) string.lines()::iterator) {
+            var drawX = x;
+            if (textAlign != TextAlign.LEFT) {
+                var width = metrics.stringWidth(line);
+                drawX -= textAlign == TextAlign.CENTER ? width / 2f : width;
+            }
+            textGraphics.drawString(line, (float) drawX, (float) drawY);
+            drawY += fontSize * lineSpacing;
+        }
+    }
+
+    @Override
+    public void drawImage(String path, double x, double y, double scale, double angle) {
+        var image = cachedImage(path);
+        drawImage(image, transformed(
+                imageTransform(image.getWidth(), image.getHeight(), x, y, scale, angle, false)));
+    }
+
+    @Override
+    public void drawImageCentered(String path, double x, double y, double scale, double angle) {
+        var image = cachedImage(path);
+        drawImage(image, transformed(
+                imageTransform(image.getWidth(), image.getHeight(), x, y, scale, angle, true)));
+    }
+
+    private void drawImage(BufferedImage image, AffineTransform transform) {
+        var data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        rasterizer.drawImage(data, image.getWidth(), image.getHeight(), transform,
+                nearestNeighborInterpolation, (int) round(alpha * 256));
+    }
+
+    /**
+     * Loads the image with the given path and converts it to premultiplied
+     * ARGB pixels, which the rasterizer can blend directly.
+     */
+    @Override
+    protected BufferedImage cachedImage(String path) {
+        return images.computeIfAbsent(path, p -> {
+            var loaded = loadImage(p);
+            var converted = new BufferedImage(max(1, loaded.getWidth(null)), max(1, loaded.getHeight(null)),
+                    BufferedImage.TYPE_INT_ARGB_PRE);
+            var g = converted.createGraphics();
+            try {
+                g.drawImage(loaded, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+            return converted;
+        });
+    }
+}
@@ -0,0 +1,423 @@
+package ch.trick17.gui.impl.raster;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import static java.awt.geom.PathIterator.*;
+import static java.lang.Double.isFinite;
+import static java.lang.Math.*;
+import static java.util.Arrays.copyOf;
+
+/**
+ * Software rasterizer that paints anti-aliased shapes and images directly
+ * into an <code>int[]</code> of RGB pixels.
+ * <p>
+ * Shapes are flattened into line edges and filled scanline by scanline. Each
+ * pixel row is sampled at {@value #SUB_SCANLINES} sub-scanlines; on each of
+ * them, the crossings of the edges are computed in 24.8 fixed point and
+ * turned into spans according to the winding rule. The spans are accumulated
+ * as coverage deltas for the row, so the cost per span does not depend on
+ * its length, and the pixels of the row are blended in a single pass
+ * afterward, using the span loops of the {@link Blender}. Axis-aligned
+ * rectangles, which are very common, bypass the edge machinery and use exact
+ * area coverage.
+ */
+class Rasterizer {
+
+    static final int SUB_SCANLINES = 8;
+
+    private static final int SUB_SHIFT = 3;
+    private static final int SUB_MASK = SUB_SCANLINES - 1;
+    private static final double FLATNESS = 0.1;
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final Blender blender;
+
+    // alphas or image pixels of the current row, passed to the blender
+    private final int[] rowBuffer;
+
+    // coverage deltas of the current row, in 1/256 pixel per sub-scanline
+    private final int[] coverage;
+    private int spanMin;
+    private int spanMax = -1;
+
+    // edges of the shape that is currently filled, in structure-of-arrays form
+    private int edgeCount;
+    private double[] intercepts = new double[64]; // x at y = 0
+    private double[] slopes = new double[64];     // dx/dy
+    private double[] xs = new double[64];         // x on current sub-scanline
+    private int[] firsts = new int[64];           // first sub-scanline
+    private int[] ends = new int[64];             // last sub-scanline (exclusive)
+    private boolean[] downward = new boolean[64];
+    private long[] order = new long[64];
+    private int[] active = new int[64];
+    private int[] crossings = new int[64];
+    private final double[] coords = new double[6];
+    private double[] polygon = new double[64];
+
+    Rasterizer(int[] pixels, int width, int height) {
+        this(pixels, width, height, Blender.INSTANCE);
+    }
+
+    Rasterizer(int[] pixels, int width, int height, Blender blender) {
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.blender = blender;
+        coverage = new int[width + 2];
+        spanMin = width;
+        rowBuffer = new int[width];
+    }
+
+    void clear(int rgb) {
+        Arrays.fill(pixels, rgb);
+    }
+
+    /**
+     * Fills the given rectangle, which is assumed to be axis-aligned. The
+     * alpha ranges from 0 to 256.
+     */
+    void fillRect(double x, double y, double w, double h, int rgb, int alpha) {
+        var x0 = max(x, 0);
+        var y0 = max(y, 0);
+        var x1 = min(x + w, width);
+        var y1 = min(y + h, height);
+        if (!(x0 < x1 && y0 < y1)) {
+            return; // also handles NaN
+        }
+        var firstCol = (int) x0;
+        var lastCol = (int) ceil(x1) - 1;
+        var firstRow = (int) y0;
+        var lastRow = (int) ceil(y1) - 1;
+        var firstColCoverage = min(x1, firstCol + 1) - x0;
+        var lastColCoverage = x1 - max(x0, lastCol);
+        for (int row = firstRow; row <= lastRow; row++) {
+            var rowCoverage = min(y1, row + 1) - max(y0, row);
+            var rowAlpha = (int) (rowCoverage * alpha + 0.5);
+            var offset = row * width;
+            blend(offset + firstCol, rgb, (int) (firstColCoverage * rowCoverage * alpha + 0.5));
+            blender.fill(pixels, offset + firstCol + 1, max(0, lastCol - firstCol - 1), rgb, rowAlpha);
+            if (lastCol > firstCol) {
+                blend(offset + lastCol, rgb, (int) (lastColCoverage * rowCoverage * alpha + 0.5));
+            }
+        }
+    }
+
+    /**
+     * Fills the given shape, using either the even-odd or the non-zero
+     * winding rule. The alpha ranges from 0 to 256.
+     */
+    void fill(Shape shape, boolean evenOdd, int rgb, int alpha) {
+        edgeCount = 0;
+        double startX = 0, startY = 0, x = 0, y = 0;
+        for (var it = shape.getPathIterator(null, FLATNESS); !it.isDone(); it.next()) {
+            switch (it.currentSegment(coords)) {
+                case SEG_MOVETO:
+                    addEdge(x, y, startX, startY); // implicitly close subpath
+                    startX = x = coords[0];
+                    startY = y = coords[1];
+                    break;
+                case SEG_LINETO:
+                    addEdge(x, y, coords[0], coords[1]);
+                    x = coords[0];
+                    y = coords[1];
+                    break;
+                case SEG_CLOSE:
+                    addEdge(x, y, startX, startY);
+                    x = startX;
+                    y = startY;
+                    break;
+            }
+        }
+        addEdge(x, y, startX, startY);
+        scan(evenOdd, rgb, alpha);
+    }
+
+    /**
+     * Fills the polygon given by the first <code>length</code> entries of
+     * the coordinate array (x1, y1, x2, y2, ...). This avoids the overhead of
+     * creating and iterating a {@link Shape}.
+     */
+    void fillPolygon(double[] coordinates, int length, boolean evenOdd, int rgb, int alpha) {
+        edgeCount = 0;
+        if (length < 2) {
+            return;
+        }
+        var x = coordinates[length - 2];
+        var y = coordinates[length - 1];
+        for (int i = 0; i < length; i += 2) {
+            addEdge(x, y, coordinates[i], coordinates[i + 1]);
+            x = coordinates[i];
+            y = coordinates[i + 1];
+        }
+        scan(evenOdd, rgb, alpha);
+    }
+
+    /**
+     * Fills the given axis-aligned ellipse, which is approximated by a
+     * polygon with as many vertices as needed for the flatness tolerance.
+     */
+    void fillOval(double x, double y, double w, double h, int rgb, int alpha) {
+        var rx = w / 2;
+        var ry = h / 2;
+        var r = max(abs(rx), abs(ry));
+        if (!(r > 0) || r == Double.POSITIVE_INFINITY) {
+            return;
+        }
+        // maximum distance of a chord with angle a from the circle is r * (1 - cos(a / 2))
+        var n = (int) min(1024, max(8, ceil(PI / acos(max(-1, 1 - FLATNESS / r)))));
+        if (polygon.length < 2 * n) {
+            polygon = new double[2 * n];
+        }
+        var step = 2 * PI / n;
+        var cos = cos(step);
+        var sin = sin(step);
+        double dx = 1, dy = 0;
+        for (int i = 0; i < n; i++) {
+            polygon[2 * i] = x + rx + rx * dx;
+            polygon[2 * i + 1] = y + ry + ry * dy;
+            var next = dx * cos - dy * sin;
+            dy = dx * sin + dy * cos;
+            dx = next;
+        }
+        fillPolygon(polygon, 2 * n, false, rgb, alpha);
+    }
+
+    private void scan(boolean evenOdd, int rgb, int alpha) {
+        if (edgeCount == 0) {
+            return;
+        }
+
+        // sort edges by first sub-scanline, keeping their index in lower bits
+        var last = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            order[e] = (long) firsts[e] << 32 | e;
+            last = max(last, ends[e]);
+        }
+        Arrays.sort(order, 0, edgeCount);
+
+        var maxX = (double) (width << 8);
+        var next = 0;
+        var activeCount = 0;
+        for (int sub = (int) (order[0] >> 32); sub < last; sub++) {
+            while (next < edgeCount && order[next] >> 32 <= sub) {
+                var e = (int) order[next++];
+                // from now on, x is stepped incrementally (in 1/256 pixels)
+                xs[e] = (intercepts[e] + (sub + 0.5) / SUB_SCANLINES * slopes[e]) * 256;
+                active[activeCount++] = e;
+            }
+            var n = 0;
+            for (int i = 0; i < activeCount; ) {
+                var e = active[i];
+                if (ends[e] <= sub) {
+                    active[i] = active[--activeCount];
+                } else {
+                    var fx = (int) (max(0, min(maxX, xs[e])) + 0.5);
+                    crossings[n++] = fx << 1 | (downward[e] ? 1 : 0);
+                    xs[e] += slopes[e] * (256.0 / SUB_SCANLINES);
+                    i++;
+                }
+            }
+            if (n == 2) {
+                // most common case, e.g., for convex shapes
+                var c0 = min(crossings[0], crossings[1]);
+                var c1 = max(crossings[0], crossings[1]);
+                if (evenOdd || ((c0 ^ c1) & 1) != 0) {
+                    addSpan(c0 >> 1, c1 >> 1);
+                }
+                n = 0;
+            }
+            sortCrossings(n);
+
+            var winding = 0;
+            var spanStart = 0;
+            for (int i = 0; i < n; i++) {
+                var wasInside = evenOdd ? (winding & 1) != 0 : winding != 0;
+                winding += (crossings[i] & 1) != 0 ? 1 : -1;
+                var inside = evenOdd ? (winding & 1) != 0 : winding != 0;
+                if (!wasInside && inside) {
+                    spanStart = crossings[i] >> 1;
+                } else if (wasInside && !inside) {
+                    addSpan(spanStart, crossings[i] >> 1);
+                }
+            }
+
+            if ((sub & SUB_MASK) == SUB_MASK || sub == last - 1) {
+                blendRow(sub >> SUB_SHIFT, rgb, alpha);
+            }
+        }
+    }
+
+    private void addEdge(double x0, double y0, double x1, double y1) {
+        if (y0 == y1 || !isFinite(x0) || !isFinite(y0) || !isFinite(x1) || !isFinite(y1)) {
+            return;
+        }
+        var down = y1 > y0;
+        if (!down) {
+            var tmp = x0;
+            x0 = x1;
+            x1 = tmp;
+            tmp = y0;
+            y0 = y1;
+            y1 = tmp;
+        }
+        // edge crosses sub-scanline s if (s + 0.5) / SUB_SCANLINES is in [y0, y1)
+        var first = (int) max(0, ceil(y0 * SUB_SCANLINES - 0.5));
+        var end = (int) min(height * SUB_SCANLINES, ceil(y1 * SUB_SCANLINES - 0.5));
+        if (first >= end) {
+            return;
+        }
+        if (edgeCount == firsts.length) {
+            var capacity = edgeCount * 2;
+            intercepts = copyOf(intercepts, capacity);
+            slopes = copyOf(slopes, capacity);
+            xs = copyOf(xs, capacity);
+            firsts = copyOf(firsts, capacity);
+            ends = copyOf(ends, capacity);
+            downward = copyOf(downward, capacity);
+            order = copyOf(order, capacity);
+            active = copyOf(active, capacity);
+            crossings = copyOf(crossings, capacity);
+        }
+        var slope = (x1 - x0) / (y1 - y0);
+        intercepts[edgeCount] = x0 - y0 * slope;
+        slopes[edgeCount] = slope;
+        firsts[edgeCount] = first;
+        ends[edgeCount] = end;
+        downward[edgeCount] = down;
+        edgeCount++;
+    }
+
+    private void sortCrossings(int n) {
+        if (n > 32) {
+            Arrays.sort(crossings, 0, n);
+            return;
+        }
+        // most scanlines only cross a few edges
+        for (int i = 1; i < n; i++) {
+            var c = crossings[i];
+            var j = i - 1;
+            while (j >= 0 && crossings[j] > c) {
+                crossings[j + 1] = crossings[j];
+                j--;
+            }
+            crossings[j + 1] = c;
+        }
+    }
+
+    /**
+     * Adds a span from <code>x0</code> to <code>x1</code> (in 24.8 fixed
+     * point) on the current sub-scanline. The coverage of each pixel is
+     * later obtained by summing up the deltas from left to right.
+     */
+    private void addSpan(int x0, int x1) {
+        if (x0 >= x1) {
+            return;
+        }
+        int col0 = x0 >> 8, frac0 = x0 & 0xFF;
+        int col1 = x1 >> 8, frac1 = x1 & 0xFF;
+        coverage[col0] += 256 - frac0;
+        coverage[col0 + 1] += frac0;
+        coverage[col1] -= 256 - frac1;
+        coverage[col1 + 1] -= frac1;
+        spanMin = min(spanMin, col0);
+        spanMax = max(spanMax, col1 + 1);
+    }
+
+    private void blendRow(int row, int rgb, int alpha) {
+        var sum = 0;
+        for (int col = spanMin; col <= spanMax; col++) {
+            sum += coverage[col];
+            coverage[col] = 0;
+            if (col < width) {
+                rowBuffer[col] = (sum >> SUB_SHIFT) * alpha >> 8;
+            }
+        }
+        var end = min(spanMax, width);
+        if (spanMin < end) {
+            blender.fill(pixels, row * width + spanMin, end - spanMin, rgb, rowBuffer, spanMin);
+        }
+        spanMin = width;
+        spanMax = -1;
+    }
+
+    /**
+     * Draws the given image, in premultiplied ARGB format, using the given
+     * transform from image to canvas coordinates. The alpha ranges from 0 to
+     * 256.
+     */
+    void drawImage(int[] image, int imageWidth, int imageHeight, AffineTransform transform,
+                   boolean nearestNeighbor, int alpha) {
+        AffineTransform inverse;
+        try {
+            inverse = transform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            return; // scale of 0, nothing to draw
+        }
+        var bounds = transform.createTransformedShape(
+                new Rectangle2D.Double(0, 0, imageWidth, imageHeight)).getBounds2D();
+        var firstCol = (int) max(0, floor(bounds.getMinX()));
+        var lastCol = (int) min(width, ceil(bounds.getMaxX()));
+        var firstRow = (int) max(0, floor(bounds.getMinY()));
+        var lastRow = (int) min(height, ceil(bounds.getMaxY()));
+
+        var m = new double[6];
+        inverse.getMatrix(m);
+        for (int row = firstRow; row < lastRow; row++) {
+            // image coordinates of the center of the first pixel in the row
+            var rowX = m[0] * (firstCol + 0.5) + m[2] * (row + 0.5) + m[4];
+            var rowY = m[1] * (firstCol + 0.5) + m[3] * (row + 0.5) + m[5];
+            for (int col = firstCol; col < lastCol; col++) {
+                var sx = rowX + m[0] * (col - firstCol);
+                var sy = rowY + m[1] * (col - firstCol);
+                if (sx < 0 || sy < 0 || sx >= imageWidth || sy >= imageHeight) {
+                    rowBuffer[col] = 0; // transparent
+                } else if (nearestNeighbor) {
+                    rowBuffer[col] = image[(int) sy * imageWidth + (int) sx];
+                } else {
+                    rowBuffer[col] = sampleBilinear(image, imageWidth, imageHeight, sx - 0.5, sy - 0.5);
+                }
+            }
+            if (firstCol < lastCol) {
+                blender.blit(pixels, row * width + firstCol, lastCol - firstCol, rowBuffer, firstCol, alpha);
+            }
+        }
+    }
+
+    private static int sampleBilinear(int[] image, int width, int height, double x, double y) {
+        var x0 = (int) floor(x);
+        var y0 = (int) floor(y);
+        var fx = (int) ((x - x0) * 256);
+        var fy = (int) ((y - y0) * 256);
+        // clamp at the borders, like Java2D does
+        var left = max(0, x0);
+        var right = min(width - 1, x0 + 1);
+        var top = max(0, y0) * width;
+        var bottom = min(height - 1, y0 + 1) * width;
+        var upper = lerp(image[top + left], image[top + right], fx);
+        var lower = lerp(image[bottom + left], image[bottom + right], fx);
+        return lerp(upper, lower, fy);
+    }
+
+    private static int lerp(int p, int q, int f) {
+        if (p == q) {
+            return p;
+        }
+        var ag = (p >>> 8 & 0xFF00FF) * (256 - f) + (q >>> 8 & 0xFF00FF) * f;
+        var rb = (p & 0xFF00FF) * (256 - f) + (q & 0xFF00FF) * f;
+        return ag & 0xFF00FF00 | rb >>> 8 & 0xFF00FF;
+    }
+
+    private void blend(int index, int rgb, int alpha) {
+        if (alpha >= 256) {
+            pixels[index] = rgb;
+        } else if (alpha > 0) {
+            pixels[index] = Blender.blend(pixels[index], rgb, alpha);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ch.trick17.gui.impl.swing;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.spi.Backend;
+import ch.trick17.gui.spi.Capability;
+
+import java.awt.GraphicsEnvironment;
+import java.util.Map;
+import java.util.Set;
+
+import static ch.trick17.gui.spi.Capability.*;
+
+/**
+ * Backend for the Swing-based {@link Window}. Supported options:
+ * <ul>
+ *     <li><code>opengl</code>: whether to use the OpenGL-based Java2D
+ *     pipeline (default: <code>true</code>). Only has an effect if set before
+ *     the first window is created and if the <code>sun.java2d.opengl</code>
+ *     system property is not set.</li>
+ *     <li><code>accumulating</code>: whether to enable the
+ *     {@linkplain Window#setAccumulating(boolean) accumulating mode}
+ *     (default: <code>false</code>).</li>
+ *     <li><code>active</code>: whether to use active rendering, i.e., paint
+ *     and present frames directly in the <code>refresh...()</code> methods
+ *     (default: <code>false</code>). See {@link Window}.</li>
+ * </ul>
+ */
+public class SwingBackend implements Backend {
+
+    @Override
+    public String getName() {
+        return "swing";
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Set.of(DISPLAY, INPUT, HARDWARE_ACCELERATION, CUSTOM_COMMANDS);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return !GraphicsEnvironment.isHeadless();
+    }
+
+    @Override
+    public Gui create(String title, int width, int height, Map<String, String> options) {
+        var opengl = options.get("opengl");
+        if (opengl != null && System.getProperty("sun.java2d.opengl") == null) {
+            System.setProperty("sun.java2d.opengl", opengl);
+        }
+        var window = new Window(title, width, height, Boolean.parseBoolean(options.get("active")));
+        window.setAccumulating(Boolean.parseBoolean(options.get("accumulating")));
+        var targetFrameTime = options.get("targetFrameTime");
+        if (targetFrameTime != null) {
+            window.setTargetFrameTime(Double.parseDouble(targetFrameTime));
+        }
+        var virtualResolution = options.get("virtualResolution");
+        if (virtualResolution != null) {
+            var parts = virtualResolution.split("x");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("illegal virtual resolution: " + virtualResolution);
+            }
+            window.setVirtualResolution(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return window;
+    }
+}
@@ -1,166 +1,160 @@
 package ch.trick17.gui.impl.swing;
 
-import ch.trick17.gui.Color;
 import ch.trick17.gui.Gui;
-import ch.trick17.gui.impl.GuiBase;
+import ch.trick17.gui.impl.Java2DGui;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.*;
-import java.io.IOException;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.lang.reflect.InvocationTargetException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.List;
 import java.util.*;
 import java.util.function.Consumer;
 
-import static java.awt.BasicStroke.*;
 import static java.awt.Color.BLACK;
 import static java.awt.Color.WHITE;
 import static java.awt.Font.*;
 import static java.awt.GraphicsEnvironment.getLocalGraphicsEnvironment;
 import static java.awt.RenderingHints.*;
-import static java.awt.geom.Path2D.WIND_EVEN_ODD;
 import static java.lang.Math.*;
 import static javax.swing.SwingUtilities.*;
 
 /**
  * Swing-based implementation of {@link Gui}.
+ * <p>
+ * By default, the window uses passive rendering: refreshing only schedules a
+ * repaint, which Swing's <code>RepaintManager</code> performs on the event
+ * dispatch thread some time later. In <em>active</em> rendering mode, the
+ * content is painted on a {@link Canvas} with a {@link BufferStrategy}
+ * instead, directly by the thread that calls the <code>refresh...()</code>
+ * methods, which then flips the buffers and synchronizes with the window
+ * system before returning. This makes the time until a frame is presented
+ * predictable.
  */
-public class Window extends GuiBase {
-
-    private static final Set<String> LEGAL_KEY_NAMES = new HashSet<>();
-    private static final Map<Integer, String> CODE_TO_NAME = new HashMap<>();
+public class Window extends Java2DGui {
 
     static {
-        System.setProperty("sun.java2d.opengl", "true");
-
-        for (var field : KeyEvent.class.getFields()) {
-            var fieldName = field.getName();
-            if (fieldName.startsWith("VK_")) {
-                try {
-                    var code = field.getInt(KeyEvent.class);
-                    var name = fieldName.substring(3).toLowerCase();
-                    LEGAL_KEY_NAMES.add(name);
-                    CODE_TO_NAME.put(code, name);
-                } catch (Exception ignored) {
-                }
-            }
+        // use OpenGL pipeline, unless configured otherwise (see SwingBackend)
+        if (System.getProperty("sun.java2d.opengl") == null) {
+            System.setProperty("sun.java2d.opengl", "true");
         }
     }
 
     private static final int MIN_WIDTH = 200;
     private static final int MIN_HEIGHT = 100;
-
-    private static final Key TEXT_ALIGN = new Key(165191049) {
-        public boolean isCompatibleValue(Object val) {
-            return val instanceof TextAlign;
-        }
-    };
-    private static final Key LINE_SPACING = new Key(165191050) {
-        public boolean isCompatibleValue(Object val) {
-            return val instanceof Double;
-        }
-    };
+    private static final double MIN_RENDER_SCALE = 0.25;
 
     private final JFrame frame;
-    private final JPanel panel;
+    private final Component surface; // JPanel or, in active mode, Canvas
+    private final boolean active;
     private final GraphicsDevice device = getLocalGraphicsEnvironment().getDefaultScreenDevice();
     private boolean fullScreen;
 
-    private List<Consumer<Graphics2D>> drawCommands;
-    private List<Consumer<Graphics2D>> drawSnapshot;
+    private Snapshot snapshot = Snapshot.EMPTY;
+
+    // with a target frame time or a virtual resolution, frames are painted
+    // into this buffer first and then scaled to the size of the surface
+    private double targetFrameTime; // millis, 0 if disabled
+    private double renderScale = 1;
+    private int virtualWidth;       // 0 if disabled
+    private int virtualHeight;
+    private boolean upscaleNearestNeighbor;
+    private VolatileImage buffer;
 
-    private final Map<String, Image> images = new HashMap<>();
+    // in accumulating mode, commands of previous frames are flattened into
+    // this image (in device pixels), instead of being replayed in every frame
+    private boolean accumulating;
+    private BufferedImage accumulated;
+    private Graphics2D accumulatedGraphics;
 
     public Window(String title, int width, int height) {
+        this(title, width, height, false);
+    }
+
+    /**
+     * Creates a window that uses active rendering if <code>active</code> is
+     * <code>true</code> and passive rendering otherwise (see above).
+     */
+    public Window(String title, int width, int height, boolean active) {
         super(title, width, height);
+        this.active = active;
 
         frame = new JFrame();
         frame.setTitle(title);
         frame.setResizable(false);
         frame.setMinimumSize(new Dimension(MIN_WIDTH, MIN_HEIGHT));
 
-        panel = new JPanel() {
-            @Override
-            public void paintComponent(Graphics graphics) {
-                var g = (Graphics2D) graphics;
-                g.addRenderingHints(Map.of(
-                        KEY_RENDERING, VALUE_RENDER_QUALITY,
-                        KEY_STROKE_CONTROL, VALUE_STROKE_PURE,
-                        KEY_ANTIALIASING, VALUE_ANTIALIAS_ON));
-                // white background
-                g.setColor(WHITE);
-                g.fillRect(0, 0, getWidth(), getHeight());
-                // execute draw commands
-                synchronized (Window.this) {
-                    drawSnapshot.forEach(command -> command.accept(g));
+        if (active) {
+            surface = new Canvas() {
+                @Override
+                public void paint(Graphics graphics) {
+                    // called when the window system needs the content again
+                    present();
                 }
-            }
-        };
+
+                @Override
+                public void update(Graphics graphics) {
+                    paint(graphics); // no need to clear first
+                }
+            };
+            surface.setFocusable(false); // key events go to the frame
+        } else {
+            surface = new JPanel() {
+                @Override
+                public void paintComponent(Graphics graphics) {
+                    synchronized (Window.this) {
+                        paintFrame((Graphics2D) graphics);
+                    }
+                }
+            };
+        }
         var size = new Dimension(width, height);
-        panel.setSize(size);
-        panel.setPreferredSize(size);
-        panel.addMouseListener(new MouseAdapter() {
+        surface.setSize(size);
+        surface.setPreferredSize(size);
+        surface.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                synchronized (inputLock) {
-                    pressedInputs.add(new MouseInput(isLeftMouseButton(e)));
-                }
+                mouseButtonPressed(isLeftMouseButton(e), clampedX(e), clampedY(e));
             }
 
             @Override
             public void mouseReleased(MouseEvent e) {
-                var input = new MouseInput(isLeftMouseButton(e));
-                synchronized (inputLock) {
-                    pressedInputs.remove(input);
-                    releasedInputs.add(input);
-                }
+                mouseButtonReleased(isLeftMouseButton(e), clampedX(e), clampedY(e));
             }
         });
-        panel.addMouseMotionListener(new MouseAdapter() {
+        surface.addMouseMotionListener(new MouseAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
-                synchronized (inputLock) {
-                    mouseX = e.getX();
-                    mouseY = e.getY();
-                }
+                Window.this.mouseMoved(toCanvasX(e.getX()), toCanvasY(e.getY()));
             }
 
             @Override
             public void mouseDragged(MouseEvent e) {
-                var x = max(0, min(width - 1, e.getX()));
-                var y = max(0, min(height - 1, e.getY()));
-                synchronized (inputLock) {
-                    mouseX = x;
-                    mouseY = y;
-                }
+                Window.this.mouseMoved(clampedX(e), clampedY(e));
             }
         });
-        panel.addComponentListener(new ComponentAdapter() {
+        surface.addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                Window.this.width = panel.getWidth();
-                Window.this.height = panel.getHeight();
+                if (virtualWidth == 0) {
+                    Window.this.width = surface.getWidth();
+                    Window.this.height = surface.getHeight();
+                }
             }
         });
         frame.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                synchronized (inputLock) {
-                    pressedInputs.add(toKeyInput(e));
-                }
+                Window.this.keyPressed(e.getKeyCode(), e.getKeyChar());
             }
 
             @Override
             public void keyReleased(KeyEvent e) {
-                var input = toKeyInput(e);
-                synchronized (inputLock) {
-                    pressedInputs.remove(input);
-                    releasedInputs.add(input);
-                }
+                Window.this.keyReleased(e.getKeyCode(), e.getKeyChar());
             }
         });
         frame.addWindowListener(new WindowAdapter() {
@@ -175,10 +169,7 @@ public class Window extends GuiBase {
         var constraints = new GridBagConstraints();
         constraints.weightx = 1;
         constraints.weighty = 1;
-        frame.getContentPane().add(panel, constraints);
-
-        drawCommands = new ArrayList<>(List.of(applyCurrentSettings()));
-        drawSnapshot = new ArrayList<>();
+        frame.getContentPane().add(surface, constraints);
 
         var main = Thread.currentThread();
         new Thread(() -> {
@@ -193,48 +184,25 @@ public class Window extends GuiBase {
         }).start();
     }
 
-    private KeyInput toKeyInput(KeyEvent e) {
-        var keyName = CODE_TO_NAME.get(e.getKeyCode());
-        if (!LEGAL_KEY_NAMES.contains(keyName.toLowerCase())) {
-            throw new IllegalArgumentException("key \"" + keyName + "\" does not exist");
-        }
-        return new KeyInput(keyName, e.getKeyChar());
+    // while dragging, the mouse may leave the window, but the position is
+    // still reported inside (as before)
+    private int clampedX(MouseEvent e) {
+        return max(0, min((int) width - 1, toCanvasX(e.getX())));
     }
 
-    private Consumer<Graphics2D> applyCurrentSettings() {
-        var currentColor = new java.awt.Color(color.r, color.g, color.b, color.alpha);
-        var currentStroke = new BasicStroke((float) strokeWidth, roundStroke ? CAP_ROUND : CAP_BUTT,
-                roundStroke ? JOIN_ROUND : JOIN_MITER);
-        var currentFont = currentFont();
-        var currentTextAlign = textAlign;
-        var currentLineHeight = lineSpacing;
-        var currentComposite = AlphaComposite.SrcOver.derive((float) alpha);
-        var currentInterpolation = nearestNeighborInterpolation ?
-                VALUE_INTERPOLATION_NEAREST_NEIGHBOR : VALUE_INTERPOLATION_BILINEAR;
-        return g -> {
-            g.setColor(currentColor);
-            g.setStroke(currentStroke);
-            g.setFont(currentFont);
-            // Text alignment and line height are stored as a "rendering hints"
-            // inside the Graphics2D object. Somewhat hacky, but consistent with
-            // all other settings, which are supported by Graphics2D directly.
-            g.addRenderingHints(Map.of(
-                    TEXT_ALIGN, currentTextAlign,
-                    LINE_SPACING, currentLineHeight,
-                    KEY_INTERPOLATION, currentInterpolation));
-            g.setComposite(currentComposite);
-        };
-    }
-
-    private Font currentFont() {
-        var style = (bold ? BOLD : PLAIN) | (italic ? ITALIC : PLAIN);
-        return new Font(fontFamily, style, fontSize);
+    private int clampedY(MouseEvent e) {
+        return max(0, min((int) height - 1, toCanvasY(e.getY())));
     }
 
     @Override
     public void open() {
-        drawSnapshot.addAll(drawCommands);
+        synchronized (this) {
+            snapshot = takeSnapshot(false);
+        }
         run(this::openFrame);
+        if (active) {
+            present();
+        }
         super.open();
     }
 
@@ -253,6 +221,10 @@ public class Window extends GuiBase {
             frame.toFront();
             frame.setAlwaysOnTop(false);
         }
+        if (active) {
+            // (re-)create buffers, as the old ones are lost when disposing
+            ((Canvas) surface).createBufferStrategy(2);
+        }
     }
 
     @Override
@@ -265,11 +237,11 @@ public class Window extends GuiBase {
     public void setResizable(boolean resizable) {
         run(() -> {
             var layout = (GridBagLayout) frame.getContentPane().getLayout();
-            var constraints = layout.getConstraints(panel);
+            var constraints = layout.getConstraints(surface);
             constraints.fill = resizable
                     ? GridBagConstraints.BOTH
                     : GridBagConstraints.CENTER;
-            layout.setConstraints(panel, constraints);
+            layout.setConstraints(surface, constraints);
             frame.setResizable(resizable);
         });
     }
@@ -292,298 +264,327 @@ public class Window extends GuiBase {
         return fullScreen;
     }
 
-    @Override
-    protected void repaint(boolean clear) {
-        frame.repaint();
-        if (clear) {
-            synchronized (this) {
-                drawSnapshot = drawCommands;
-                drawCommands = new ArrayList<>(List.of(applyCurrentSettings()));
-            }
-        } else {
-            synchronized (this) {
-                drawSnapshot = new ArrayList<>(drawCommands);
-            }
-        }
-    }
-
-    @Override
-    public void loadFont(String path) {
-        try (var res = getClass().getClassLoader().getResourceAsStream(path);
-             var stream = res != null ? res : Files.newInputStream(Path.of(path))) {
-            var font = Font.createFont(TRUETYPE_FONT, stream);
-            var success = getLocalGraphicsEnvironment().registerFont(font);
-            if (!success) {
-                throw new Error("could not register font \"" + font.getFontName() + "\" (conflicting name?)");
-            }
-        } catch (IOException | FontFormatException e) {
-            throw new Error("could not load font \"" + path + "\"", e);
-        }
-    }
-
-    /*
-     * Paint settings
+    /**
+     * If <code>accumulating</code> is <code>true</code>, the commands of
+     * frames that are displayed using {@link #refresh(int)} (without clearing)
+     * are flattened into an image, so that only the commands added since the
+     * last refresh need to be painted in each frame. This makes the cost of
+     * refreshing independent of the total number of drawing operations, which
+     * is useful for drawing programs that never clear the canvas.
+     * <p>
+     * Note that, in this mode, content outside the canvas is discarded when
+     * the commands are flattened, so it does not appear if the canvas is
+     * enlarged later. The mode is disabled by default.
      */
-
-    @Override
-    public void setColor(Color color) {
-        super.setColor(color);
-        drawCommands.add(g -> g.setColor(new java.awt.Color(color.r, color.g, color.b, color.alpha)));
-    }
-
-    @Override
-    public void setStrokeWidth(double strokeWidth) {
-        super.setStrokeWidth(strokeWidth);
-        drawCommands.add(g -> {
-            var prev = (BasicStroke) g.getStroke();
-            g.setStroke(new BasicStroke((float) strokeWidth,
-                    prev.getEndCap(),
-                    prev.getLineJoin()));
-        });
-    }
-
-    @Override
-    public void setRoundStroke(boolean roundStroke) {
-        super.setRoundStroke(roundStroke);
-        drawCommands.add(g -> {
-            var prev = (BasicStroke) g.getStroke();
-            g.setStroke(new BasicStroke(prev.getLineWidth(),
-                    roundStroke ? CAP_ROUND : CAP_BUTT,
-                    roundStroke ? JOIN_ROUND : JOIN_MITER));
-        });
-    }
-
-    @Override
-    public void setFontFamily(String fontFamily) {
-        super.setFontFamily(fontFamily);
-        var currentFont = currentFont();
-        drawCommands.add(g -> g.setFont(currentFont));
+    public void setAccumulating(boolean accumulating) {
+        this.accumulating = accumulating;
     }
 
-    @Override
-    public void setFontSize(int fontSize) {
-        super.setFontSize(fontSize);
-        var currentFont = currentFont();
-        drawCommands.add(g -> g.setFont(currentFont));
-    }
-
-    @Override
-    public void setBold(boolean bold) {
-        super.setBold(bold);
-        var currentFont = currentFont();
-        drawCommands.add(g -> g.setFont(currentFont));
+    public boolean isAccumulating() {
+        return accumulating;
     }
 
-    @Override
-    public void setItalic(boolean italic) {
-        super.setItalic(italic);
-        var currentFont = currentFont();
-        drawCommands.add(g -> g.setFont(currentFont));
-    }
-
-    @Override
-    public void setTextAlign(int textAlign) {
-        super.setTextAlign(textAlign);
-        drawCommands.add(g -> g.addRenderingHints(Map.of(TEXT_ALIGN, TextAlign.fromInt(textAlign))));
-    }
-
-    @Override
-    public void setLineSpacing(double lineSpacing) {
-        super.setLineSpacing(lineSpacing);
-        drawCommands.add(g -> g.addRenderingHints(Map.of(LINE_SPACING, clampPositive(lineSpacing))));
-    }
-
-    @Override
-    public void setAlpha(double alpha) {
-        super.setAlpha(alpha);
-        drawCommands.add(g -> g.setComposite(AlphaComposite.SrcOver.derive((float) max(0, min(1, alpha)))));
+    /**
+     * Returns <code>true</code> if this window uses active rendering.
+     */
+    public boolean isActiveRendering() {
+        return active;
     }
 
     @Override
-    public void setNearestNeighborInterpolation(boolean nearestNeighborInterpolation) {
-        super.setNearestNeighborInterpolation(nearestNeighborInterpolation);
-        var interpolation = nearestNeighborInterpolation
-                ? VALUE_INTERPOLATION_NEAREST_NEIGHBOR : VALUE_INTERPOLATION_BILINEAR;
-        drawCommands.add(g -> g.addRenderingHints(Map.of(KEY_INTERPOLATION, interpolation)));
+    protected void repaint(boolean clear) {
+        if (!active) {
+            frame.repaint();
+        }
+        synchronized (this) {
+            upscaleNearestNeighbor = nearestNeighborInterpolation;
+            if (accumulating && !clear) {
+                flatten();
+            }
+            var recorded = takeSnapshot(clear);
+            if (accumulated != null && recorded.cover == null) {
+                var image = accumulated;
+                var imageWidth = width;
+                var imageHeight = height;
+                var commands = new ArrayList<Consumer<Graphics2D>>(recorded.commands.size() + 1);
+                commands.add(g -> g.drawImage(image, 0, 0, (int) ceil(imageWidth), (int) ceil(imageHeight), null));
+                commands.addAll(recorded.commands);
+                snapshot = new Snapshot(commands, new Rectangle2D.Double(0, 0, imageWidth, imageHeight), recorded.hints);
+            } else {
+                snapshot = recorded;
+            }
+            if (clear) {
+                if (accumulated != null) {
+                    accumulatedGraphics.dispose();
+                    accumulated = null;
+                }
+            }
+        }
+        if (active) {
+            present();
+        }
     }
 
-    @Override
-    public double stringWidth(String string, String fontFamily, int fontSize,
-                              boolean bold, boolean italic) {
-        var style = (bold ? BOLD : PLAIN) | (italic ? ITALIC : PLAIN);
-        var font = new Font(fontFamily, style, fontSize);
-        var metrics = panel.getFontMetrics(font);
-        return string.lines()
-                .mapToInt(metrics::stringWidth)
-                .max().orElse(0);
+    /**
+     * In active mode, paints the current snapshot into the back buffer and
+     * shows it, repeating if the buffer contents are lost in the meantime
+     * (e.g., because the display mode changed). Finally, syncs with the
+     * window system, so the frame is on the screen when this method returns.
+     */
+    private synchronized void present() {
+        var strategy = ((Canvas) surface).getBufferStrategy();
+        if (strategy == null) {
+            return; // not displayable yet
+        }
+        present(strategy, this::paintFrame);
+        Toolkit.getDefaultToolkit().sync();
     }
 
-    /*
-     * Painting
+    /**
+     * Paints a frame into the back buffer of the given strategy and shows
+     * it, repeating until the contents were neither restored while painting
+     * nor lost after showing.
      */
-
-    @Override
-    public void drawRect(double x, double y, double width, double height) {
-        drawCommands.add(g -> g.draw(new Rectangle2D.Double(x, y, width, height)));
+    static void present(BufferStrategy strategy, Consumer<Graphics2D> paint) {
+        do {
+            do {
+                var g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    paint.accept(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
     }
 
-    @Override
-    public void fillRect(double x, double y, double width, double height) {
-        drawCommands.add(g -> g.fill(new Rectangle2D.Double(x, y, width, height)));
+    /**
+     * Paints the recorded commands onto the accumulated image and starts a new
+     * list of commands. Since each list of commands starts with a command
+     * that applies the current settings, the image can be painted on a fresh
+     * graphics object, e.g., after the canvas has been resized.
+     */
+    private void flatten() {
+        var w = (int) ceil(width);
+        var h = (int) ceil(height);
+        var scale = surface.getGraphicsConfiguration() != null
+                ? surface.getGraphicsConfiguration().getDefaultTransform()
+                : new AffineTransform();
+        var imageWidth = (int) ceil(w * scale.getScaleX());
+        var imageHeight = (int) ceil(h * scale.getScaleY());
+        if (accumulated == null || accumulated.getWidth() != imageWidth
+            || accumulated.getHeight() != imageHeight) {
+            var image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+            var g = image.createGraphics();
+            g.setColor(WHITE);
+            g.fillRect(0, 0, imageWidth, imageHeight);
+            if (accumulated != null) {
+                g.drawImage(accumulated, 0, 0, null);
+                accumulatedGraphics.dispose();
+            }
+            g.scale(scale.getScaleX(), scale.getScaleY());
+            accumulated = image;
+            accumulatedGraphics = g;
+        }
+        accumulatedGraphics.addRenderingHints(renderingHints());
+        for (var command : takeCommands(w, h)) {
+            command.accept(accumulatedGraphics);
+        }
     }
 
-    @Override
-    public void drawOval(double x, double y, double width, double height) {
-        drawCommands.add(g -> g.draw(new Ellipse2D.Double(x, y, width, height)));
+    /**
+     * Enables dynamic resolution scaling with the given target frame time (in
+     * milliseconds), or disables it if the target is 0. In this mode, frames
+     * are painted into an internal buffer, which is then scaled to the size
+     * of the window. If painting takes longer than the target, the
+     * resolution of the buffer is reduced, down to a quarter of the window
+     * size in each dimension; if painting is fast enough again, the
+     * resolution is increased, up to the full window size. This way, heavy
+     * scenes become blurry instead of slow. Coordinates are not affected.
+     * <p>
+     * Dynamic resolution scaling has no effect if a
+     * {@linkplain #setVirtualResolution(int, int) virtual resolution} is set.
+     */
+    public void setTargetFrameTime(double millis) {
+        if (!(millis >= 0)) {
+            throw new IllegalArgumentException("illegal target frame time: " + millis);
+        }
+        synchronized (this) {
+            targetFrameTime = millis;
+            renderScale = 1;
+        }
     }
 
-    @Override
-    public void fillOval(double x, double y, double width, double height) {
-        drawCommands.add(g -> g.fill(new Ellipse2D.Double(x, y, width, height)));
+    public double getTargetFrameTime() {
+        return targetFrameTime;
     }
 
-    @Override
-    public void drawLine(double x1, double y1, double x2, double y2) {
-        drawCommands.add(g -> g.draw(new Line2D.Double(x1, y1, x2, y2)));
+    /**
+     * Returns the current resolution of the internal buffer relative to the
+     * window size, which is between 0.25 and 1 if dynamic resolution scaling
+     * is enabled, and always 1 otherwise.
+     */
+    public synchronized double getRenderScale() {
+        return renderScale;
     }
 
-    @Override
-    public void drawPath(double[] coordinates) {
-        if (coordinates.length >= 2) {
-            var path = new Path2D.Double();
-            append(path, coordinates);
-            drawCommands.add(g -> g.draw(path));
+    /**
+     * Sets a fixed virtual resolution, or removes it if both arguments are 0.
+     * With a virtual resolution, {@link #getWidth()} and {@link #getHeight()}
+     * return the virtual size, all drawing happens in an internal buffer of
+     * that size, and the buffer is scaled to the window (keeping its aspect
+     * ratio, with black bars if necessary). Mouse coordinates are translated
+     * accordingly. This is useful for pixel-art games: if
+     * {@linkplain #setNearestNeighborInterpolation(boolean) nearest-neighbor
+     * interpolation} is enabled when refreshing, the buffer is scaled up
+     * without smoothing, so each virtual pixel becomes a sharp block.
+     */
+    public void setVirtualResolution(int width, int height) {
+        if (width < 0 || height < 0 || (width == 0) != (height == 0)) {
+            throw new IllegalArgumentException("illegal virtual resolution: " + width + "x" + height);
         }
-    }
-
-    @Override
-    public void drawPolygon(double[] coordinates) {
-        if (coordinates.length >= 2) {
-            var path = new Path2D.Double();
-            append(path, coordinates);
-            path.closePath();
-            drawCommands.add(g -> g.draw(path));
+        synchronized (this) {
+            virtualWidth = width;
+            virtualHeight = height;
+            if (width > 0) {
+                this.width = width;
+                this.height = height;
+            } else {
+                this.width = surface.getWidth();
+                this.height = surface.getHeight();
+            }
         }
     }
 
-    @Override
-    public void fillPolygon(double[] coordinates) {
-        if (coordinates.length >= 2) {
-            var path = new Path2D.Double(WIND_EVEN_ODD);
-            append(path, coordinates);
-            path.closePath();
-            drawCommands.add(g -> g.fill(path));
+    /**
+     * Paints the current snapshot onto the surface, directly or via the
+     * internal buffer.
+     */
+    private void paintFrame(Graphics2D g) {
+        var start = System.nanoTime();
+        var surfaceWidth = surface.getWidth();
+        var surfaceHeight = surface.getHeight();
+        if (virtualWidth == 0 && targetFrameTime == 0) {
+            snapshot.paint(g, surfaceWidth, surfaceHeight);
+            buffer = null;
+            framePainted(System.nanoTime() - start);
+            return;
         }
-    }
 
-    @Override
-    public void drawMultiPolygon(double[][] rings) {
-        var path = new Path2D.Double(WIND_EVEN_ODD);
-        for (var ring : rings) {
-            if (ring.length >= 2) {
-                append(path, ring);
-                path.closePath();
-            }
+        int canvasWidth, canvasHeight, bufferWidth, bufferHeight;
+        if (virtualWidth > 0) {
+            canvasWidth = bufferWidth = virtualWidth;
+            canvasHeight = bufferHeight = virtualHeight;
+        } else {
+            canvasWidth = surfaceWidth;
+            canvasHeight = surfaceHeight;
+            bufferWidth = max(1, (int) ceil(surfaceWidth * renderScale));
+            bufferHeight = max(1, (int) ceil(surfaceHeight * renderScale));
         }
-        drawCommands.add(g -> g.draw(path));
-    }
 
-    @Override
-    public void fillMultiPolygon(double[][] rings) {
-        var path = new Path2D.Double(WIND_EVEN_ODD);
-        for (var ring : rings) {
-            if (ring.length >= 2) {
-                append(path, ring);
-                path.closePath();
+        var config = surface.getGraphicsConfiguration();
+        if (buffer == null || buffer.getWidth() != bufferWidth || buffer.getHeight() != bufferHeight
+            || buffer.validate(config) == VolatileImage.IMAGE_INCOMPATIBLE) {
+            buffer = config.createCompatibleVolatileImage(bufferWidth, bufferHeight);
+        }
+        do {
+            buffer.validate(config);
+            var bufferGraphics = buffer.createGraphics();
+            try {
+                bufferGraphics.scale(bufferWidth / (double) canvasWidth, bufferHeight / (double) canvasHeight);
+                snapshot.paint(bufferGraphics, canvasWidth, canvasHeight);
+            } finally {
+                bufferGraphics.dispose();
             }
+        } while (buffer.contentsLost());
+
+        var target = letterbox(surfaceWidth, surfaceHeight, canvasWidth, canvasHeight);
+        if (target.width < surfaceWidth || target.height < surfaceHeight) {
+            g.setColor(BLACK);
+            g.fillRect(0, 0, surfaceWidth, surfaceHeight);
+        }
+        g.setRenderingHint(KEY_INTERPOLATION, upscaleNearestNeighbor
+                ? VALUE_INTERPOLATION_NEAREST_NEIGHBOR : VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(buffer, target.x, target.y, target.width, target.height, null);
+
+        var time = System.nanoTime() - start;
+        framePainted(time);
+        if (virtualWidth == 0) {
+            renderScale = adjustRenderScale(renderScale, time / 1_000_000.0, targetFrameTime);
         }
-        drawCommands.add(g -> g.fill(path));
     }
 
-    private static void append(Path2D.Double path, double[] coordinates) {
-        path.moveTo(coordinates[0], coordinates[1]);
-        for (int i = 2; i < coordinates.length; i += 2) {
-            path.lineTo(coordinates[i], coordinates[i + 1]);
-        }
+    /**
+     * Returns the area of the surface into which a canvas of the given size
+     * is scaled: as large as possible while keeping the aspect ratio, and
+     * centered, so that black bars remain on two sides if the aspect ratios
+     * differ.
+     */
+    static Rectangle letterbox(int surfaceWidth, int surfaceHeight, int canvasWidth, int canvasHeight) {
+        var scale = min(surfaceWidth / (double) canvasWidth, surfaceHeight / (double) canvasHeight);
+        var targetWidth = (int) round(canvasWidth * scale);
+        var targetHeight = (int) round(canvasHeight * scale);
+        return new Rectangle((surfaceWidth - targetWidth) / 2, (surfaceHeight - targetHeight) / 2,
+                targetWidth, targetHeight);
     }
 
-    @Override
-    public void drawString(String string, double x, double y) {
-        drawCommands.add(g -> {
-            var align = (TextAlign) g.getRenderingHints().get(TEXT_ALIGN);
-            var lineHeight = (double) g.getRenderingHints().get(LINE_SPACING);
-            var metrics = g.getFontMetrics();
-            var drawY = y;
-            for (var line : (Iterable<String>) string.lines()::iterator) {
-                var drawX = x;
-                if (align != TextAlign.LEFT) {
-                    var width = metrics.stringWidth(line);
-                    drawX -= align == TextAlign.CENTER ? width / 2f : width;
-                }
-                g.drawString(line, (float) drawX, (float) drawY);
-                drawY += g.getFont().getSize() * lineHeight;
-            }
-        });
+    /**
+     * Maps a surface coordinate to the canvas, given the position and size
+     * of the {@linkplain #letterbox letterbox} area in the same dimension.
+     * Coordinates in the black bars map to positions outside the canvas.
+     */
+    static int toCanvas(int coord, int targetPos, int targetSize, int canvasSize) {
+        return (int) floor((coord - targetPos) * (double) canvasSize / targetSize);
     }
 
-    @Override
-    public void drawImage(String path, double x, double y, double scale, double angle) {
-        ensureLoaded(path);
-        var image = images.get(path);
-        var transform = new AffineTransform();
-        transform.translate(x, y);
-        transform.scale(scale, scale);
-        transform.rotate(angle, image.getWidth(null) / 2.0, image.getHeight(null) / 2.0);
-        drawCommands.add(g -> g.drawImage(image, transform, null));
+    /**
+     * Returns the new render scale: reduced if the frame took longer than
+     * the target and increased if it took considerably less. Since the number
+     * of pixels grows quadratically with the scale, the steps are small.
+     */
+    static double adjustRenderScale(double renderScale, double frameTime, double targetFrameTime) {
+        if (frameTime > targetFrameTime) {
+            return max(MIN_RENDER_SCALE, renderScale * 0.9);
+        } else if (frameTime < targetFrameTime * 0.6) {
+            return min(1, renderScale * 1.05);
+        } else {
+            return renderScale;
+        }
     }
 
-    @Override
-    public void drawImageCentered(String path, double x, double y, double scale, double angle) {
-        ensureLoaded(path);
-        var image = images.get(path);
-        var transform = new AffineTransform();
-        int imgWidth = image.getWidth(null);
-        int imgHeight = image.getHeight(null);
-        transform.translate(x - imgWidth / 2.0 * scale, y - imgHeight / 2.0 * scale);
-        transform.scale(scale, scale);
-        transform.rotate(angle, imgWidth / 2.0, imgHeight / 2.0);
-        drawCommands.add(g -> g.drawImage(image, transform, null));
+    private int toCanvasX(int x) {
+        if (virtualWidth == 0) {
+            return x;
+        }
+        var target = letterbox(surface.getWidth(), surface.getHeight(), virtualWidth, virtualHeight);
+        return toCanvas(x, target.x, target.width, virtualWidth);
     }
 
-    private void ensureLoaded(String imagePath) {
-        if (!images.containsKey(imagePath)) {
-            try (var res = getClass().getClassLoader().getResourceAsStream(imagePath)) {
-                Image image;
-                if (res != null) {
-                    image = new ImageIcon(res.readAllBytes()).getImage();
-                } else {
-                    image = new ImageIcon(imagePath).getImage();
-                }
-                if (image == null) {
-                    throw new Error("could not load image \"" + imagePath + "\"");
-                }
-                images.put(imagePath, image);
-            } catch (IOException e) {
-                throw new Error("could not load image \"" + imagePath + "\"", e);
-            }
+    private int toCanvasY(int y) {
+        if (virtualWidth == 0) {
+            return y;
         }
+        var target = letterbox(surface.getWidth(), surface.getHeight(), virtualWidth, virtualHeight);
+        return toCanvas(y, target.y, target.height, virtualHeight);
     }
 
     /**
-     * Adds a custom command to be executed in the next frame. The command has
-     * direct access to the {@link Graphics2D} object used internally for
-     * drawing, allowing for advanced operations like applying transformations.
-     * <p>
-     * Note that any transformation applied will only affect subsequent drawing
-     * commands <em>until the next {@linkplain Gui#refreshAndClear(int) clear}
-     * command</em>, so it is better to think of this method as a drawing method
-     * (like {@link #drawRect(double, double, double, double) drawRect}) rather
-     * than a setter method (like {@link #setColor(Color) setColor}).
-     *
-     * @param command command to be added
+     * Returns the component that displays the content (for testing).
      */
-    public void addCustomCommand(Consumer<Graphics2D> command) {
-        drawCommands.add(command);
+    Component surface() {
+        return surface;
+    }
+
+    @Override
+    public double stringWidth(String string, String fontFamily, int fontSize,
+                              boolean bold, boolean italic) {
+        var style = (bold ? BOLD : PLAIN) | (italic ? ITALIC : PLAIN);
+        var font = new Font(fontFamily, style, fontSize);
+        var metrics = surface.getFontMetrics(font);
+        return string.lines()
+                .mapToInt(metrics::stringWidth)
+                .max().orElse(0);
     }
 
     private void run(Runnable run) {
@@ -0,0 +1,86 @@
+package ch.trick17.gui.spi;
+
+import ch.trick17.gui.Gui;
+
+import java.awt.HeadlessException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * A backend creates {@link Gui} instances that use a specific technology for
+ * displaying (or otherwise processing) the drawn content. Backends are
+ * discovered using a {@link ServiceLoader}, so additional backends can be
+ * provided by other libraries by listing them in a
+ * <code>META-INF/services/ch.trick17.gui.spi.Backend</code> file.
+ *
+ * @see Gui#create(String, int, int, Map)
+ */
+public interface Backend {
+
+    /**
+     * Returns the name of this backend, which is used to select it, e.g.,
+     * "swing" or "headless".
+     */
+    String getName();
+
+    /**
+     * Returns the capabilities of the GUIs created by this backend.
+     */
+    Set<Capability> getCapabilities();
+
+    /**
+     * Returns <code>true</code> if this backend can be used in the current
+     * environment. For example, backends that display a window are not
+     * available on machines without a display.
+     */
+    boolean isAvailable();
+
+    /**
+     * Creates a new GUI with the specified title, width, and height. The
+     * options are backend-specific; unknown options are ignored.
+     */
+    Gui create(String title, int width, int height, Map<String, String> options);
+
+    /**
+     * Returns all backends that can be discovered, in the order in which they
+     * appear on the class path.
+     */
+    static List<Backend> all() {
+        var backends = new ArrayList<Backend>();
+        ServiceLoader.load(Backend.class).forEach(backends::add);
+        return backends;
+    }
+
+    /**
+     * Returns the backend with the given name, or, if <code>name</code> is
+     * <code>null</code>, the first available backend that can display a GUI.
+     * Backends without a display, like "headless", are only used if they are
+     * selected explicitly, so programs do not silently run without a window.
+     *
+     * @throws IllegalArgumentException if there is no (available) backend with
+     *                                  the given name
+     * @throws HeadlessException        if <code>name</code> is
+     *                                  <code>null</code> and no backend can
+     *                                  display a GUI
+     */
+    static Backend select(String name) {
+        var backends = all();
+        for (var backend : backends) {
+            if (name == null && backend.isAvailable() && backend.getCapabilities().contains(Capability.DISPLAY)
+                || backend.getName().equals(name)) {
+                if (!backend.isAvailable()) {
+                    throw new IllegalArgumentException("backend \"" + name + "\" not available");
+                }
+                return backend;
+            }
+        }
+        if (name == null) {
+            throw new HeadlessException("no display available; to run without one, select a backend "
+                    + "explicitly, e.g., using -Dch.trick17.gui.backend=headless");
+        }
+        throw new IllegalArgumentException("unknown backend \"" + name + "\"");
+    }
+}
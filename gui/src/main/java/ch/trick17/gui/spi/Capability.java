@@ -0,0 +1,33 @@
+package ch.trick17.gui.spi;
+
+/**
+ * Capabilities that GUIs created by a {@link Backend} may have.
+ */
+public enum Capability {
+
+    /**
+     * The GUI is displayed on the screen.
+     */
+    DISPLAY,
+
+    /**
+     * The GUI receives keyboard and mouse input from the user.
+     */
+    INPUT,
+
+    /**
+     * The GUI may use the graphics hardware for drawing.
+     */
+    HARDWARE_ACCELERATION,
+
+    /**
+     * The displayed content can be written to an image file.
+     */
+    IMAGE_OUTPUT,
+
+    /**
+     * The GUI supports custom commands that have direct access to the
+     * underlying <code>Graphics2D</code> object.
+     */
+    CUSTOM_COMMANDS
+}
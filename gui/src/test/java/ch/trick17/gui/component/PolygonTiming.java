@@ -0,0 +1,75 @@
+package ch.trick17.gui.component;
+
+import java.util.Random;
+
+import static ch.trick17.gui.component.ShapeTest.naiveContains;
+import static java.lang.Math.*;
+
+/**
+ * Measures point-in-polygon tests for polygons with many corners (like the
+ * outlines of countries on a map), compared to testing all edges.
+ */
+public class PolygonTiming {
+
+    private static final int POINTS = 100_000;
+
+    public static void main(String[] args) {
+        for (int corners : new int[]{100, 10_000, 100_000}) {
+            var random = new Random(42);
+            // outline with a few islands and lakes, like fillMultiPolygon data
+            var rings = new double[][]{
+                    coastline(random, 500, 500, 450, corners),
+                    coastline(random, 500, 500, 100, corners / 10),
+                    coastline(random, 100, 100, 50, corners / 10),
+                    coastline(random, 900, 150, 60, corners / 10)};
+            var start = System.nanoTime();
+            var polygon = new Polygon(rings);
+            var constructionTime = (System.nanoTime() - start) / 1_000_000.0;
+
+            var xs = new double[POINTS];
+            var ys = new double[POINTS];
+            for (int i = 0; i < POINTS; i++) {
+                xs[i] = random.nextDouble() * 1000;
+                ys[i] = random.nextDouble() * 1000;
+            }
+            for (int round = 0; round < 5; round++) {
+                var inside = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < POINTS; i++) {
+                    inside += polygon.contains(xs[i], ys[i]) ? 1 : 0;
+                }
+                var time = (System.nanoTime() - start) / (double) POINTS;
+
+                var naivePoints = POINTS / 100;
+                var naiveInside = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < naivePoints; i++) {
+                    naiveInside += naiveContains(rings, xs[i], ys[i]) ? 1 : 0;
+                }
+                var naiveTime = (System.nanoTime() - start) / (double) naivePoints;
+                if (round == 4) {
+                    System.out.printf("%d corners: %.1f ms to create, %.0f ns/test (all edges: %.0f ns/test) [%d, %d]%n",
+                            corners, constructionTime, time, naiveTime, inside, naiveInside);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a ring that winds around the given center, with a radius that
+     * varies both smoothly and randomly (but only slightly between
+     * neighboring corners, as for real outlines).
+     */
+    private static double[] coastline(Random random, double x, double y, double radius, int corners) {
+        var ring = new double[2 * corners];
+        var noise = 0.0;
+        for (int i = 0; i < corners; i++) {
+            var angle = 2 * PI * i / corners;
+            noise = max(-0.1, min(0.1, noise + (random.nextDouble() - 0.5) * 0.01));
+            var r = radius * (0.8 + 0.05 * sin(3 * angle) + 0.05 * sin(17 * angle) + noise);
+            ring[2 * i] = x + r * cos(angle);
+            ring[2 * i + 1] = y + r * sin(angle);
+        }
+        return ring;
+    }
+}
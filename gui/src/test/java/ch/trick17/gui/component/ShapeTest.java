@@ -0,0 +1,158 @@
+package ch.trick17.gui.component;
+
+import ch.trick17.gui.impl.headless.HeadlessGui;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShapeTest {
+
+    @Test
+    public void circle() {
+        var circle = new Circle(10, 20, 5);
+        assertTrue(circle.contains(10, 20));
+        assertTrue(circle.contains(13, 24));
+        assertFalse(circle.contains(14, 24));
+        assertBounds(5, 15, 10, 10, circle.getBounds());
+    }
+
+    @Test
+    public void polygon() {
+        var triangle = new Polygon(0, 0, 10, 0, 0, 10);
+        assertTrue(triangle.contains(2, 2));
+        assertFalse(triangle.contains(6, 6));
+        assertFalse(triangle.contains(-1, 2));
+        assertBounds(0, 0, 10, 10, triangle.getBounds());
+
+        var withHole = new Polygon(new double[][]{
+                {0, 0, 10, 0, 10, 10, 0, 10},
+                {2, 2, 8, 2, 8, 8, 2, 8}});
+        assertTrue(withHole.contains(1, 5));
+        assertFalse(withHole.contains(5, 5));
+        assertTrue(withHole.contains(9, 9));
+    }
+
+    @Test
+    public void polygonManyCorners() {
+        var random = new Random(42);
+        var rings = new double[][]{star(random, 500, 500, 400, 20_000), star(random, 500, 500, 150, 5_000)};
+        rings[0][10] = rings[0][12] = -100; // a long vertical edge
+        var polygon = new Polygon(rings);
+        for (int i = 0; i < 100_000; i++) {
+            var x = random.nextDouble() * 1200 - 100;
+            var y = random.nextDouble() * 1200 - 100;
+            assertEquals(naiveContains(rings, x, y), polygon.contains(x, y));
+        }
+    }
+
+    static double[] star(Random random, double x, double y, double radius, int corners) {
+        var ring = new double[2 * corners];
+        for (int i = 0; i < corners; i++) {
+            var angle = 2 * PI * i / corners;
+            var r = radius * (0.5 + random.nextDouble() / 2);
+            ring[2 * i] = x + r * cos(angle);
+            ring[2 * i + 1] = y + r * sin(angle);
+        }
+        return ring;
+    }
+
+    static boolean naiveContains(double[][] rings, double px, double py) {
+        var inside = false;
+        for (var ring : rings) {
+            for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                double x1 = ring[i], y1 = ring[i + 1], x2 = ring[j], y2 = ring[j + 1];
+                if ((y1 > py) != (y2 > py) && px < x1 + (py - y1) / (y2 - y1) * (x2 - x1)) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    @Test
+    public void polygonInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new Polygon(0, 0, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Polygon(0, 0, 10, 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new Polygon(new double[0][]));
+    }
+
+    @Test
+    public void union() {
+        var union = new Union(new Rectangle(0, 0, 10, 10), new Circle(30, 5, 5));
+        assertTrue(union.contains(5, 5));
+        assertTrue(union.contains(30, 5));
+        assertFalse(union.contains(20, 5));
+        assertBounds(0, 0, 35, 10, union.getBounds());
+
+        Shape unbounded = (x, y) -> true;
+        assertNull(new Union(union, unbounded).getBounds());
+        assertTrue(new Union(union, unbounded).contains(20, 5));
+    }
+
+    @Test
+    public void transformed() {
+        var rect = new Rectangle(0, 0, 10, 20);
+        assertBounds(5, 5, 10, 20, rect.translated(5, 5).getBounds());
+
+        var scaled = rect.scaled(2, 0.5);
+        assertTrue(scaled.contains(19, 9));
+        assertFalse(scaled.contains(5, 11));
+        assertBounds(0, 0, 20, 10, scaled.getBounds());
+
+        var rotated = rect.rotated(PI / 2, 0, 0); // clockwise on the screen
+        assertTrue(rotated.contains(-15, 5));
+        assertFalse(rotated.contains(5, 5));
+        assertBounds(-20, 0, 20, 10, rotated.getBounds());
+
+        var combined = rotated.translated(20, 0);
+        assertTrue(combined.contains(5, 5));
+        assertBounds(0, 0, 20, 10, combined.getBounds());
+
+        assertThrows(IllegalArgumentException.class, () -> rect.scaled(0, 1));
+    }
+
+    @Test
+    public void image(@TempDir Path dir) throws IOException {
+        // 20x10 image, opaque only in the right half, except for a hole
+        var image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 10; x < 20; x++) {
+                image.setRGB(x, y, x == 15 && y == 5 ? 0x40FF0000 : 0xFFFF0000);
+            }
+        }
+        var file = dir.resolve("sprite.png");
+        ImageIO.write(image, "png", file.toFile());
+
+        var gui = new HeadlessGui("Test", 100, 100);
+        var shape = gui.getImageShape(file.toString(), 50, 50);
+        assertFalse(shape.contains(55, 55));
+        assertTrue(shape.contains(62, 55));
+        assertFalse(shape.contains(65.5, 55.5));
+        assertFalse(shape.contains(71, 55));
+        assertBounds(60, 50, 10, 10, shape.getBounds());
+
+        // scaled by 2 and rotated by 180 degrees: opaque half is on the left
+        var rotated = gui.getImageShapeCentered(file.toString(), 50, 50, 2, PI);
+        assertTrue(rotated.contains(35, 50));
+        assertFalse(rotated.contains(65, 50));
+        assertFalse(rotated.contains(39, 49)); // the hole
+        assertBounds(30, 40, 20, 20, rotated.getBounds());
+    }
+
+    private static void assertBounds(double x, double y, double width, double height, Rectangle bounds) {
+        assertEquals(x, bounds.getLeftX(), 1e-9);
+        assertEquals(y, bounds.getTopY(), 1e-9);
+        assertEquals(width, bounds.getWidth(), 1e-9);
+        assertEquals(height, bounds.getHeight(), 1e-9);
+    }
+}
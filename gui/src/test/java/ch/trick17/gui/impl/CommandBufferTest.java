@@ -0,0 +1,108 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.Color;
+import ch.trick17.gui.impl.headless.HeadlessGui;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandBufferTest {
+
+    @Test
+    void layers() {
+        var gui = new HeadlessGui("Test", 200, 100);
+        var below = gui.createCommandBuffer(-1);
+        var above1 = gui.createCommandBuffer(1);
+        var above2 = gui.createCommandBuffer(1);
+
+        above2.setColor(new Color(0, 0, 255));
+        above2.fillRect(40, 0, 40, 100);
+        above2.submit();
+        above1.setColor(new Color(0, 255, 0));
+        above1.fillRect(20, 0, 40, 100);
+        above1.submit();
+        below.setColor(new Color(255, 0, 0));
+        below.fillRect(0, 0, 200, 100);
+        below.submit();
+
+        gui.setColor(new Color(255, 255, 0));
+        gui.fillRect(0, 0, 30, 100);
+        gui.fillRect(150, 0, 50, 100);
+        gui.refreshAndClear();
+
+        var image = gui.getImage();
+        assertEquals(0xFFFFFF00, image.getRGB(10, 50));
+        assertEquals(0xFF00FF00, image.getRGB(35, 50)); // above the GUI's commands
+        assertEquals(0xFF0000FF, image.getRGB(50, 50)); // created later, so on top
+        assertEquals(0xFFFF0000, image.getRGB(100, 50));
+        assertEquals(0xFFFFFF00, image.getRGB(170, 50)); // below the GUI's commands
+
+        gui.refresh();
+        assertEquals(0xFFFFFFFF, image.getRGB(100, 50)); // submitted commands cleared
+    }
+
+    @Test
+    void settingsIndependent() {
+        var gui = new HeadlessGui("Test", 100, 100);
+        gui.setColor(new Color(255, 0, 0));
+        var buffer = gui.createCommandBuffer(0);
+        assertEquals(new Color(0, 0, 0), buffer.getColor());
+        buffer.setColor(new Color(0, 0, 255));
+        buffer.setAlpha(0.5);
+        buffer.fillRect(0, 0, 10, 10);
+        buffer.submit();
+        gui.refresh();
+        gui.fillRect(50, 50, 10, 10);
+        gui.refreshAndClear();
+        assertEquals(0xFFFF0000, gui.getImage().getRGB(55, 55));
+
+        buffer.fillRect(0, 0, 10, 10); // settings kept after submit
+        buffer.submit();
+        gui.refreshAndClear();
+        assertEquals(0xFF7F7FFF, gui.getImage().getRGB(5, 5));
+    }
+
+    @Test
+    void multipleThreads() throws InterruptedException {
+        var gui = new HeadlessGui("Test", 100, 100);
+        var buffers = new ArrayList<CommandBuffer>();
+        for (int i = 0; i < 8; i++) {
+            buffers.add(gui.createCommandBuffer(0));
+        }
+        var threads = new ArrayList<Thread>();
+        for (int i = 0; i < buffers.size(); i++) {
+            var buffer = buffers.get(i);
+            var gray = i * 30;
+            threads.add(new Thread(() -> {
+                buffer.setColor(new Color(gray, gray, gray));
+                for (int j = 0; j < 1000; j++) {
+                    buffer.fillRect(0, 0, 100, 100);
+                }
+                buffer.submit();
+            }));
+        }
+        for (int i = threads.size() - 1; i >= 0; i--) {
+            threads.get(i).start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        gui.refreshAndClear();
+        assertEquals(0xFFD2D2D2, gui.getImage().getRGB(50, 50)); // last created buffer on top
+    }
+
+    @Test
+    void ownTransform() {
+        var gui = new HeadlessGui("Test", 200, 100);
+        var buffer = gui.createCommandBuffer(1);
+        gui.translate(100, 0);
+        buffer.scale(2, 2);
+        buffer.fillRect(0, 0, 20, 20);
+        buffer.submit();
+        gui.refreshAndClear();
+        assertEquals(0xFF000000, gui.getImage().getRGB(30, 30));
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(130, 30));
+    }
+}
@@ -0,0 +1,84 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.component.Clickable;
+import ch.trick17.gui.component.Hoverable;
+import ch.trick17.gui.component.Rectangle;
+import ch.trick17.gui.impl.headless.HeadlessGui;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Measures the time it takes to run many interactive components (like
+ * markers on a map) while the mouse moves over them.
+ */
+public class ComponentTiming {
+
+    private static final int COMPONENTS = 20_000;
+    private static final int FRAMES = 500;
+    private static final int CHURN = 200;
+
+    public static void main(String[] args) {
+        var gui = new HeadlessGui("Timing", 1000, 1000);
+        var random = new Random(42);
+        for (int i = 0; i < COMPONENTS; i++) {
+            gui.addComponent(new Marker(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        }
+        for (int round = 0; round < 10; round++) {
+            var start = System.nanoTime();
+            for (int frame = 0; frame < FRAMES; frame++) {
+                gui.mouseXSnapshot = frame % 1000;
+                gui.mouseYSnapshot = frame * 7 % 1000;
+                gui.runComponents();
+            }
+            var time = (System.nanoTime() - start) / 1_000_000.0 / FRAMES;
+            System.out.printf("%d components: %.3f ms/frame%n", COMPONENTS, time);
+        }
+
+        // spawn and despawn many components per frame
+        var spawned = new ArrayDeque<Marker>();
+        for (int round = 0; round < 10; round++) {
+            var start = System.nanoTime();
+            for (int frame = 0; frame < FRAMES; frame++) {
+                for (int i = 0; i < CHURN; i++) {
+                    var marker = new Marker(random.nextDouble() * 1000, random.nextDouble() * 1000);
+                    gui.addComponent(marker);
+                    spawned.add(marker);
+                }
+                while (spawned.size() > COMPONENTS / 4) {
+                    gui.removeComponent(spawned.remove());
+                }
+                gui.runComponents();
+            }
+            var time = (System.nanoTime() - start) / 1_000_000.0 / FRAMES;
+            System.out.printf("%d components, %d added and removed per frame: %.3f ms/frame%n",
+                    COMPONENTS, CHURN, time);
+        }
+    }
+
+    private static class Marker implements Hoverable, Clickable {
+        private final Rectangle area;
+        private boolean hovered;
+
+        Marker(double x, double y) {
+            area = new Rectangle(x, y, 8, 8);
+        }
+
+        public Rectangle getInteractiveArea(Gui gui) {
+            return area;
+        }
+
+        public void onMouseEnter() {
+            hovered = true;
+        }
+
+        public void onMouseExit() {
+            hovered = false;
+        }
+
+        public void onLeftClick(double x, double y) {}
+
+        public void onRightClick(double x, double y) {}
+    }
+}
@@ -1,16 +1,32 @@
 package ch.trick17.gui.impl;
 
+import ch.trick17.gui.Color;
 import ch.trick17.gui.Gui;
+import ch.trick17.gui.InputEvent;
+import ch.trick17.gui.InputSnapshot;
 import ch.trick17.gui.component.Clickable;
 import ch.trick17.gui.component.Component;
+import ch.trick17.gui.component.Drawable;
+import ch.trick17.gui.component.EventListener;
+import ch.trick17.gui.component.Interactive;
 import ch.trick17.gui.component.Rectangle;
 import ch.trick17.gui.component.Shape;
-import ch.trick17.gui.impl.GuiBase.KeyInput;
-import ch.trick17.gui.impl.GuiBase.MouseInput;
+import ch.trick17.gui.component.Updatable;
+import ch.trick17.gui.impl.headless.HeadlessGui;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.imageio.ImageIO;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import static ch.trick17.gui.component.EventListener.*;
 import static ch.trick17.gui.impl.GuiBase.CHAR_UNDEFINED;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,8 +34,8 @@ class GuiBaseTest {
 
     @Test
     void isKeyPressed() {
-        var gui = new TestGui();
-        gui.pressedInputs.add(new KeyInput("left", CHAR_UNDEFINED));
+        var gui = new HeadlessGui("Test", 800, 600);
+        gui.keyPressed("left", CHAR_UNDEFINED);
         gui.refresh();
 
         assertTrue(gui.isKeyPressed("left"));
@@ -30,8 +46,9 @@ class GuiBaseTest {
 
     @Test
     void wasKeyTyped() {
-        var gui = new TestGui();
-        gui.releasedInputs.add(new KeyInput("a", 'a'));
+        var gui = new HeadlessGui("Test", 800, 600);
+        gui.keyPressed("a", 'a');
+        gui.keyReleased("a", 'a');
         gui.refresh();
 
         assertTrue(gui.wasKeyTyped("a"));
@@ -40,9 +57,125 @@ class GuiBaseTest {
         assertFalse(gui.wasKeyTyped("B"));
     }
 
+    @Test
+    void keyCodes() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        gui.keyPressed("Left", CHAR_UNDEFINED);
+        gui.keyPressed(KeyEvent.VK_SPACE, ' ');
+        gui.keyReleased("a", 'A'); // different char than when pressed
+        gui.refresh();
+
+        assertEquals(KeyEvent.VK_LEFT, Gui.keyCode("left"));
+        assertEquals(KeyEvent.VK_LEFT, Gui.keyCode("LEFT"));
+        assertEquals(-1, Gui.keyCode("no such key"));
+        assertTrue(gui.isKeyPressed(KeyEvent.VK_LEFT));
+        assertTrue(gui.isKeyPressed("space"));
+        assertFalse(gui.isKeyPressed(KeyEvent.VK_A));
+        assertTrue(gui.wasKeyTyped(KeyEvent.VK_A));
+        assertFalse(gui.isKeyPressed(-1));
+        assertEquals(List.of("space", "left"), gui.getPressedKeys());
+        assertEquals(List.of("a"), gui.getTypedKeys());
+        assertThrows(IllegalArgumentException.class, () -> gui.keyPressed("no such key", 'x'));
+
+        var presses = new ArrayList<String>();
+        gui.addComponent(new EventListener() {
+            public void onKeyPress(String keyName, char keyChar) {
+                presses.add(keyName + " " + keyChar);
+            }
+        });
+        gui.keyReleased("left", CHAR_UNDEFINED);
+        gui.keyReleased(KeyEvent.VK_SPACE, ' ');
+        gui.keyPressed("a", 'a');
+        gui.refresh();
+        gui.keyReleased("a", 'A'); // e.g., Shift was pressed in between
+        gui.refresh();
+        gui.refresh();
+        assertEquals(List.of("a a"), presses);
+        assertFalse(gui.isKeyPressed("a"));
+    }
+
+    @Test
+    void pressAndReleaseInOneFrame() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        gui.keyPressed("a", 'a');
+        gui.keyReleased("a", 'a');
+        gui.keyPressed("a", 'a');
+        gui.keyReleased("a", 'a');
+        gui.keyPressed("b", 'b');
+        gui.refresh();
+
+        assertFalse(gui.isKeyPressed("a"));
+        assertTrue(gui.wasKeyTyped("a"));
+        assertTrue(gui.isKeyPressed("b"));
+        assertEquals("KEY_PRESS a, KEY_RELEASE a, KEY_PRESS a, KEY_RELEASE a, KEY_PRESS b", describe(gui));
+
+        gui.refresh();
+        assertTrue(gui.getInputEvents().isEmpty());
+        assertFalse(gui.wasKeyTyped("a"));
+        assertTrue(gui.isKeyPressed("b")); // still pressed
+    }
+
+    @Test
+    void mouseEvents() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        gui.mouseMoved(10, 20);
+        gui.mouseMoved(30, 40);
+        gui.mouseButtonPressed(true, 30, 40);
+        gui.mouseMoved(50, 60);
+        gui.refresh();
+
+        assertEquals(50, gui.getMouseX());
+        assertEquals(60, gui.getMouseY());
+        assertTrue(gui.isLeftMouseButtonPressed());
+        var events = gui.getInputEvents();
+        assertEquals(4, events.size());
+        assertEquals(InputEvent.Type.MOUSE_PRESS, events.get(2).type);
+        assertEquals(30, events.get(2).x);
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).time >= events.get(i - 1).time);
+        }
+    }
+
+    @Test
+    void mouseTrail() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        for (int i = 0; i <= 100; i++) {
+            gui.mouseMoved(i, 2 * i);
+        }
+        gui.mouseMoved(100, 200); // repeated
+        gui.refresh();
+
+        var trail = gui.getMouseTrail();
+        assertEquals(101, trail.size());
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(i, trail.getX(i));
+            assertEquals(2 * i, trail.getY(i));
+        }
+        assertEquals(202, trail.toCoordinates().length);
+
+        gui.setMouseTrailCoalescing(10);
+        for (int i = 0; i <= 95; i++) {
+            gui.mouseMoved(100 + i, 200);
+        }
+        gui.refresh();
+        assertEquals(11, trail.size()); // every 10th position and the last one
+        assertEquals(100, trail.getX(0));
+        assertEquals(190, trail.getX(9));
+        assertEquals(195, trail.getX(10));
+
+        gui.refresh();
+        assertEquals(0, trail.size());
+    }
+
+    private static String describe(Gui gui) {
+        return gui.getInputEvents().stream()
+                .map(e -> e.type + " " + e.keyName)
+                .collect(Collectors.joining(", "));
+    }
+
     @Test
     void addComponent() {
-        var gui = new TestGui();
+        var gui = new HeadlessGui("Test", 800, 600);
 
         var clicked = new HashSet<String>();
         gui.addComponent(new Clickable() {
@@ -63,30 +196,360 @@ class GuiBaseTest {
         });
 
         // outside the clickable area
-        gui.mouseX = 10;
-        gui.mouseY = 10;
-        gui.releasedInputs.add(new MouseInput(true));
+        gui.mouseButtonReleased(true, 10, 10);
         gui.refresh();
         assertTrue(clicked.isEmpty());
 
         // inside the clickable area
-        gui.mouseX = 75;
-        gui.mouseY = 75;
-        gui.releasedInputs.add(new MouseInput(true));
+        gui.mouseButtonReleased(true, 75, 75);
         gui.refresh();
         assertEquals(1, clicked.size());
         assertTrue(clicked.contains("left: 75.0, 75.0"));
 
         clicked.clear();
-        gui.releasedInputs.add(new MouseInput(false));
+        gui.mouseButtonReleased(false, 75, 75);
         gui.refresh();
         assertEquals(1, clicked.size());
         assertTrue(clicked.contains("right: 75.0, 75.0"));
     }
 
+    @Test
+    void topmostClickable() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        var clicked = new ArrayList<String>();
+        var back = new Button("back", 0, 0, 200, 200, true, clicked);
+        var front = new Button("front", 50, 50, 100, 100, true, clicked);
+        var overlay = new Button("overlay", 0, 0, 800, 600, false, clicked);
+        gui.addComponent(front, 1);
+        gui.addComponent(back);
+        gui.addComponent(overlay, 2);
+        assertEquals(1, gui.getZOrder(front));
+        assertEquals(0, gui.getZOrder(back));
+
+        gui.mouseButtonReleased(true, 75, 75);
+        gui.refresh();
+        assertEquals(List.of("overlay", "front"), clicked); // overlay does not consume
+
+        clicked.clear();
+        gui.mouseButtonReleased(true, 10, 10);
+        gui.refresh();
+        assertEquals(List.of("overlay", "back"), clicked);
+
+        clicked.clear();
+        gui.setZOrder(back, 1); // now in front of "front"
+        gui.mouseButtonReleased(true, 75, 75);
+        gui.refresh();
+        assertEquals(List.of("overlay", "back"), clicked);
+
+        clicked.clear();
+        gui.removeComponent(back);
+        gui.mouseButtonReleased(true, 75, 75);
+        gui.refresh();
+        assertEquals(List.of("overlay", "front"), clicked);
+        assertThrows(IllegalArgumentException.class, () -> gui.getZOrder(back));
+    }
+
+    @Test
+    void deferredChanges() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        var drawn = new ArrayList<String>();
+        var a = new Named("a", drawn);
+        var b = new Named("b", drawn);
+        var c = new Named("c", drawn);
+        gui.addComponent(a);
+        gui.addComponent(new Drawable() {
+            public void draw(Gui gui) {
+                // changes while running take effect in the next frame
+                gui.removeComponent(this);
+                gui.addComponent(c, -1);
+                gui.setZOrder(a, 1);
+            }
+        });
+        gui.addComponent(b);
+        gui.refresh();
+        assertEquals(List.of("a", "b"), drawn);
+
+        drawn.clear();
+        gui.refresh();
+        assertEquals(List.of("c", "b", "a"), drawn);
+
+        // added and removed before the next frame
+        drawn.clear();
+        var d = new Named("d", drawn);
+        gui.addComponent(d);
+        gui.removeComponent(d);
+        gui.setZOrder(c, 2);
+        gui.setZOrder(c, 0);
+        gui.refresh();
+        assertEquals(List.of("b", "c", "a"), drawn);
+        assertThrows(IllegalArgumentException.class, () -> gui.removeComponent(d));
+        assertThrows(IllegalArgumentException.class, () -> gui.addComponent(c));
+    }
+
+    @Test
+    void pushPopSettings() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        gui.setColor(255, 0, 0);
+        gui.setStrokeWidth(3);
+        gui.pushSettings();
+        gui.setColor(0, 255, 0);
+        gui.setFontSize(20);
+        gui.setItalic(true);
+        gui.pushSettings();
+        gui.resetSettings();
+        assertEquals(new Color(0, 0, 0), gui.getColor());
+        assertEquals(11, gui.getFontSize());
+        assertTrue(gui.isItalic()); // kept by resetSettings
+
+        gui.popSettings();
+        assertEquals(new Color(0, 255, 0), gui.getColor());
+        assertEquals(3, gui.getStrokeWidth());
+        assertEquals(20, gui.getFontSize());
+        gui.popSettings();
+        assertEquals(new Color(255, 0, 0), gui.getColor());
+        assertEquals(11, gui.getFontSize());
+        assertFalse(gui.isItalic());
+        assertThrows(IllegalStateException.class, gui::popSettings);
+    }
+
+    @Test
+    void interactiveAreasWithoutTransform(@TempDir Path dir) throws IOException {
+        var image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        var file = dir.resolve("button.png");
+        ImageIO.write(image, "png", file.toFile());
+
+        var gui = new HeadlessGui("Test", 800, 600);
+        var clicked = new ArrayList<String>();
+        gui.addComponent(new Clickable() {
+            @Override
+            public void onLeftClick(double x, double y) {
+                clicked.add(x + ", " + y);
+            }
+
+            @Override
+            public void onRightClick(double x, double y) {}
+
+            @Override
+            public Shape getInteractiveArea(Gui gui) {
+                return gui.getImageShape(file.toString(), 50, 50);
+            }
+        });
+
+        gui.translate(-200, 0); // still active when refreshing
+        gui.scale(2);
+        gui.mouseButtonReleased(true, 75, 75);
+        gui.refresh();
+        assertEquals(List.of("75.0, 75.0"), clicked);
+        assertFalse(gui.getTransform().isIdentity()); // restored afterward
+    }
+
+    @Test
+    void componentSettings() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        var colors = new ArrayList<Color>();
+        for (int i = 0; i < 2; i++) {
+            gui.addComponent((Drawable) g -> {
+                colors.add(g.getColor());
+                g.pushSettings(); // not popped
+                g.setColor(0, 0, 255);
+                g.setAlpha(0.5);
+            });
+        }
+        gui.setColor(255, 0, 0);
+        gui.setLineSpacing(2);
+        gui.pushSettings();
+        gui.refresh();
+        assertEquals(List.of(new Color(0, 0, 0), new Color(0, 0, 0)), colors);
+        assertEquals(new Color(255, 0, 0), gui.getColor());
+        assertEquals(2, gui.getLineSpacing());
+        assertEquals(1, gui.getAlpha());
+
+        gui.setColor(0, 255, 0);
+        gui.popSettings(); // pushed before the refresh
+        assertEquals(new Color(255, 0, 0), gui.getColor());
+        assertThrows(IllegalStateException.class, gui::popSettings);
+    }
+
+    @Test
+    void subscriptionsAndFocus() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        var received = new ArrayList<String>();
+        var a = new Field("a", 0, received);
+        var b = new Field("b", 100, received);
+        var all = new EventListener() {
+            public void onKeyRelease(String keyName, char keyChar) {
+                received.add("all:" + keyName);
+            }
+        };
+        var clicks = new EventListener() {
+            public int getSubscribedEvents() {
+                return MOUSE_BUTTON_RELEASE;
+            }
+
+            public void onKeyRelease(String keyName, char keyChar) {
+                received.add("clicks:" + keyName);
+            }
+
+            public void onMouseButtonRelease(double x, double y, boolean left) {
+                received.add("clicks:" + x);
+            }
+        };
+        gui.addComponents(a, b, all, clicks);
+
+        gui.keyReleased("x", 'x');
+        gui.refresh();
+        assertEquals(List.of("all:x"), received);
+        assertNull(gui.getFocus());
+
+        received.clear();
+        gui.mouseButtonReleased(true, 150, 10); // click on b
+        gui.keyReleased("y", 'y');
+        gui.refresh();
+        assertSame(b, gui.getFocus());
+        assertEquals(List.of("b:focus", "b:y", "all:y", "clicks:150.0"), received);
+
+        received.clear();
+        gui.setFocus(a);
+        gui.keyReleased("z", 'z');
+        gui.refresh();
+        assertEquals(List.of("b:loss", "a:focus", "a:z", "all:z"), received);
+
+        received.clear();
+        gui.mouseButtonReleased(true, 500, 500); // click elsewhere
+        gui.refresh();
+        assertNull(gui.getFocus());
+        assertEquals(List.of("a:loss", "clicks:500.0"), received);
+
+        received.clear();
+        gui.setFocus(b);
+        gui.removeComponent(b);
+        assertNull(gui.getFocus());
+        assertEquals(List.of("b:focus", "b:loss"), received);
+        assertThrows(IllegalArgumentException.class, () -> gui.setFocus(b));
+    }
+
+    private static class Field implements EventListener, Interactive {
+        final String name;
+        final Rectangle area;
+        final List<String> received;
+
+        Field(String name, double x, List<String> received) {
+            this.name = name;
+            this.area = new Rectangle(x, 0, 100, 20);
+            this.received = received;
+        }
+
+        public Shape getInteractiveArea(Gui gui) {
+            return area;
+        }
+
+        public int getSubscribedEvents() {
+            return KEY_RELEASE | FOCUSABLE;
+        }
+
+        public void onKeyRelease(String keyName, char keyChar) {
+            received.add(name + ":" + keyName);
+        }
+
+        public void onFocusGain() {
+            received.add(name + ":focus");
+        }
+
+        public void onFocusLoss() {
+            received.add(name + ":loss");
+        }
+    }
+
+    @Test
+    void updatables() {
+        var gui = new HeadlessGui("Test", 800, 600);
+        var followers = new ArrayList<Follower>();
+        for (int i = 0; i < 2000; i++) { // enough to be updated in parallel
+            var f = new Follower();
+            followers.add(f);
+            gui.addComponent(f);
+        }
+        gui.mouseMoved(10, 20);
+        gui.keyPressed("space", ' ');
+        gui.refresh();
+        for (var f : followers) {
+            assertEquals(1, f.updates);
+            assertEquals(10, f.drawnX);
+            assertEquals(20, f.drawnY);
+            assertTrue(f.space);
+        }
+
+        gui.removeComponent(followers.get(0));
+        gui.mouseMoved(30, 40);
+        gui.refresh();
+        assertEquals(1, followers.get(0).updates);
+        assertEquals(2, followers.get(1).updates);
+        assertEquals(30, followers.get(1).drawnX);
+    }
+
+    private static class Follower implements Updatable, Drawable {
+        int updates;
+        double x, y, drawnX, drawnY;
+        boolean space;
+
+        public void update(InputSnapshot input) {
+            updates++;
+            x = input.getMouseX();
+            y = input.getMouseY();
+            space = input.isKeyPressed("space");
+        }
+
+        public void draw(Gui gui) {
+            drawnX = x;
+            drawnY = y;
+        }
+    }
+
+    private static class Named implements Drawable {
+        final String name;
+        final List<String> drawn;
+
+        Named(String name, List<String> drawn) {
+            this.name = name;
+            this.drawn = drawn;
+        }
+
+        public void draw(Gui gui) {
+            drawn.add(name);
+        }
+    }
+
+    private static class Button implements Clickable {
+        final String name;
+        final Rectangle area;
+        final boolean consumes;
+        final List<String> clicked;
+
+        Button(String name, double x, double y, double w, double h, boolean consumes, List<String> clicked) {
+            this.name = name;
+            area = new Rectangle(x, y, w, h);
+            this.consumes = consumes;
+            this.clicked = clicked;
+        }
+
+        public void onLeftClick(double x, double y) {
+            clicked.add(name);
+        }
+
+        public void onRightClick(double x, double y) {}
+
+        public boolean consumesClicks() {
+            return consumes;
+        }
+
+        public Shape getInteractiveArea(Gui gui) {
+            return area;
+        }
+    }
+
     @Test
     void addComponentInEventHandler() {
-        var gui = new TestGui();
+        var gui = new HeadlessGui("Test", 800, 600);
 
         gui.addComponent(new Clickable() {
             @Override
@@ -105,35 +568,7 @@ class GuiBaseTest {
             }
         });
 
-        gui.mouseX = 50;
-        gui.mouseY = 50;
-        gui.releasedInputs.add(new MouseInput(true));
+        gui.mouseButtonReleased(true, 50, 50);
         assertDoesNotThrow(() -> gui.refresh());
     }
-
-    static class TestGui extends GuiBase {
-        public TestGui() {
-            super("Test", 800, 600);
-        }
-        protected void repaint(boolean clear) {}
-        public void setResizable(boolean resizable) {}
-        public void setFullScreen(boolean fullScreen) {}
-        public boolean isFullScreen() { return false; }
-        public void loadFont(String path) {}
-        public double stringWidth(String string, String fontFamily, int fontSize,
-                                  boolean bold, boolean italic) { return 0; }
-        public void drawRect(double x, double y, double width, double height) {}
-        public void fillRect(double x, double y, double width, double height) {}
-        public void drawOval(double x, double y, double width, double height) {}
-        public void fillOval(double x, double y, double width, double height) {}
-        public void drawLine(double x1, double y1, double x2, double y2) {}
-        public void drawPath(double[] coordinates) {}
-        public void drawPolygon(double[] coordinates) {}
-        public void fillPolygon(double[] coordinates) {}
-        public void drawMultiPolygon(double[][] rings) {}
-        public void fillMultiPolygon(double[][] rings) {}
-        public void drawString(String string, double x, double y) {}
-        public void drawImage(String path, double x, double y, double scale, double angle) {}
-        public void drawImageCentered(String path, double x, double y, double scale, double angle) {}
-    }
 }
@@ -0,0 +1,121 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.InputEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputQueueTest {
+
+    @Test
+    void order() {
+        var queue = new InputQueue(4);
+        var events = new ArrayList<InputEvent>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                queue.add(InputEvent.mouseMove(round, i, 0));
+            }
+            events.clear();
+            queue.drainTo(events);
+            assertEquals(3, events.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(i, events.get(i).y);
+            }
+        }
+    }
+
+    @Test
+    void overflow() {
+        var queue = new InputQueue(4);
+        for (int i = 0; i < 10; i++) {
+            queue.add(InputEvent.mouseButton(i % 2 == 0, true, i, 0, 0));
+        }
+        var events = new ArrayList<InputEvent>();
+        queue.drainTo(events);
+        queue.add(InputEvent.mouseButton(true, true, 10, 0, 0));
+        queue.drainTo(events);
+        assertEquals(11, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i, events.get(i).x);
+        }
+    }
+
+    @Test
+    void boundedWithoutDraining() {
+        var queue = new InputQueue(4);
+        for (int i = 0; i < 100_000; i++) {
+            queue.add(InputEvent.mouseMove(i, 0, i));
+        }
+        assertEquals(4, queue.size());
+        for (int i = 0; i < InputQueue.MAX_OVERFLOW + 1000; i++) {
+            queue.add(InputEvent.key(i % 2 == 0, "a", 65, 'a', 100_000 + i));
+        }
+        assertEquals(4 + InputQueue.MAX_OVERFLOW, queue.size());
+
+        var events = new ArrayList<InputEvent>();
+        queue.drainTo(events);
+        assertEquals(0, queue.size());
+        // the first moves, all key events that fit, and the latest move
+        assertEquals(4 + InputQueue.MAX_OVERFLOW + 1, events.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, events.get(i).x);
+        }
+        for (int i = 4; i < events.size() - 1; i++) {
+            assertEquals(100_000 + i - 4, events.get(i).time);
+        }
+        assertEquals(99_999, events.get(events.size() - 1).x);
+    }
+
+    @Test
+    void latestDroppedMove() {
+        var queue = new InputQueue(4);
+        for (int i = 0; i < 5; i++) {
+            queue.add(InputEvent.mouseMove(i, 0, i));
+        }
+        var events = new ArrayList<InputEvent>();
+        queue.drainTo(events);
+        assertEquals(5, events.size());
+        assertEquals(4, events.get(4).x);
+
+        events.clear();
+        queue.drainTo(events);
+        assertEquals(0, events.size()); // appended only once
+    }
+
+    @Test
+    void multipleProducers() throws InterruptedException {
+        var queue = new InputQueue(64);
+        var threads = new ArrayList<Thread>();
+        var perThread = 10_000;
+        for (int t = 0; t < 4; t++) {
+            var producer = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    queue.add(InputEvent.mouseButton(i % 2 == 0, true, producer, i, 0));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        var events = new ArrayList<InputEvent>();
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            queue.drainTo(events);
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        queue.drainTo(events);
+        queue.drainTo(events);
+
+        // no event lost, and the events of each producer in order
+        assertEquals(4 * perThread, events.size());
+        var next = new HashMap<Integer, Integer>();
+        for (var event : events) {
+            assertEquals((int) next.getOrDefault(event.x, 0), event.y);
+            next.put(event.x, event.y + 1);
+        }
+    }
+}
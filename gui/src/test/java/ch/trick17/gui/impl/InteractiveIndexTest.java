@@ -0,0 +1,151 @@
+package ch.trick17.gui.impl;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.component.Component;
+import ch.trick17.gui.component.Hoverable;
+import ch.trick17.gui.component.Polygon;
+import ch.trick17.gui.component.Rectangle;
+import ch.trick17.gui.component.Shape;
+import ch.trick17.gui.component.Union;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InteractiveIndexTest {
+
+    @Test
+    void sameAsLinearSearch() {
+        var random = new Random(42);
+        var markers = new ArrayList<Marker>();
+        for (int i = 0; i < 2000; i++) {
+            var w = random.nextDouble() * (i % 100 == 0 ? 2000 : 50);
+            markers.add(new Marker(random.nextDouble() * 1000 - 100, random.nextDouble() * 1000 - 100, w, w));
+        }
+        markers.add(new Marker(new Union(new Rectangle(300, 300, 100, 20),
+                new Polygon(300, 300, 400, 300, 350, 450).rotated(0.5, 350, 350))));
+        markers.add(new Marker(new Circle(500, 500, 30))); // without bounds
+        var index = new InteractiveIndex();
+        for (int frame = 0; frame < 10; frame++) {
+            for (int i = 0; i < 100; i++) {
+                markers.get(random.nextInt(markers.size() - 2)).moveTo(random.nextDouble() * 1000, random.nextDouble() * 1000);
+            }
+            var components = new ArrayList<Component>(markers.subList(0, markers.size() - frame * 10));
+            index.update(components, null);
+            for (int i = 0; i < 200; i++) {
+                var x = random.nextDouble() * 1200 - 200;
+                var y = random.nextDouble() * 1200 - 200;
+                var expected = components.stream()
+                        .filter(c -> ((Marker) c).area.contains(x, y))
+                        .count();
+                index.hitTest(x, y);
+                var hits = 0;
+                for (int c = 0; c < components.size(); c++) {
+                    if (index.isHit(c)) {
+                        assertTrue(((Marker) components.get(c)).area.contains(x, y));
+                        hits++;
+                    }
+                }
+                assertEquals(expected, hits);
+            }
+        }
+    }
+
+    @Test
+    void hoveredKeptWhenMoved() {
+        var a = new Marker(0, 0, 10, 10);
+        var b = new Marker(20, 0, 10, 10);
+        var c = new Marker(40, 0, 10, 10);
+        var index = new InteractiveIndex();
+        index.update(List.of(a, b, c), null);
+        index.setHovered(1, true);
+
+        index.update(List.of(c, b), null); // a removed, c moved
+        assertFalse(index.isHovered(0));
+        assertTrue(index.isHovered(1));
+        index.hitTest(45, 5);
+        assertTrue(index.isHit(0));
+        assertFalse(index.isHit(1));
+
+        index.update(List.of(b), null);
+        assertTrue(index.isHovered(0));
+        index.update(List.of(a, b), null); // a added again, not hovered anymore
+        assertFalse(index.isHovered(0));
+        assertTrue(index.isHovered(1));
+        index.hitTest(45, 5);
+        assertFalse(index.isHit(0));
+        assertFalse(index.isHit(1));
+    }
+
+    @Test
+    void unboundedReplacedAndRemoved() {
+        var random = new Random(42);
+        var markers = new ArrayList<Marker>();
+        for (int i = 0; i < 50; i++) {
+            markers.add(new Marker(new Circle(i * 20, 0, 5)));
+        }
+        var index = new InteractiveIndex();
+        for (int frame = 0; frame < 20; frame++) {
+            for (int i = 0; i < 10; i++) {
+                var marker = markers.get(random.nextInt(markers.size()));
+                marker.area = new Circle(((Circle) marker.area).x, random.nextDouble() * 100, 5);
+            }
+            var components = new ArrayList<Component>(markers);
+            Collections.shuffle(components, random);
+            components.subList(0, random.nextInt(10)).clear();
+            index.update(components, null);
+            for (int c = 0; c < components.size(); c++) {
+                var circle = (Circle) ((Marker) components.get(c)).area;
+                index.hitTest(circle.x, circle.y);
+                for (int other = 0; other < components.size(); other++) {
+                    assertEquals(other == c, index.isHit(other));
+                }
+            }
+        }
+    }
+
+    private static class Marker implements Hoverable {
+        Shape area;
+
+        Marker(double x, double y, double w, double h) {
+            area = new Rectangle(x, y, w, h);
+        }
+
+        Marker(Shape area) {
+            this.area = area;
+        }
+
+        void moveTo(double x, double y) {
+            var r = (Rectangle) area;
+            area = new Rectangle(x, y, r.getWidth(), r.getHeight());
+        }
+
+        public Shape getInteractiveArea(Gui gui) {
+            return area;
+        }
+
+        public void onMouseEnter() {}
+
+        public void onMouseExit() {}
+    }
+
+    private static class Circle implements Shape {
+        final double x, y, r;
+
+        Circle(double x, double y, double r) {
+            this.x = x;
+            this.y = y;
+            this.r = r;
+        }
+
+        public boolean contains(double px, double py) {
+            return (px - x) * (px - x) + (py - y) * (py - y) <= r * r;
+        }
+    }
+}
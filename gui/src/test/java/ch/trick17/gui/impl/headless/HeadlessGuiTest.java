@@ -0,0 +1,189 @@
+package ch.trick17.gui.impl.headless;
+
+import ch.trick17.gui.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessGuiTest {
+
+    @Test
+    void refresh() {
+        var gui = new HeadlessGui("Test", 200, 100);
+        gui.setColor(new Color(255, 0, 0));
+        gui.fillRect(10, 10, 20, 20);
+        assertEquals(0xFF000000, gui.getImage().getRGB(20, 20)); // not yet displayed
+
+        gui.open();
+        assertEquals(0xFFFF0000, gui.getImage().getRGB(20, 20));
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(50, 20));
+
+        gui.fillRect(40, 10, 20, 20);
+        gui.refreshAndClear();
+        assertEquals(0xFFFF0000, gui.getImage().getRGB(20, 20));
+        assertEquals(0xFFFF0000, gui.getImage().getRGB(50, 20));
+
+        gui.refresh();
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(20, 20));
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(50, 20));
+    }
+
+    @Test
+    void transform() {
+        var gui = new HeadlessGui("Test", 200, 100);
+        gui.setColor(new Color(255, 0, 0));
+        gui.translate(100, 50);
+        gui.pushTransform();
+        gui.scale(2);
+        gui.fillRect(0, 0, 10, 10); // covers (100, 50) to (120, 70)
+        gui.rotate(Math.PI / 2);
+        gui.setColor(new Color(0, 0, 255));
+        gui.fillRect(0, 0, 10, 10); // covers (80, 50) to (100, 70)
+        gui.popTransform();
+        gui.setColor(new Color(0, 255, 0));
+        gui.drawString("x", -200, -100); // outside, not recorded
+        gui.fillRect(-100, -50, 10, 10);
+        gui.resetTransform();
+        gui.open();
+
+        assertEquals(0xFFFF0000, gui.getImage().getRGB(119, 69));
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(121, 50));
+        assertEquals(0xFF0000FF, gui.getImage().getRGB(81, 69));
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(79, 50));
+        assertEquals(0xFF00FF00, gui.getImage().getRGB(5, 5));
+        assertTrue(gui.getTransform().isIdentity());
+        assertThrows(IllegalStateException.class, gui::popTransform);
+    }
+
+    @Test
+    void occludedCommands() {
+        var gui = new HeadlessGui("Test", 200, 100);
+        gui.setColor(new Color(255, 0, 0));
+        gui.fillRect(10, 10, 20, 20);
+        gui.setColor(new Color(0, 0, 255));
+        gui.setStrokeWidth(5);
+        gui.fillRect(0, 0, 200, 100);
+        gui.setColor(new Color(0, 255, 0));
+        gui.drawLine(100, 0, 100, 100);
+        gui.open();
+
+        assertEquals(0xFF0000FF, gui.getImage().getRGB(20, 20));
+        assertEquals(0xFF00FF00, gui.getImage().getRGB(100, 50));
+        assertEquals(0xFF00FF00, gui.getImage().getRGB(101, 50)); // stroke width preserved
+    }
+
+    @Test
+    void commandsOutsideCanvasNotOccluded() {
+        var gui = new HeadlessGui("Test", 200, 100) {
+            int recordedCommands() {
+                return takeSnapshot(false).commands.size();
+            }
+        };
+        gui.setColor(new Color(255, 0, 0));
+        gui.fillRect(250, 10, 20, 20); // visible if the canvas grows
+        gui.setColor(new Color(0, 0, 255));
+        gui.fillRect(0, 0, 200, 100);
+        assertEquals(5, gui.recordedCommands()); // nothing dropped
+
+        gui.fillRect(0, 0, 300, 200);
+        assertEquals(2, gui.recordedCommands()); // settings and last rectangle
+    }
+
+    @Test
+    void antialiasing() {
+        var gui = new HeadlessGui("Test", 100, 100);
+        gui.setColor(new Color(0, 0, 0));
+        gui.fillOval(10, 10, 80, 80);
+        gui.refreshAndClear();
+        assertTrue(hasGrayPixels(gui));
+
+        gui.setAntialiasing(false);
+        gui.fillOval(10, 10, 80, 80);
+        gui.refreshAndClear();
+        assertFalse(hasGrayPixels(gui));
+
+        gui.setAntialiasing(true);
+        gui.setRenderQuality("speed");
+        gui.fillOval(10, 10, 80, 80);
+        gui.refreshAndClear();
+        assertFalse(hasGrayPixels(gui));
+    }
+
+    private static boolean hasGrayPixels(HeadlessGui gui) {
+        var image = gui.getImage();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                var rgb = image.getRGB(x, y) & 0xFFFFFF;
+                if (rgb != 0 && rgb != 0xFFFFFF) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void autoRenderQuality() {
+        var gui = new AutoGui();
+        assertThrows(IllegalArgumentException.class, () -> gui.setRenderQuality("best"));
+        gui.setRenderQuality("auto");
+        assertEquals("quality", gui.level());
+
+        var budget = 20_000_000L; // nanos
+        gui.refresh(20);
+        for (int i = 0; i < 3; i++) {
+            gui.painted(2 * budget);
+        }
+        assertEquals("balanced", gui.level());
+        for (int i = 0; i < 3; i++) {
+            gui.painted(2 * budget);
+        }
+        assertEquals("speed", gui.level());
+        for (int i = 0; i < 59; i++) {
+            gui.painted(budget / 4);
+        }
+        assertEquals("speed", gui.level());
+        gui.painted(budget / 4);
+        assertEquals("balanced", gui.level());
+
+        // too slow again right away: raising takes twice as long next time
+        for (int i = 0; i < 3; i++) {
+            gui.painted(2 * budget);
+        }
+        assertEquals("speed", gui.level());
+        for (int i = 0; i < 119; i++) {
+            gui.painted(budget / 4);
+        }
+        assertEquals("speed", gui.level());
+        gui.painted(budget / 4);
+        assertEquals("balanced", gui.level());
+
+        // setting the quality again resets the state, including the doubling
+        gui.setRenderQuality("auto");
+        assertEquals("quality", gui.level());
+        for (int i = 0; i < 6; i++) {
+            gui.painted(2 * budget);
+        }
+        assertEquals("speed", gui.level());
+        for (int i = 0; i < 60; i++) {
+            gui.painted(budget / 4);
+        }
+        assertEquals("balanced", gui.level());
+    }
+
+    private static class AutoGui extends HeadlessGui {
+
+        AutoGui() {
+            super("Test", 100, 100);
+        }
+
+        void painted(long nanos) {
+            framePainted(nanos);
+        }
+
+        String level() {
+            var hints = renderingHints();
+            return hints == SPEED_HINTS ? "speed" : hints == BALANCED_HINTS ? "balanced" : "quality";
+        }
+    }
+}
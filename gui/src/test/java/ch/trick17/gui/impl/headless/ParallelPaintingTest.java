@@ -0,0 +1,49 @@
+package ch.trick17.gui.impl.headless;
+
+import ch.trick17.gui.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that parallel painting produces the same pixels as sequential
+ * painting. Java2D reads the setting that this depends on only once, so
+ * this class runs in a fresh JVM, in a separate Surefire execution (see the
+ * POM of this module).
+ */
+class ParallelPaintingTest {
+
+    @Test
+    void parallelSameAsSequential() {
+        var sequential = new HeadlessGui("Test", 700, 500);
+        var parallel = new HeadlessGui("Test", 700, 500);
+        parallel.setParallel(true); // before anything is rendered in this JVM
+        assertEquals("false", System.getProperty("sun.java2d.renderer.clip"));
+        for (var gui : List.of(sequential, parallel)) {
+            var random = new Random(42);
+            for (int i = 0; i < 300; i++) {
+                gui.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 150));
+                gui.setStrokeWidth(1 + random.nextInt(8));
+                var x = random.nextDouble() * 700;
+                var y = random.nextDouble() * 500;
+                var size = random.nextDouble() * 150;
+                switch (i % 5) {
+                    case 0: gui.fillOval(x, y, size, size / 2); break;
+                    case 1: gui.drawRect(x, y, size, size); break;
+                    case 2: gui.drawPolygon(new double[]{x, y, x + size, y + 3, x + 5, y + size}); break;
+                    case 3: gui.drawString("Hello\nWorld", x, y); break;
+                    default: gui.drawLine(x, y, x + size, y - size); break;
+                }
+            }
+            gui.open();
+        }
+        for (int y = 0; y < 500; y++) {
+            for (int x = 0; x < 700; x++) {
+                assertEquals(sequential.getImage().getRGB(x, y), parallel.getImage().getRGB(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ch.trick17.gui.impl.headless;
+
+import ch.trick17.gui.Color;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TiledCanvasTest {
+
+    static final Color WHITE = new Color(255, 255, 255);
+    static final Color RED = new Color(255, 0, 0);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void onlyUsedTilesAllocated() {
+        var canvas = new TiledCanvas("Test", 4000, 3000);
+        canvas.setColor(RED);
+        canvas.fillRect(500, 500, 100, 100); // spans 4 tiles
+        canvas.open();
+
+        assertEquals(RED, canvas.getPixel(550, 550));
+        assertEquals(WHITE, canvas.getPixel(450, 450));
+        assertEquals(WHITE, canvas.getPixel(3999, 2999));
+
+        canvas.writePng(tempDir.resolve("canvas.png"));
+        assertEquals(4, canvas.usedTiles());
+
+        canvas.refreshAndClear();
+        canvas.refresh();
+        canvas.writePng(tempDir.resolve("canvas.png"));
+        assertEquals(WHITE, canvas.getPixel(550, 550));
+        assertEquals(0, canvas.usedTiles());
+    }
+
+    @Test
+    void tilesOnlyReplayIntersectingCommands() {
+        var canvas = new TiledCanvas("Test", 4000, 3000);
+        canvas.setColor(RED);
+        for (int i = 0; i < 1000; i++) {
+            canvas.fillRect(i % 100, i / 100, 1, 1); // all in the first tile
+        }
+        canvas.fillRect(3500, 2500, 10, 10);
+        canvas.open();
+
+        assertEquals(RED, canvas.getPixel(3505, 2505));
+        assertTrue(canvas.replayedCommands() < 10); // only settings and the last rectangle
+        assertEquals(RED, canvas.getPixel(50, 5));
+        assertTrue(canvas.replayedCommands() > 1000);
+    }
+
+    @Test
+    void writePng() throws IOException {
+        var canvas = new TiledCanvas("Test", 1200, 700, tempDir.resolve("tiles"));
+        canvas.setColor(RED);
+        canvas.fillRect(1000, 600, 200, 100);
+        canvas.open();
+
+        var file = tempDir.resolve("canvas.png");
+        canvas.writePng(file);
+        var image = ImageIO.read(file.toFile());
+        assertEquals(1200, image.getWidth());
+        assertEquals(700, image.getHeight());
+        assertEquals(0xFFFF0000, image.getRGB(1100, 650));
+        assertEquals(0xFFFFFFFF, image.getRGB(900, 650));
+        assertEquals(0xFFFFFFFF, image.getRGB(0, 0));
+    }
+}
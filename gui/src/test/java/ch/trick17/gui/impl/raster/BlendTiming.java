@@ -0,0 +1,49 @@
+package ch.trick17.gui.impl.raster;
+
+import java.util.Random;
+
+/**
+ * Compares the scalar blending loops with the ones that are actually used,
+ * which are vectorized if the Vector API is available. To use the latter,
+ * run with <code>--add-modules jdk.incubator.vector</code> on Java 17 or
+ * later, with the Java 17 classes on the class path.
+ */
+public class BlendTiming {
+
+    private static final int LENGTH = 4096;
+    private static final int REPETITIONS = 20_000;
+
+    public static void main(String[] args) {
+        var random = new Random(42);
+        var dest = new int[LENGTH];
+        var alphas = new int[LENGTH];
+        var src = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            dest[i] = random.nextInt(0x1000000);
+            alphas[i] = random.nextInt(257);
+            var a = random.nextInt(256);
+            src[i] = a << 24 | random.nextInt(a + 1) << 16 | random.nextInt(a + 1) << 8 | random.nextInt(a + 1);
+        }
+
+        System.out.println("Using " + Blender.INSTANCE.getClass().getSimpleName() + "\n");
+        for (var blender : new Blender[]{new Blender(), Blender.INSTANCE}) {
+            var name = blender.getClass().getSimpleName();
+            time(name + " fill", () -> blender.fill(dest, 0, LENGTH, 0x123456, 100));
+            time(name + " fill coverage", () -> blender.fill(dest, 0, LENGTH, 0x123456, alphas, 0));
+            time(name + " blit", () -> blender.blit(dest, 0, LENGTH, src, 0, 200));
+            System.out.println();
+        }
+    }
+
+    private static void time(String name, Runnable loop) {
+        for (int i = 0; i < REPETITIONS / 10; i++) { // warm-up
+            loop.run();
+        }
+        var before = System.nanoTime();
+        for (int i = 0; i < REPETITIONS; i++) {
+            loop.run();
+        }
+        var nanos = (double) (System.nanoTime() - before) / REPETITIONS / LENGTH;
+        System.out.printf("%-28s %5.2f ns/pixel\n", name, nanos);
+    }
+}
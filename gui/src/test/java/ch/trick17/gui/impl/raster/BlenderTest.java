@@ -0,0 +1,67 @@
+package ch.trick17.gui.impl.raster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class BlenderTest {
+
+    private static final int LENGTH = 1000;
+
+    private final Random random = new Random(42);
+    private final Blender scalar = new Blender();
+    private final Blender instance = Blender.INSTANCE; // vectorized, if available
+
+    @Test
+    void fill() {
+        for (var alpha : new int[]{0, 1, 100, 255, 256}) {
+            var expected = randomPixels();
+            var actual = expected.clone();
+            var rgb = random.nextInt(0x1000000);
+            scalar.fill(expected, 3, LENGTH - 10, rgb, alpha);
+            instance.fill(actual, 3, LENGTH - 10, rgb, alpha);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void fillCoverage() {
+        var expected = randomPixels();
+        var actual = expected.clone();
+        var alphas = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            alphas[i] = random.nextInt(257);
+        }
+        var rgb = random.nextInt(0x1000000);
+        scalar.fill(expected, 5, LENGTH - 7, rgb, alphas, 2);
+        instance.fill(actual, 5, LENGTH - 7, rgb, alphas, 2);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void blit() {
+        var src = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            // premultiplied: no channel larger than alpha
+            var a = random.nextInt(256);
+            src[i] = a << 24 | random.nextInt(a + 1) << 16 | random.nextInt(a + 1) << 8 | random.nextInt(a + 1);
+        }
+        for (var alpha : new int[]{0, 77, 256}) {
+            var expected = randomPixels();
+            var actual = expected.clone();
+            scalar.blit(expected, 1, LENGTH - 3, src, 2, alpha);
+            instance.blit(actual, 1, LENGTH - 3, src, 2, alpha);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    private int[] randomPixels() {
+        var pixels = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            pixels[i] = random.nextInt(0x1000000);
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,116 @@
+package ch.trick17.gui.impl.raster;
+
+import ch.trick17.gui.Color;
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.impl.headless.HeadlessGui;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+import static java.lang.Math.abs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RasterGuiTest {
+
+    @Test
+    void refresh() {
+        var gui = new RasterGui("Test", 200, 100);
+        gui.setColor(new Color(255, 0, 0));
+        gui.fillRect(10, 10, 20, 20);
+        assertEquals(0xFF000000, gui.getImage().getRGB(20, 20)); // not yet displayed
+
+        gui.open();
+        assertEquals(0xFFFF0000, gui.getImage().getRGB(20, 20));
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(50, 20));
+
+        gui.fillRect(40, 10, 20, 20);
+        gui.refreshAndClear();
+        assertEquals(0xFFFF0000, gui.getImage().getRGB(20, 20));
+        assertEquals(0xFFFF0000, gui.getImage().getRGB(50, 20));
+
+        gui.refresh();
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(20, 20));
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(50, 20));
+    }
+
+    @Test
+    void fillPolygonEvenOdd() {
+        var gui = new RasterGui("Test", 100, 100);
+        gui.fillMultiPolygon(new double[][]{
+                {10, 10, 90, 10, 90, 90, 10, 90},
+                {30, 30, 70, 30, 70, 70, 30, 70}});
+        gui.open();
+        assertEquals(0xFF000000, gui.getImage().getRGB(20, 50));
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(50, 50)); // hole
+        assertEquals(0xFFFFFFFF, gui.getImage().getRGB(95, 50));
+    }
+
+    @Test
+    void sameAsJava2D() {
+        Consumer<Gui> commands = gui -> {
+            gui.setColor(new Color(200, 30, 30));
+            gui.fillRect(10.3, 10.7, 50.5, 30.2);
+            gui.setColor(new Color(30, 30, 200, 128));
+            gui.fillOval(40, 20, 80, 60);
+            gui.setColor(new Color(30, 150, 30));
+            gui.setStrokeWidth(3);
+            gui.drawLine(0, 0, 199, 99);
+            gui.setRoundStroke(true);
+            gui.drawOval(120, 10, 60, 60);
+            gui.setAlpha(0.5);
+            gui.fillPolygon(new double[]{100, 90, 150, 20, 190, 95});
+            gui.drawRect(5, 60, 40, 30);
+        };
+        var java2D = new HeadlessGui("Test", 200, 100);
+        commands.accept(java2D);
+        java2D.open();
+        var raster = new RasterGui("Test", 200, 100);
+        commands.accept(raster);
+        raster.open();
+        assertTrue(meanDifference(java2D.getImage(), raster.getImage()) < 1.0);
+    }
+
+    @Test
+    void transformedSameAsJava2D() {
+        Consumer<Gui> commands = gui -> {
+            gui.setColor(new Color(200, 30, 30));
+            gui.rotate(0.3, 100, 50);
+            gui.fillRect(60, 20, 80, 60);
+            gui.pushTransform();
+            gui.translate(20, 10);
+            gui.scale(1.5, 0.8);
+            gui.setColor(new Color(30, 30, 200, 128));
+            gui.fillOval(10, 10, 60, 60);
+            gui.setColor(new Color(30, 150, 30));
+            gui.setStrokeWidth(3);
+            gui.drawLine(0, 0, 120, 100);
+            gui.fillPolygon(new double[]{60, 90, 90, 20, 120, 95});
+            gui.popTransform();
+            gui.scale(-1, 1);
+            gui.fillRect(-190, 40, 20, 50); // mirrored, still axis-aligned
+        };
+        var java2D = new HeadlessGui("Test", 200, 100);
+        commands.accept(java2D);
+        java2D.open();
+        var raster = new RasterGui("Test", 200, 100);
+        commands.accept(raster);
+        raster.open();
+        assertTrue(meanDifference(java2D.getImage(), raster.getImage()) < 1.0);
+    }
+
+    private static double meanDifference(BufferedImage a, BufferedImage b) {
+        long sum = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                var p = a.getRGB(x, y);
+                var q = b.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    sum += abs((p >> shift & 0xFF) - (q >> shift & 0xFF));
+                }
+            }
+        }
+        return sum / (3.0 * a.getWidth() * a.getHeight());
+    }
+}
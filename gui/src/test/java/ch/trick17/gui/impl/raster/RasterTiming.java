@@ -0,0 +1,70 @@
+package ch.trick17.gui.impl.raster;
+
+import ch.trick17.gui.Color;
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.impl.headless.HeadlessGui;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Compares the software rasterizer with Java2D (as used by the headless
+ * backend) on the same command streams, consisting of many small
+ * anti-aliased shapes.
+ */
+public class RasterTiming {
+
+    private static final int FRAMES = 50;
+    private static final int SHAPES = 10_000;
+
+    public static void main(String[] args) {
+        var streams = Map.<String, Consumer<Gui>>of(
+                "rects", gui -> shapes(gui, (g, r) -> g.fillRect(r[0], r[1], r[2], r[3])),
+                "ovals", gui -> shapes(gui, (g, r) -> g.fillOval(r[0], r[1], r[2], r[3])),
+                "lines", gui -> shapes(gui, (g, r) -> g.drawLine(r[0], r[1], r[0] + r[2], r[1] + r[3])),
+                "polygons", gui -> shapes(gui, (g, r) -> g.fillPolygon(new double[]{
+                        r[0], r[1], r[0] + r[2], r[1], r[0] + r[2] / 2, r[1] + r[3]})));
+        for (var entry : streams.entrySet()) {
+            System.out.printf("%s:\n", entry.getKey());
+            time("Java2D", () -> new HeadlessGui("Timing", 800, 600), entry.getValue());
+            time("Raster", () -> new RasterGui("Timing", 800, 600), entry.getValue());
+            System.out.println();
+        }
+    }
+
+    private static void time(String name, Supplier<Gui> factory, Consumer<Gui> commands) {
+        var gui = factory.get();
+        gui.open();
+        for (int i = 0; i < FRAMES / 5; i++) { // warm-up
+            commands.accept(gui);
+            gui.refreshAndClear(0);
+        }
+        var before = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            commands.accept(gui);
+            gui.refreshAndClear(0);
+        }
+        var millis = (System.nanoTime() - before) / 1_000_000.0 / FRAMES;
+        gui.close();
+        System.out.printf("%-7s %6.1f ms/frame\n", name, millis);
+    }
+
+    private static void shapes(Gui gui, ShapeCommand command) {
+        var random = new Random(42);
+        var r = new double[4];
+        for (int i = 0; i < SHAPES; i++) {
+            gui.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 200));
+            r[0] = random.nextDouble() * 800;
+            r[1] = random.nextDouble() * 600;
+            r[2] = 2 + random.nextDouble() * 10;
+            r[3] = 2 + random.nextDouble() * 10;
+            command.draw(gui, r);
+        }
+    }
+
+    private interface ShapeCommand {
+        void draw(Gui gui, double[] r);
+    }
+}
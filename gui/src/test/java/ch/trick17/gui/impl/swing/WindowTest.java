@@ -0,0 +1,128 @@
+package ch.trick17.gui.impl.swing;
+
+import ch.trick17.gui.Color;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+
+import static ch.trick17.gui.impl.swing.Window.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Tests that show a window require a display; run them under Xvfb on
+ * machines without one. The others are skipped.
+ */
+class WindowTest {
+
+    @Test
+    void letterboxing() {
+        assertEquals(new Rectangle(0, 0, 800, 600), letterbox(800, 600, 320, 240));
+        assertEquals(new Rectangle(100, 0, 800, 600), letterbox(1000, 600, 320, 240)); // bars left and right
+        assertEquals(new Rectangle(0, 50, 800, 600), letterbox(800, 700, 320, 240));   // bars top and bottom
+        assertEquals(new Rectangle(0, 0, 320, 240), letterbox(320, 240, 320, 240));
+    }
+
+    @Test
+    void toCanvasCoordinates() {
+        var target = letterbox(1000, 600, 320, 240);
+        assertEquals(0, toCanvas(100, target.x, target.width, 320));
+        assertEquals(0, toCanvas(102, target.x, target.width, 320));
+        assertEquals(1, toCanvas(103, target.x, target.width, 320));
+        assertEquals(160, toCanvas(500, target.x, target.width, 320));
+        assertEquals(319, toCanvas(899, target.x, target.width, 320));
+        assertEquals(-1, toCanvas(99, target.x, target.width, 320));  // in the left bar
+        assertEquals(320, toCanvas(900, target.x, target.width, 320)); // in the right bar
+        assertEquals(120, toCanvas(300, target.y, target.height, 240));
+    }
+
+    @Test
+    void renderScaleAdjustment() {
+        assertEquals(0.9, adjustRenderScale(1, 20, 16), 1e-9);      // too slow
+        assertEquals(1, adjustRenderScale(1, 5, 16));                // fast, but at most 1
+        assertEquals(0.525, adjustRenderScale(0.5, 5, 16), 1e-9);   // fast
+        assertEquals(0.5, adjustRenderScale(0.5, 12, 16));           // fast enough
+        assertEquals(0.25, adjustRenderScale(0.26, 20, 16));         // at least 0.25
+
+        var scale = 1.0;
+        for (int i = 0; i < 100; i++) {
+            scale = adjustRenderScale(scale, 100, 16);
+        }
+        assertEquals(0.25, scale);
+        for (int i = 0; i < 100; i++) {
+            scale = adjustRenderScale(scale, 1, 16);
+        }
+        assertEquals(1, scale);
+    }
+
+    @Test
+    void presentRepeatsWhenContentsAreLost() {
+        var strategy = new FakeStrategy(1, 2);
+        var frames = new int[1];
+        present(strategy, g -> frames[0]++);
+        assertEquals(4, frames[0]); // 2 restores while painting, then 1 loss after showing
+        assertEquals(2, strategy.shown);
+    }
+
+    @Test
+    void activeRenderingPresentsOnRefresh() throws Exception {
+        assumeFalse(GraphicsEnvironment.isHeadless(), "no display available");
+        var window = new Window("Test", 200, 100, true);
+        window.open();
+        try {
+            var robot = new Robot();
+            var location = window.surface().getLocationOnScreen();
+
+            window.setColor(new Color(255, 0, 0));
+            window.fillRect(0, 0, 200, 100);
+            window.refreshAndClear(0);
+            // no waiting: the frame must be on the screen when refresh returns
+            assertEquals(java.awt.Color.RED, robot.getPixelColor(location.x + 50, location.y + 50));
+
+            window.setColor(new Color(0, 0, 255));
+            window.fillRect(0, 0, 200, 100);
+            window.refreshAndClear(0);
+            assertEquals(java.awt.Color.BLUE, robot.getPixelColor(location.x + 50, location.y + 50));
+        } finally {
+            window.close();
+        }
+    }
+
+    /**
+     * Buffer strategy that draws into an image and reports the given number
+     * of lost and restored contents.
+     */
+    private static class FakeStrategy extends BufferStrategy {
+        private final BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        private int losses;
+        private int restores;
+        int shown;
+
+        FakeStrategy(int losses, int restores) {
+            this.losses = losses;
+            this.restores = restores;
+        }
+
+        public BufferCapabilities getCapabilities() {
+            return null;
+        }
+
+        public Graphics getDrawGraphics() {
+            return image.createGraphics();
+        }
+
+        public boolean contentsLost() {
+            return losses-- > 0;
+        }
+
+        public boolean contentsRestored() {
+            return restores-- > 0;
+        }
+
+        public void show() {
+            shown++;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ch.trick17.gui.spi;
+
+import ch.trick17.gui.Gui;
+import ch.trick17.gui.impl.headless.HeadlessGui;
+import ch.trick17.gui.impl.headless.TiledCanvas;
+import org.junit.jupiter.api.Test;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BackendTest {
+
+    @Test
+    public void all() {
+        var names = Backend.all().stream().map(Backend::getName).collect(toList());
+        assertEquals(List.of("swing", "headless", "tiled", "raster"), names);
+    }
+
+    @Test
+    public void select() {
+        assertEquals("headless", Backend.select("headless").getName());
+        assertThrows(IllegalArgumentException.class, () -> Backend.select("nonexistent"));
+    }
+
+    @Test
+    public void noFallbackWithoutDisplay() {
+        assumeTrue(GraphicsEnvironment.isHeadless());
+        assertThrows(HeadlessException.class, () -> Backend.select(null));
+        assertThrows(HeadlessException.class, () -> Gui.create("Test", 800, 600));
+    }
+
+    @Test
+    public void createWithOptions() {
+        assertInstanceOf(HeadlessGui.class, Gui.create("Test", 800, 600, Map.of("backend", "headless")));
+        assertInstanceOf(TiledCanvas.class, Gui.create("Test", 800, 600, Map.of("backend", "tiled")));
+    }
+}
@@ -25,6 +25,7 @@ public abstract class Button extends Widget implements Hoverable, Clickable {
     private Color hoveredTextColor = DEFAULT_HOVERED_TEXT_COLOR;
 
     private boolean hovered = false;
+    private Rectangle area;
 
     protected Button(String text, double x, double y,
                      double width, double height) {
@@ -108,7 +109,15 @@ public abstract class Button extends Widget implements Hoverable, Clickable {
     }
 
     public Rectangle getInteractiveArea(Gui gui) {
-        return new Rectangle(getX(), getY(), getWidth(), getHeight());
+        // return the same object while the bounds do not change, so the GUI
+        // does not need to update its index of interactive areas
+        var area = this.area;
+        if (area == null || area.getLeftX() != getX() || area.getTopY() != getY()
+            || area.getWidth() != getWidth() || area.getHeight() != getHeight()) {
+            area = new Rectangle(getX(), getY(), getWidth(), getHeight());
+            this.area = area;
+        }
+        return area;
     }
 
     @Override
@@ -3,12 +3,13 @@ package ch.trick17.gui.widget;
 import ch.trick17.gui.Color;
 import ch.trick17.gui.Gui;
 import ch.trick17.gui.component.EventListener;
+import ch.trick17.gui.component.Interactive;
 import ch.trick17.gui.component.Rectangle;
 
 import static ch.trick17.gui.impl.GuiBase.CHAR_UNDEFINED;
 import static java.util.Objects.requireNonNull;
 
-public class TextField extends Widget implements EventListener {
+public class TextField extends Widget implements EventListener, Interactive {
 
     public static final Color DEFAULT_BACKGROUND_COLOR = new Color(255, 255, 255);
     public static final Color DEFAULT_TEXT_COLOR = new Color(0, 0, 0);
@@ -25,6 +26,7 @@ public class TextField extends Widget implements EventListener {
     private Color focussedBorderColor = DEFAULT_FOCUSSED_BORDER_COLOR;
 
     private boolean focussed = false;
+    private Rectangle area;
 
     public TextField(double x, double y, double width, double height) {
         super(x, y);
@@ -102,9 +104,35 @@ public class TextField extends Widget implements EventListener {
         return focussed;
     }
 
+    public Rectangle getInteractiveArea(Gui gui) {
+        // return the same object while the bounds do not change, so the GUI
+        // does not need to update its index of interactive areas
+        var area = this.area;
+        if (area == null || area.getLeftX() != getX() || area.getTopY() != getY()
+            || area.getWidth() != getWidth() || area.getHeight() != getHeight()) {
+            area = new Rectangle(getX(), getY(), getWidth(), getHeight());
+            this.area = area;
+        }
+        return area;
+    }
+
+    /**
+     * Text fields only receive key releases, and only while they are
+     * focussed, so typing does not notify all text fields in the GUI.
+     */
+    @Override
+    public int getSubscribedEvents() {
+        return KEY_RELEASE | FOCUSABLE;
+    }
+
+    @Override
+    public void onFocusGain() {
+        focussed = true;
+    }
+
     @Override
-    public void onMouseButtonRelease(double x, double y, boolean left) {
-        focussed = new Rectangle(getX(), getY(), width, height).contains(x, y);
+    public void onFocusLoss() {
+        focussed = false;
     }
 
     @Override
@@ -2,6 +2,8 @@ package ch.trick17.gui.widget;
 
 import org.junit.jupiter.api.Test;
 
+import static ch.trick17.gui.component.EventListener.FOCUSABLE;
+import static ch.trick17.gui.component.EventListener.KEY_RELEASE;
 import static org.junit.jupiter.api.Assertions.*;
 
 class TextFieldTest {
@@ -10,27 +12,26 @@ class TextFieldTest {
     void focus() {
         var field = new TextField(50, 50, 100, 50);
         assertFalse(field.isFocussed());
+        assertEquals(KEY_RELEASE | FOCUSABLE, field.getSubscribedEvents());
 
-        field.onMouseButtonRelease(100, 75, true);
-        assertTrue(field.isFocussed());
-
-        field.onMouseButtonRelease(200, 75, true);
-        assertFalse(field.isFocussed());
+        var area = field.getInteractiveArea(null);
+        assertTrue(area.contains(100, 75));
+        assertTrue(area.contains(50, 50));
+        assertFalse(area.contains(200, 75));
+        assertFalse(area.contains(0, 0));
+        assertSame(area, field.getInteractiveArea(null));
 
-        field.onMouseButtonRelease(0, 0, true);
-        assertFalse(field.isFocussed());
-
-        field.onMouseButtonRelease(50, 50, true);
+        field.onFocusGain();
         assertTrue(field.isFocussed());
 
-        field.onMouseButtonRelease(100, 75, false); // right click
-        assertTrue(field.isFocussed());
+        field.onFocusLoss();
+        assertFalse(field.isFocussed());
     }
 
     @Test
     void input() {
         var field = new TextField(0, 0, 100, 50);
-        field.onMouseButtonRelease(0, 0, true);
+        field.onFocusGain();
         assertEquals("", field.getText());
 
         field.onKeyRelease("a", 'a');
@@ -55,7 +56,7 @@ class TextFieldTest {
                 capturedText = text;
             }
         };
-        field.onMouseButtonRelease(0, 0, true);
+        field.onFocusGain();
         field.onKeyRelease("a", 'a');
         assertEquals("a", capturedText);
 